@@ -40,7 +40,9 @@ import com.jme3.gde.assetbrowser.widgets.PreviewInteractionListener;
 import com.jme3.gde.assetbrowser.widgets.SoundPreview;
 import com.jme3.gde.assetbrowser.widgets.TexturePreview;
 import com.jme3.gde.core.assets.BinaryModelDataObject;
+import com.jme3.gde.core.assets.AssetDependencyGraph;
 import com.jme3.gde.core.assets.ProjectAssetManager;
+import com.jme3.gde.core.icons.IconList;
 import com.jme3.gde.core.util.ProjectSelection;
 import com.jme3.gde.materials.JMEMaterialDataObject;
 import com.jme3.gde.materials.multiview.MaterialOpenSupport;
@@ -49,21 +51,28 @@ import com.jme3.gde.textureeditor.JmeTextureDataObject;
 import com.jme3.gde.textureeditor.OpenTexture;
 import com.jme3.scene.Spatial;
 import java.awt.Dimension;
-import java.awt.GridBagConstraints;
-import java.awt.GridBagLayout;
+import java.awt.Rectangle;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.awt.event.KeyEvent;
-import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.swing.JOptionPane;
 import org.openide.DialogDisplayer;
 import org.openide.NotifyDescriptor;
-import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeAdapter;
 import org.openide.filesystems.FileChangeListener;
 import org.openide.filesystems.FileEvent;
 import org.openide.filesystems.FileObject;
@@ -71,6 +80,7 @@ import org.openide.filesystems.FileRenameEvent;
 import org.openide.loaders.DataObject;
 import org.openide.loaders.DataObjectNotFoundException;
 import org.openide.util.Exceptions;
+import org.openide.util.RequestProcessor;
 
 /**
  * Top component for AssetBrowser
@@ -84,13 +94,75 @@ public class AssetBrowser extends javax.swing.JPanel implements PreviewInteracti
     private static final String MODELS = "Models";
     private static final String TEXTURES = "Textures";
     private static final String SOUNDS = "Sounds";
+    /**
+     * Rows of widgets created above and below the visible area, so they are
+     * ready when scrolling.
+     */
+    private static final int MARGIN_ROWS = 2;
+    /**
+     * File events are collected for this long before the browser is updated,
+     * so e.g. a checkout touching many files results in one update.
+     */
+    private static final int FILE_EVENT_DELAY = 300;
     private ProjectAssetManager assetManager;
     private PreviewHelper previewUtil;
     private String projectName;
 
     private int lastGridColumns = 0;
-    private int lastGridRows = 0;
-    private String lastFilter;
+    private int lastCellWidth = 0;
+    private String lastFilter = "";
+
+    private final List<AssetEntry> assets = new ArrayList<>();
+    private final Map<Integer, AssetPreviewWidget> visibleWidgets = new HashMap<>();
+    private final Map<String, Deque<AssetPreviewWidget>> widgetPool = new HashMap<>();
+    private final Map<AssetPreviewWidget, PreviewHelper.PreviewTask> previewTasks = new HashMap<>();
+
+    private FileObject assetFolder;
+    private final Map<String, FileObject> changedFiles = new HashMap<>();
+    private final Set<String> deletedFiles = new HashSet<>();
+    private boolean foldersChanged = false;
+    private final RequestProcessor.Task changeTask = RequestProcessor.getDefault().create(
+            () -> java.awt.EventQueue.invokeLater(this::applyFileChanges));
+    private final AssetDependencyGraph.DependencyChangeListener dependencyListener
+            = (changed, affected) -> java.awt.EventQueue.invokeLater(() -> refreshPreviews(affected));
+    private final FileChangeListener assetFolderListener = new FileChangeAdapter() {
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            queueFolderChange();
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            queueChangedFile(fe.getFile());
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            queueChangedFile(fe.getFile());
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            if (fe.getFile().isFolder()) {
+                queueFolderChange();
+            } else {
+                queueDeletedFile(fe.getFile().getPath());
+            }
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fre) {
+            FileObject file = fre.getFile();
+            if (file.isFolder()) {
+                queueFolderChange();
+                return;
+            }
+            String oldName = fre.getExt().isEmpty() ? fre.getName() : fre.getName() + "." + fre.getExt();
+            FileObject parent = file.getParent();
+            queueDeletedFile(parent != null ? parent.getPath() + "/" + oldName : oldName);
+            queueChangedFile(file);
+        }
+    };
 
     private int sizeX = Constants.sizeX;
     private int sizeY = Constants.sizeY;
@@ -106,7 +178,7 @@ public class AssetBrowser extends javax.swing.JPanel implements PreviewInteracti
                 getLayout().layoutContainer(AssetBrowser.this);
                 java.awt.EventQueue.invokeLater(() -> {
 
-                    loadAssets(lastFilter);
+                    layoutGrid();
 
                 });
             }
@@ -133,11 +205,14 @@ public class AssetBrowser extends javax.swing.JPanel implements PreviewInteracti
         initComponents();
         
         addComponentListener(resizeListener);
+        previewsPanel.setLayout(null);
+        jScrollPane1.getVerticalScrollBar().setUnitIncrement(sizeY / 4);
+        jScrollPane1.getViewport().addChangeListener(e -> updateVisibleWidgets());
     }
 
     /**
-     * Will recalculate grid, and remove all previews and regenerate if rows or
-     * columns or filter has changed
+     * Collects the assets matching the filter and rebuilds the grid. Only the
+     * widgets in the visible area are created, see updateVisibleWidgets()
      *
      * @param filter only show previews containing filter
      */
@@ -152,106 +227,352 @@ public class AssetBrowser extends javax.swing.JPanel implements PreviewInteracti
             componentListenerAdded = true;
             removeComponentListener(resizeListener);
         }
-        Dimension size = previewsPanel.getSize();
 
-        int rows = Math.min(size.height, getHeight() - 30) / sizeY;
+        releaseWidgets();
+        assets.clear();
+        addAssets(assetManager.getTextures(), TEXTURES, filter);
+        addAssets(assetManager.getMaterials(), MATERIALS, filter);
+        addAssets(assetManager.getModels(), MODELS, filter);
+        addAssets(assetManager.getSounds(), SOUNDS, filter);
+        addAssets(assetManager.getMatDefs(), MAT_DEFS, filter);
+        lastFilter = filter;
+        layoutGrid();
+    }
 
-        final var textures = Arrays.stream(assetManager.getTextures()).filter(s -> filter.isEmpty() || s.toLowerCase().contains(filter)).collect(Collectors.toList());
-        final var materials = Arrays.stream(assetManager.getMaterials()).filter(s -> filter.isEmpty() || s.toLowerCase().contains(filter)).collect(Collectors.toList());
-        final var models = Arrays.stream(assetManager.getModels()).filter(s -> filter.isEmpty() || s.toLowerCase().contains(filter)).collect(Collectors.toList());
-        final var sounds = Arrays.stream(assetManager.getSounds()).filter(s -> filter.isEmpty() || s.toLowerCase().contains(filter)).collect(Collectors.toList());
-        final var matdefs = Arrays.stream(assetManager.getMatDefs()).filter(s -> filter.isEmpty() || s.toLowerCase().contains(filter)).collect(Collectors.toList());
-        int numAssets = textures.size() + materials.size() + models.size() + sounds.size() + matdefs.size();
-        int columns = Math.max(numAssets / rows, 1);
+    /**
+     * Add assets of a specific type to the list of assets to show
+     *
+     * @param items the assets to preview
+     * @param type type of asset
+     * @param filter only add assets containing filter
+     */
+    private void addAssets(String[] items, String type, String filter) {
+        final var filtered = Arrays.stream(items)
+                .filter(s -> filter.isEmpty() || s.toLowerCase().contains(filter))
+                .sorted()
+                .collect(Collectors.toList());
+        for (String item : filtered) {
+            assets.add(new AssetEntry(item, type));
+        }
+    }
 
-        Dimension newSize = new Dimension(columns * sizeX, rows * sizeY);
-        if (columns != lastGridColumns || rows != lastGridRows || !lastFilter.equals(filter)) {
-            GridBagConstraints constraints = new GridBagConstraints();
-            previewsPanel.setLayout(new GridBagLayout());
-            constraints.fill = GridBagConstraints.BOTH;
-            constraints.gridx = sizeX;
-            constraints.gridy = sizeY;
-            previewsPanel.removeAll();
-            previewsPanel.setSize(newSize);
-            previewsPanel.setPreferredSize(newSize);
-
-            previewsPanel.setLayout(new GridBagLayout());
-
-            int index = addAssets(textures, TEXTURES, constraints, columns, rows, 0);
-            index = addAssets(materials, MATERIALS, constraints, columns, rows, index);
-            index = addAssets(models, MODELS, constraints, columns, rows, index);
-            index = addAssets(sounds, SOUNDS, constraints, columns, rows, index);
-            index = addAssets(matdefs, MAT_DEFS, constraints, columns, rows, index);
+    /**
+     * Recalculates the columns of the grid from the width of the view and
+     * sizes the panel for all assets. Widgets are only recreated if the
+     * columns or the size of the previews changed.
+     */
+    private void layoutGrid() {
+        int width = jScrollPane1.getViewport().getExtentSize().width;
+        int columns = Math.max(width / sizeX, 1);
+        int rows = (assets.size() + columns - 1) / columns;
+        if (columns != lastGridColumns || sizeX != lastCellWidth) {
+            releaseWidgets();
             lastGridColumns = columns;
-            lastGridRows = rows;
-            lastFilter = filter;
+            lastCellWidth = sizeX;
         }
+        Dimension newSize = new Dimension(columns * sizeX, rows * sizeY);
+        previewsPanel.setSize(newSize);
+        previewsPanel.setPreferredSize(newSize);
+        previewsPanel.revalidate();
+        updateVisibleWidgets();
     }
 
     /**
-     * Add assets of a specific type to the grid
-     *
-     * @param items the assets to preview
-     * @param type type of asset
-     * @param constraints
-     * @param columns columns in the grid
-     * @param rows rows in the grid
-     * @param startIndex last used index when adding previews
-     * @return
+     * Creates widgets for the assets in the visible area and a margin around
+     * it, widgets that are scrolled out of it are recycled. Previews of
+     * visible assets are resolved before the ones in the margin.
+     */
+    private void updateVisibleWidgets() {
+        if (assetManager == null || lastGridColumns == 0) {
+            return;
+        }
+        Rectangle view = jScrollPane1.getViewport().getViewRect();
+        int columns = lastGridColumns;
+        int firstVisibleRow = view.y / sizeY;
+        int lastVisibleRow = (view.y + view.height) / sizeY;
+        int first = Math.max(firstVisibleRow - MARGIN_ROWS, 0) * columns;
+        int last = Math.min((lastVisibleRow + MARGIN_ROWS + 1) * columns, assets.size());
+
+        boolean changed = false;
+        for (Iterator<Map.Entry<Integer, AssetPreviewWidget>> it = visibleWidgets.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Integer, AssetPreviewWidget> entry = it.next();
+            if (entry.getKey() < first || entry.getKey() >= last) {
+                releaseWidget(entry.getKey(), entry.getValue());
+                it.remove();
+                changed = true;
+            }
+        }
+        for (int index = first; index < last; index++) {
+            if (!visibleWidgets.containsKey(index)) {
+                int row = index / columns;
+                boolean visible = row >= firstVisibleRow && row <= lastVisibleRow;
+                visibleWidgets.put(index, bindWidget(index, visible));
+                changed = true;
+            }
+        }
+        if (changed) {
+            previewsPanel.repaint();
+        }
+    }
+
+    /**
+     * Shows an asset in a recycled or new widget with a placeholder and
+     * requests its preview
+     */
+    private AssetPreviewWidget bindWidget(int index, boolean visible) {
+        final AssetEntry asset = assets.get(index);
+        AssetPreviewWidget preview = acquireWidget(asset.type);
+        preview.setBounds((index % lastGridColumns) * sizeX, (index / lastGridColumns) * sizeY, sizeX, sizeY);
+        preview.setEditable(assetManager.getAbsoluteAssetPath(asset.name) != null);
+        preview.setPreviewName(asset.name);
+        switch (asset.type) {
+            case TEXTURES:
+            case MATERIALS:
+            case MODELS:
+                preview.setPreviewImage(IconList.asset);
+                requestPreview(asset, preview, visible);
+                break;
+            case SOUNDS:
+                preview.setPreviewImage(previewUtil.getSoundPreview(asset.name, imageSize));
+                break;
+            default:
+                preview.setPreviewImage(previewUtil.getDefaultIcon(asset.name, imageSize));
+                break;
+        }
+        previewsPanel.add(preview);
+        return preview;
+    }
+
+    /**
+     * Requests the preview of an asset, the widget keeps its current image
+     * until the preview is available
+     */
+    private void requestPreview(AssetEntry asset, AssetPreviewWidget preview, boolean visible) {
+        PreviewHelper.PreviewTask task = previewTasks.remove(preview);
+        if (task != null) {
+            task.cancel();
+        }
+        switch (asset.type) {
+            case TEXTURES:
+                task = previewUtil.requestTexturePreview(asset.name, preview, imageSize, visible);
+                break;
+            case MATERIALS:
+                task = previewUtil.requestMaterialPreview(asset.name, preview, imageSize, visible);
+                break;
+            case MODELS:
+                task = previewUtil.requestModelPreview(asset.name, preview, imageSize, visible);
+                break;
+            default:
+                return;
+        }
+        previewTasks.put(preview, task);
+    }
+
+    private AssetPreviewWidget acquireWidget(String type) {
+        Deque<AssetPreviewWidget> pool = widgetPool.get(type);
+        if (pool != null && !pool.isEmpty()) {
+            return pool.pop();
+        }
+        switch (type) {
+            case TEXTURES:
+                return new TexturePreview(this, IconList.asset);
+            case MATERIALS:
+                return new MaterialPreview(this);
+            case MODELS:
+                return new ModelPreview(this);
+            case SOUNDS:
+                return new SoundPreview(this, Icons.soundIcon);
+            default:
+                return new MatDefPreview(this, Icons.assetIcon);
+        }
+    }
+
+    private void releaseWidget(int index, AssetPreviewWidget preview) {
+        PreviewHelper.PreviewTask task = previewTasks.remove(preview);
+        if (task != null) {
+            task.cancel();
+        }
+        previewsPanel.remove(preview);
+        widgetPool.computeIfAbsent(assets.get(index).type, t -> new ArrayDeque<>()).push(preview);
+    }
+
+    /**
+     * Recycles all widgets, has to be called before the list of assets
+     * changes
+     */
+    private void releaseWidgets() {
+        for (Map.Entry<Integer, AssetPreviewWidget> entry : visibleWidgets.entrySet()) {
+            releaseWidget(entry.getKey(), entry.getValue());
+        }
+        visibleWidgets.clear();
+        previewsPanel.repaint();
+    }
+
+    private void queueChangedFile(FileObject file) {
+        synchronized (changedFiles) {
+            changedFiles.put(file.getPath(), file);
+            deletedFiles.remove(file.getPath());
+        }
+        changeTask.schedule(FILE_EVENT_DELAY);
+    }
+
+    private void queueDeletedFile(String path) {
+        synchronized (changedFiles) {
+            changedFiles.remove(path);
+            deletedFiles.add(path);
+        }
+        changeTask.schedule(FILE_EVENT_DELAY);
+    }
+
+    private void queueFolderChange() {
+        synchronized (changedFiles) {
+            foldersChanged = true;
+        }
+        changeTask.schedule(FILE_EVENT_DELAY);
+    }
+
+    /**
+     * Applies the file events collected since the last update. Deleted and
+     * new assets are removed from or added to the list of assets, changes of
+     * folders cause a full reload. Changed assets are handled by the
+     * dependencyListener.
+     */
+    private void applyFileChanges() {
+        final Map<String, FileObject> changed;
+        final Set<String> deleted;
+        final boolean reload;
+        synchronized (changedFiles) {
+            changed = new HashMap<>(changedFiles);
+            deleted = new HashSet<>(deletedFiles);
+            reload = foldersChanged;
+            changedFiles.clear();
+            deletedFiles.clear();
+            foldersChanged = false;
+        }
+        if (assetManager == null) {
+            return;
+        }
+        if (reload) {
+            loadAssets(lastFilter);
+            return;
+        }
+
+        Set<String> removedNames = new HashSet<>();
+        for (String path : deleted) {
+            removedNames.add(assetManager.getRelativeAssetPath(path));
+        }
+        Map<String, List<String>> addedNames = new HashMap<>();
+        Set<String> existingNames = new HashSet<>();
+        for (AssetEntry asset : assets) {
+            existingNames.add(asset.name);
+        }
+        for (FileObject file : changed.values()) {
+            String type = getAssetType(file.getExt());
+            String name = assetManager.getRelativeAssetPath(file.getPath());
+            if (type != null && file.isValid() && !existingNames.contains(name)
+                    && (lastFilter.isEmpty() || name.toLowerCase().contains(lastFilter))) {
+                addedNames.computeIfAbsent(type, t -> new ArrayList<>()).add(name);
+            }
+        }
+
+        if (!removedNames.isEmpty() || !addedNames.isEmpty()) {
+            updateAssets(removedNames, addedNames);
+        }
+    }
+
+    /**
+     * Removes and adds assets without enumerating the asset folder again, the
+     * assets of each type stay sorted. Widgets of assets that are still shown
+     * keep their preview and are only moved to their new cell, only the cells
+     * of removed, added or newly scrolled in assets are bound again.
      */
-    private int addAssets(List<String> items, String type, GridBagConstraints constraints, int columns, int rows, int startIndex) {
-        Collections.sort(items);
-        int index = startIndex;
-        for (String item : items) {
-            AssetPreviewWidget preview = null;
-
-            constraints.gridx = index % columns;
-            constraints.gridy = (int) (((float) index-1) / (columns));
-            if (type.startsWith(TEXTURES)) {
-                preview = new TexturePreview(this, previewUtil.getOrCreateTexturePreview(item, imageSize));
-            } else if (type.startsWith(MATERIALS)) {
-                preview = new MaterialPreview(this);
-                preview.setPreviewImage(previewUtil.getOrCreateMaterialPreview(item, preview, imageSize));
-            } else if (type.startsWith(MODELS)) {
-                preview = new ModelPreview(this);
-                preview.setPreviewImage(previewUtil.getOrCreateModelPreview(item, preview, imageSize));
-            } else if (type.startsWith(SOUNDS)) {
-                preview = new SoundPreview(this, previewUtil.getSoundPreview(item, imageSize));
-            } else if (type.startsWith(MAT_DEFS)) {
-                preview = new MatDefPreview(this, previewUtil.getDefaultIcon(item, imageSize));
+    private void updateAssets(Set<String> removedNames, Map<String, List<String>> addedNames) {
+        Map<String, List<String>> byType = new LinkedHashMap<>();
+        for (String type : new String[]{TEXTURES, MATERIALS, MODELS, SOUNDS, MAT_DEFS}) {
+            byType.put(type, new ArrayList<>());
+        }
+        for (AssetEntry asset : assets) {
+            if (!removedNames.contains(asset.name)) {
+                byType.get(asset.type).add(asset.name);
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : addedNames.entrySet()) {
+            List<String> names = byType.get(entry.getKey());
+            names.addAll(entry.getValue());
+            names.sort(null);
+        }
+        List<AssetEntry> newAssets = new ArrayList<>();
+        Map<String, Integer> newIndices = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : byType.entrySet()) {
+            for (String name : entry.getValue()) {
+                newIndices.put(entry.getKey() + ":" + name, newAssets.size());
+                newAssets.add(new AssetEntry(name, entry.getKey()));
+            }
+        }
+        Map<Integer, AssetPreviewWidget> kept = new HashMap<>();
+        for (Map.Entry<Integer, AssetPreviewWidget> entry : visibleWidgets.entrySet()) {
+            AssetEntry asset = assets.get(entry.getKey());
+            Integer newIndex = newIndices.get(asset.type + ":" + asset.name);
+            if (newIndex != null) {
+                kept.put(newIndex, entry.getValue());
+            } else {
+                releaseWidget(entry.getKey(), entry.getValue());
             }
-            if (preview == null) {
-                continue;
+        }
+        visibleWidgets.clear();
+        assets.clear();
+        assets.addAll(newAssets);
+        if (lastGridColumns > 0) {
+            for (Map.Entry<Integer, AssetPreviewWidget> entry : kept.entrySet()) {
+                int index = entry.getKey();
+                entry.getValue().setBounds((index % lastGridColumns) * sizeX, (index / lastGridColumns) * sizeY, sizeX, sizeY);
             }
-            preview.setMinimumSize(new Dimension(sizeX, sizeY));
-            preview.setPreferredSize(new Dimension(sizeX, sizeY));
-            if (assetManager.getAbsoluteAssetPath(item) != null) {
-                preview.setEditable(true);
+        }
+        visibleWidgets.putAll(kept);
+        layoutGrid();
+    }
+
+    /**
+     * Requests the previews of the given assets again if they are shown, the
+     * asset manager has already removed them from its cache
+     */
+    private void refreshPreviews(Set<String> assetNames) {
+        for (Map.Entry<Integer, AssetPreviewWidget> entry : visibleWidgets.entrySet()) {
+            AssetEntry asset = assets.get(entry.getKey());
+            if (assetNames.contains(asset.name)) {
+                requestPreview(asset, entry.getValue(), true);
             }
-            preview.setPreviewName(item);
-            previewsPanel.add(preview, constraints);
-            index++;
         }
-        return index;
     }
 
     /**
-     * Creates the base folder for previews in the project directory
-     *
-     * @param assetManager
+     * @return the type of asset shown for files with this extension, or null
+     * if they are not shown in the browser
      */
-    private void createAssetBrowserFolder(ProjectAssetManager assetManager) {
-        final FileObject fileObject = assetManager.getProject().getProjectDirectory();
-        
-        final String path = assetManager.isGradleProject() ? 
-            fileObject.getParent().getPath() : fileObject.getPath();
-     
-        final File file = new File(path, ".assetBrowser/");
-        if (!file.exists()) {
-            file.mkdirs();
+    private static String getAssetType(String extension) {
+        switch (extension.toLowerCase(Locale.ROOT)) {
+            case "jpg":
+            case "jpeg":
+            case "gif":
+            case "png":
+            case "dds":
+            case "pfm":
+            case "hdr":
+            case "tga":
+                return TEXTURES;
+            case "j3m":
+                return MATERIALS;
+            case "j3o":
+                return MODELS;
+            case "wav":
+            case "ogg":
+                return SOUNDS;
+            case "j3md":
+                return MAT_DEFS;
+            default:
+                return null;
         }
     }
-    
 
     /**
      * This method is called from within the constructor to initialize the form.
@@ -362,44 +683,24 @@ public class AssetBrowser extends javax.swing.JPanel implements PreviewInteracti
      * @param evt
      */
     private void projectLabelMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_projectLabelMouseClicked
+        if (assetManager != null) {
+            assetManager.getDependencyGraph().removeDependencyChangeListener(dependencyListener);
+        }
         assetManager = ProjectSelection.getProjectAssetManager("Select project");
+        assetManager.getDependencyGraph().addDependencyChangeListener(dependencyListener);
+        releaseWidgets();
+        widgetPool.clear();
+        if (previewUtil != null) {
+            previewUtil.cleanup();
+        }
         projectName = assetManager.getProject().getProjectDirectory().getName();
         projectLabel.setText(projectName);
         previewUtil = new PreviewHelper(assetManager);
-        createAssetBrowserFolder(assetManager);
-        // Check which assets was added/deleted/renamed/changed? Nah, just load
-        // everything!
-        assetManager.getAssetFolder().addRecursiveListener(new FileChangeListener() {
-            @Override
-            public void fileFolderCreated(FileEvent fe) {
-                loadAssets(lastFilter);
-            }
-
-            @Override
-            public void fileDataCreated(FileEvent fe) {
-                loadAssets(lastFilter);
-            }
-
-            @Override
-            public void fileChanged(FileEvent fe) {
-                loadAssets(lastFilter);
-            }
-
-            @Override
-            public void fileDeleted(FileEvent fe) {
-                loadAssets(lastFilter);
-            }
-
-            @Override
-            public void fileRenamed(FileRenameEvent fre) {
-                loadAssets(lastFilter);
-            }
-
-            @Override
-            public void fileAttributeChanged(FileAttributeEvent fae) {
-                loadAssets(lastFilter);
-            }
-        });
+        if (assetFolder != null) {
+            assetFolder.removeRecursiveListener(assetFolderListener);
+        }
+        assetFolder = assetManager.getAssetFolder();
+        assetFolder.addRecursiveListener(assetFolderListener);
         loadAssets("");
     }//GEN-LAST:event_projectLabelMouseClicked
 
@@ -543,4 +844,14 @@ public class AssetBrowser extends javax.swing.JPanel implements PreviewInteracti
         }
     }
 
+    private static class AssetEntry {
+
+        final String name;
+        final String type;
+
+        AssetEntry(String name, String type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
 }
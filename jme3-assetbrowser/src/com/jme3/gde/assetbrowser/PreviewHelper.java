@@ -34,7 +34,7 @@ package com.jme3.gde.assetbrowser;
 import com.jme3.gde.assetbrowser.icons.Icons;
 import com.jme3.gde.assetbrowser.widgets.AssetPreviewWidget;
 import com.jme3.gde.core.assets.ProjectAssetManager;
-import com.jme3.gde.core.icons.IconList;
+import com.jme3.gde.core.assets.ThumbnailCache;
 import com.jme3.gde.core.scene.PreviewRequest;
 import com.jme3.gde.core.scene.SceneApplication;
 import com.jme3.gde.core.scene.SceneListener;
@@ -53,51 +53,80 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.nio.file.attribute.FileTime;
-import javax.imageio.ImageIO;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import jme3tools.converters.ImageToAwt;
-import org.openide.filesystems.FileObject;
-import org.openide.util.Exceptions;
+import org.openide.util.RequestProcessor;
 
 /**
- * Helper class for generating preview images
+ * Helper class for generating preview images. Previews are stored in the
+ * ThumbnailCache of the SDK, keyed by the content of the asset and its
+ * dependencies.<br>
+ * Previews are resolved in the background, the widget keeps its placeholder
+ * icon until the preview has been loaded from the cache or rendered.
  * 
  * @author rickard
  */
-public class PreviewHelper {
+public class PreviewHelper implements SceneListener {
 
+    private static final Logger logger = Logger.getLogger(PreviewHelper.class.getName());
     private static final int PREVIEW_SIZE = 150;
+    private static final RequestProcessor PREVIEW_PROCESSOR = new RequestProcessor("AssetBrowser previews", 1);
     private final ProjectAssetManager assetManager;
+    private final Map<PreviewRequest, PreviewTask> renderTasks = new ConcurrentHashMap<>();
 
     private static final Vector3f previewLocation = new Vector3f(4, 4, 7);
     private static final Vector3f previewLookAt = new Vector3f(0, 0, 0);
 
     public PreviewHelper(ProjectAssetManager assetManager) {
         this.assetManager = assetManager;
+        SceneApplication.getApplication().addSceneListener(this);
     }
 
-    public Icon getOrCreateTexturePreview(String asset, int size) {
-        final var icon = tryGetPreview(asset, size);
-        if (icon != null) {
-            return icon;
+    /**
+     * Cancels all outstanding previews and stops listening to the
+     * SceneApplication.
+     */
+    public void cleanup() {
+        SceneApplication.getApplication().removeSceneListener(this);
+        for (PreviewTask task : renderTasks.values()) {
+            task.cancel();
         }
-        System.out.println("creating preview ");
-        Texture texture = assetManager.loadTexture(asset);
-        Image image = texture.getImage();
+        renderTasks.clear();
+    }
+
+    /**
+     * Loads the preview of a texture, the texture is only loaded and scaled
+     * down if there is no cached preview.
+     *
+     * @param asset the texture
+     * @param widget the widget to set the preview on
+     * @param size the size of the preview image
+     * @param priority previews with a higher priority are resolved first
+     * @return the task, can be used to cancel the preview
+     */
+    public PreviewTask requestTexturePreview(String asset, AssetPreviewWidget widget, int size, boolean priority) {
+        final PreviewTask task = new PreviewTask(widget, size);
+        post(task, () -> {
+            final String key = ThumbnailCache.getDefault().computeKey(assetManager, asset, "assetbrowser-texture");
+            if (deliverCached(task, key)) {
+                return;
+            }
+            Texture texture = assetManager.loadTexture(asset);
+            Image image = texture.getImage();
 
-        BufferedImage buff = ImageToAwt.convert(image, false, false, 0);
+            BufferedImage buff = ImageToAwt.convert(image, false, false, 0);
 
-        BufferedImage scaled = scaleDown(buff, 150, 150);
-        BufferedImage noAlpha = convertImage(scaled);
-        savePreview(assetManager, asset.split("\\.")[0], noAlpha);
-        return new ImageIcon(noAlpha);
+            BufferedImage scaled = scaleDown(buff, PREVIEW_SIZE, PREVIEW_SIZE);
+            BufferedImage noAlpha = convertImage(scaled);
+            ThumbnailCache.getDefault().put(key, noAlpha);
+            task.deliver(noAlpha);
+        }, priority);
+        return task;
     }
 
     public Icon getSoundPreview(String asset, int size) {
@@ -108,89 +137,105 @@ public class PreviewHelper {
         return Icons.assetIcon;
     }
 
-    public Icon getOrCreateMaterialPreview(String asset, AssetPreviewWidget widget, int size) {
-        final var icon = tryGetPreview(asset, size);
-        if (icon != null) {
-            return icon;
-        }
-
-        Material mat = assetManager.loadMaterial(asset);
-
-        Box boxMesh = new Box(1.75f, 1.75f, 1.75f);
-        Geometry box = new Geometry("previewBox", boxMesh);
-        box.setMaterial(mat);
-        PreviewListener listener = new PreviewListener(assetManager, mat.getAssetName().split("\\.")[0], widget);
-        SceneApplication.getApplication().addSceneListener(listener);
-        SceneApplication.getApplication().enqueue(() -> {
-            SceneApplication.getApplication().getRenderManager().preloadScene(box);
-            java.awt.EventQueue.invokeLater(() -> {
-                MikktspaceTangentGenerator.generate(box);
-                PreviewRequest request = new PreviewRequest(listener, box, PREVIEW_SIZE, PREVIEW_SIZE);
-                request.getCameraRequest().setLocation(previewLocation);
-                request.getCameraRequest().setLookAt(previewLookAt, Vector3f.UNIT_Y);
-                SceneApplication.getApplication().createPreview(request);
-            });
-        });
-        return IconList.asset;
+    /**
+     * Loads the preview of a material, the material is only rendered if there
+     * is no cached preview.
+     *
+     * @param asset the material
+     * @param widget the widget to set the preview on
+     * @param size the size of the preview image
+     * @param priority previews with a higher priority are resolved first
+     * @return the task, can be used to cancel the preview
+     */
+    public PreviewTask requestMaterialPreview(String asset, AssetPreviewWidget widget, int size, boolean priority) {
+        final PreviewTask task = new PreviewTask(widget, size);
+        post(task, () -> {
+            final String key = ThumbnailCache.getDefault().computeKey(assetManager, asset, "assetbrowser-material");
+            if (deliverCached(task, key)) {
+                return;
+            }
+            Material mat = assetManager.loadMaterial(asset);
+
+            Box boxMesh = new Box(1.75f, 1.75f, 1.75f);
+            Geometry box = new Geometry("previewBox", boxMesh);
+            box.setMaterial(mat);
+            MikktspaceTangentGenerator.generate(box);
+            render(task, key, box, priority);
+        }, priority);
+        return task;
     }
 
-    private Icon tryGetPreview(String asset, int size) {
-        final var assetPath = assetManager.getAbsoluteAssetPath(asset);
+    /**
+     * Loads the preview of a model, the model is only rendered if there is no
+     * cached preview.
+     *
+     * @param asset the model
+     * @param widget the widget to set the preview on
+     * @param size the size of the preview image
+     * @param priority previews with a higher priority are resolved first
+     * @return the task, can be used to cancel the preview
+     */
+    public PreviewTask requestModelPreview(String asset, AssetPreviewWidget widget, int size, boolean priority) {
+        final PreviewTask task = new PreviewTask(widget, size);
+        post(task, () -> {
+            final String key = ThumbnailCache.getDefault().computeKey(assetManager, asset, "assetbrowser-model");
+            if (deliverCached(task, key)) {
+                return;
+            }
+            Material unshaded = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+            unshaded.setColor("Color", ColorRGBA.Red);
 
-        final FileTime assetModificationTime = getAssetModificationTime(assetPath);
+            Spatial spatial = assetManager.loadModel(asset);
 
-        final File previewFile = loadPreviewFile(assetManager, asset.split("\\.")[0]);
+            recurseApplyDefaultMaterial(spatial, unshaded);
+            render(task, key, spatial, priority);
+        }, priority);
+        return task;
+    }
 
-        if (previewFile != null && assetModificationTime != null) {
-            final Path previewPath = previewFile.toPath();
-            if(previewPath == null) {
-                return null;
+    private void post(final PreviewTask task, final Runnable work, boolean priority) {
+        PREVIEW_PROCESSOR.post(() -> {
+            if (task.isCancelled()) {
+                return;
             }
             try {
-                final BasicFileAttributes previewAttributes = Files.readAttributes(
-                        previewPath, BasicFileAttributes.class);
-                final FileTime previewCreationTime = previewAttributes.creationTime();
-
-                if (previewCreationTime.compareTo(assetModificationTime) > 0) {
-                    System.out.println("existing preview OK " + previewFile);
-                    BufferedImage image = ImageIO.read(previewFile);
-                    if (image != null) {
-                        return new ImageIcon(size != PREVIEW_SIZE ? image.getScaledInstance(size, size, 0) : image);
-                    }
-                }
-
-            } catch (IOException ex) {
-                Exceptions.printStackTrace(ex);
+                work.run();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Could not create preview: {0}", e.getMessage());
+                logger.log(Level.FINE, null, e);
             }
-        }
-        return null;
+        }, 0, priority ? Thread.NORM_PRIORITY : Thread.MIN_PRIORITY);
     }
 
-    public Icon getOrCreateModelPreview(String asset, AssetPreviewWidget widget, int size) {
-        final var icon = tryGetPreview(asset, size);
-        if (icon != null) {
-            return icon;
+    private boolean deliverCached(PreviewTask task, String key) {
+        final BufferedImage image = ThumbnailCache.getDefault().get(key, PREVIEW_SIZE, PREVIEW_SIZE);
+        if (image == null) {
+            return false;
         }
+        task.deliver(image);
+        return true;
+    }
 
-        Material unshaded = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
-        unshaded.setColor("Color", ColorRGBA.Red);
-
-        Spatial spatial = assetManager.loadModel(asset);
-
-        recurseApplyDefaultMaterial(spatial, unshaded);
-
-        PreviewListener listener = new PreviewListener(assetManager, asset.split("\\.")[0], widget);
-        SceneApplication.getApplication().addSceneListener(listener);
+    private void render(final PreviewTask task, final String key, final Spatial spatial, boolean priority) {
+        if (task.isCancelled()) {
+            return;
+        }
+        PreviewRequest request = new PreviewRequest(this, spatial, PREVIEW_SIZE, PREVIEW_SIZE);
+        request.getCameraRequest().setLocation(previewLocation);
+        request.getCameraRequest().setLookAt(previewLookAt, Vector3f.UNIT_Y);
+        request.setPriority(priority ? 1 : 0);
+        task.request = request;
+        task.key = key;
+        renderTasks.put(request, task);
         SceneApplication.getApplication().enqueue(() -> {
+            if (request.isCancelled()) {
+                renderTasks.remove(request);
+                return null;
+            }
             SceneApplication.getApplication().getRenderManager().preloadScene(spatial);
-            java.awt.EventQueue.invokeLater(() -> {
-                PreviewRequest request = new PreviewRequest(listener, spatial, PREVIEW_SIZE, PREVIEW_SIZE);
-                request.getCameraRequest().setLocation(previewLocation);
-                request.getCameraRequest().setLookAt(previewLookAt, Vector3f.UNIT_Y);
-                SceneApplication.getApplication().createPreview(request);
-            });
+            SceneApplication.getApplication().createPreview(request);
+            return null;
         });
-        return IconList.asset;
     }
 
     /**
@@ -209,44 +254,6 @@ public class PreviewHelper {
         }
     }
 
-    private FileTime getAssetModificationTime(String assetPath) {
-        if (assetPath == null) {
-            return null;
-        }
-        Path path = new File(assetPath).toPath();
-
-        try {
-            // creating BasicFileAttributes class object using
-            // readAttributes method
-            BasicFileAttributes file_att = Files.readAttributes(
-                    path, BasicFileAttributes.class);
-            return file_att.lastModifiedTime();
-        } catch (IOException ex) {
-            Exceptions.printStackTrace(ex);
-        }
-        return null;
-    }
-
-    private File loadPreviewFile(ProjectAssetManager assetManager, String id) {
-        FileObject fileObject = assetManager.getProject().getProjectDirectory();
-        return new File(fileObject.getPath() + "/.assetBrowser/", id + ".jpg");
-    }
-
-    private void savePreview(ProjectAssetManager assetManager, String id, BufferedImage preview) {
-        FileObject fileObject = assetManager.getProject().getProjectDirectory();
-        String[] fileSections = id.split("/");
-        String fileName = fileSections[fileSections.length - 1];
-        File path = new File(fileObject.getPath() + "/.assetBrowser/" + id.substring(0, id.length() - fileName.length()));
-        File file = new File(path, fileName + ".jpg");
-        try {
-            path.mkdirs();
-            file.createNewFile();
-            ImageIO.write(preview, "jpg", file);
-        } catch (IOException ex) {
-            Exceptions.printStackTrace(ex);
-        }
-    }
-
     private BufferedImage scaleDown(BufferedImage sourceImage, int targetWidth, int targetHeight) {
         int sourceWidth = sourceImage.getWidth();
         int sourceHeight = sourceImage.getHeight();
@@ -261,38 +268,27 @@ public class PreviewHelper {
         return targetImage;
     }
 
-    private class PreviewListener implements SceneListener {
-
-        final AssetPreviewWidget widget;
-        final ProjectAssetManager assetManager;
-        private final String assetName;
-
-        public PreviewListener(ProjectAssetManager assetManager, String assetName, AssetPreviewWidget widget) {
-            this.widget = widget;
-            this.assetManager = assetManager;
-            this.assetName = assetName;
-        }
+    @Override
+    public void sceneOpened(SceneRequest request) {
+    }
 
-        @Override
-        public void sceneOpened(SceneRequest request) {
-        }
+    @Override
+    public void sceneClosed(SceneRequest request) {
+    }
 
-        @Override
-        public void sceneClosed(SceneRequest request) {
+    @Override
+    public void previewCreated(PreviewRequest request) {
+        if (request.getRequester() != this) {
+            return;
         }
-
-        @Override
-        public void previewCreated(PreviewRequest request) {
-            if (request.getRequester() == this) {
-                final var image = convertImage(request.getImage());
-                java.awt.EventQueue.invokeLater(() -> {
-                    widget.setPreviewImage(new ImageIcon(image));
-                    savePreview(assetManager, assetName, image);
-                    widget.revalidate();
-                });
-            }
+        final PreviewTask task = renderTasks.remove(request);
+        if (task == null) {
+            return;
         }
-    };
+        final BufferedImage image = convertImage(request.getImage());
+        task.deliver(image);
+        PREVIEW_PROCESSOR.post(() -> ThumbnailCache.getDefault().put(task.key, image), 0, Thread.MIN_PRIORITY);
+    }
 
     private static BufferedImage convertImage(BufferedImage preview) {
         final int width = preview.getWidth();
@@ -307,4 +303,48 @@ public class PreviewHelper {
         g.dispose();
         return converted;
     }
+
+    /**
+     * A preview that is being resolved for a widget. Cancelling it stops
+     * loading and rendering and makes sure the widget, which might have been
+     * reused for another asset meanwhile, is not updated.
+     */
+    public class PreviewTask {
+
+        private final AssetPreviewWidget widget;
+        private final int size;
+        private volatile boolean cancelled = false;
+        private volatile PreviewRequest request;
+        private volatile String key;
+
+        PreviewTask(AssetPreviewWidget widget, int size) {
+            this.widget = widget;
+            this.size = size;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            PreviewRequest r = request;
+            if (r != null) {
+                r.cancel();
+                renderTasks.remove(r);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void deliver(final BufferedImage image) {
+            final Icon icon = new ImageIcon(size != PREVIEW_SIZE
+                    ? image.getScaledInstance(size, size, java.awt.Image.SCALE_SMOOTH) : image);
+            java.awt.EventQueue.invokeLater(() -> {
+                if (cancelled) {
+                    return;
+                }
+                widget.setPreviewImage(icon);
+                widget.repaint();
+            });
+        }
+    }
 }
@@ -511,10 +511,11 @@ public class BTreeParser<E> {
                         clazz = ClassReflection.forName(className);
                     } catch (ReflectionException refl) { }
                     
-                    for (ClassLoader cl: getParser().dataObj.manager.getClassLoaders()) {
-                        if (clazz == null) {
+                    if (clazz == null && getParser().dataObj != null) {
+                        for (ClassLoader cl: getParser().dataObj.manager.getClassLoaders()) {
                             try {
                                 clazz = cl.loadClass(className);
+                                break;
                             } catch (ClassNotFoundException cnf) {}
                         }
                     }
@@ -0,0 +1,97 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Generates synthetic asset folders for the benchmarks.
+ */
+final class BenchmarkFixtures {
+
+    private static final String[][] LAYOUT = {
+        {"Models", "j3o"},
+        {"Materials", "j3m"},
+        {"MatDefs", "j3md"},
+        {"Textures", "png"},
+        {"Textures", "dds"},
+        {"Sounds", "ogg"},
+        {"Scripts", "txt"}
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Creates a temporary asset folder with the given number of empty asset
+     * files, spread over the usual asset folders and a few levels of sub
+     * folders.
+     */
+    static File createAssetFolder(int fileCount) throws IOException {
+        Path root = Files.createTempDirectory("jme3-benchmark");
+        for (int i = 0; i < fileCount; i++) {
+            String[] type = LAYOUT[i % LAYOUT.length];
+            Path folder = root.resolve(type[0])
+                    .resolve("group" + (i % 16))
+                    .resolve("set" + (i % 5));
+            Files.createDirectories(folder);
+            Files.createFile(folder.resolve("asset" + i + "." + type[1]));
+        }
+        return root.toFile();
+    }
+
+    static FileObject toFileObject(File file) {
+        FileObject fileObject = FileUtil.toFileObject(FileUtil.normalizeFile(file));
+        if (fileObject == null) {
+            throw new IllegalStateException("No FileObject for " + file + ", is masterfs on the classpath?");
+        }
+        return fileObject;
+    }
+
+    static void delete(File folder) throws IOException {
+        if (folder == null || !folder.exists()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(folder.toPath())) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.shape.Sphere;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openide.filesystems.FileObject;
+import org.openide.loaders.DataLoader;
+import org.openide.loaders.MultiDataObject;
+import org.openide.loaders.UniFileLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures loading and saving a generated j3o model through a
+ * BinaryModelDataObject, the way the SceneComposer opens and saves scenes.
+ * The larger scene is above the size limit for memory mapped loading.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class J3oAssetBenchmark {
+
+    @Param({"16", "256"})
+    public int geometryCount;
+
+    private File folder;
+    private ProjectAssetManager manager;
+    private BinaryModelDataObject dataObject;
+
+    /**
+     * Creates the BinaryModelDataObjects outside of the module system.
+     */
+    public static class BenchmarkModelLoader extends UniFileLoader {
+
+        public BenchmarkModelLoader() {
+            super(BinaryModelDataObject.class.getName());
+        }
+
+        @Override
+        protected MultiDataObject createMultiObject(FileObject primaryFile) throws IOException {
+            return new BinaryModelDataObject(primaryFile, this);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createModel() throws IOException {
+        folder = BenchmarkFixtures.createAssetFolder(0);
+        File modelFolder = new File(folder, "Models");
+        modelFolder.mkdirs();
+        File model = new File(modelFolder, "Scene.j3o");
+        BinaryExporter.getInstance().save(createScene(geometryCount), model);
+
+        FileObject root = BenchmarkFixtures.toFileObject(folder);
+        manager = new ProjectAssetManager(root);
+        BenchmarkModelLoader loader = DataLoader.getLoader(BenchmarkModelLoader.class);
+        dataObject = new BinaryModelDataObject(root.getFileObject("Models/Scene.j3o"), loader);
+        dataObject.getLookupContents().add(manager);
+        if (dataObject.loadAsset() == null) {
+            throw new IllegalStateException("Could not load the benchmark model");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteModel() throws IOException {
+        dataObject.closeAsset();
+        BenchmarkFixtures.delete(folder);
+    }
+
+    private static Spatial createScene(int geometryCount) {
+        Node scene = new Node("Scene");
+        Sphere mesh = new Sphere(32, 32, 1f);
+        for (int i = 0; i < geometryCount; i++) {
+            Node group = new Node("Group" + i);
+            // distinct meshes, shared buffers would be written only once
+            Geometry geometry = new Geometry("Geometry" + i, mesh.deepClone());
+            geometry.setLocalTranslation(i % 16, 0, i / 16);
+            geometry.setUserData("index", i);
+            group.attachChild(geometry);
+            scene.attachChild(group);
+        }
+        return scene;
+    }
+
+    @Benchmark
+    public Spatial load() {
+        dataObject.closeAsset();
+        manager.clearCache();
+        return dataObject.loadAsset();
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        dataObject.saveAsset();
+    }
+}
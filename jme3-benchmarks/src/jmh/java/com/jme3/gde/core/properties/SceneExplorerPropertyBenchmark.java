@@ -0,0 +1,110 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.properties;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the per frame property synchronization of the SceneExplorer, for
+ * a scene where nothing changes, for one where every spatial moves each frame
+ * and for the full refresh done when a node gets selected.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SceneExplorerPropertyBenchmark {
+
+    private static final int SPATIAL_COUNT = 250;
+    private static final int PROPERTY_COUNT = SPATIAL_COUNT * 4;
+    private static final float TPF = 1f / 60f;
+
+    private final List<Node> spatials = new ArrayList<>();
+    private final List<SceneExplorerProperty<?>> properties = new ArrayList<>();
+    private float frame;
+
+    @Setup(Level.Trial)
+    public void createProperties() throws NoSuchMethodException {
+        for (int i = 0; i < SPATIAL_COUNT; i++) {
+            Node spatial = new Node("Spatial" + i);
+            spatial.setLocalTranslation(i, 0, -i);
+            spatials.add(spatial);
+            properties.add(new SceneExplorerProperty<>(spatial, String.class, "getName", "setName"));
+            properties.add(new SceneExplorerProperty<>(spatial, Vector3f.class, "getLocalTranslation", "setLocalTranslation"));
+            properties.add(new SceneExplorerProperty<>(spatial, Quaternion.class, "getLocalRotation", "setLocalRotation"));
+            properties.add(new SceneExplorerProperty<>(spatial, Vector3f.class, "getLocalScale", "setLocalScale"));
+        }
+        syncAll(0);
+    }
+
+    private void syncAll(float tpf) {
+        for (SceneExplorerProperty<?> property : properties) {
+            property.syncValue(tpf);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROPERTY_COUNT)
+    public void syncUnchanged() {
+        syncAll(TPF);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROPERTY_COUNT)
+    public void fullRefresh() {
+        syncAll(0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROPERTY_COUNT)
+    public void syncMoving() {
+        frame += 0.01f;
+        for (Node spatial : spatials) {
+            spatial.getLocalTranslation().y = frame;
+            spatial.setLocalTranslation(spatial.getLocalTranslation());
+        }
+        syncAll(TPF);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.glsl.highlighter.lexer;
+
+import java.util.concurrent.TimeUnit;
+import org.netbeans.api.lexer.Language;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures tokenizing a generated shader with the GLSL lexer, through the
+ * lexer API like the editor does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GlslLexerBenchmark {
+
+    private static final String BLOCK
+            = "#ifdef DIFFUSEMAP\n"
+            + "    uniform sampler2D m_DiffuseMap;\n"
+            + "#endif\n"
+            + "/* lighting block\n"
+            + "   with a multi line comment */\n"
+            + "vec4 lighting_%d(in vec3 normal, in vec3 lightDir, float shininess) {\n"
+            + "    float diffuse = max(0.0, dot(normal, lightDir)); // lambert\n"
+            + "    vec3 reflected = reflect(-lightDir, normal);\n"
+            + "    float specular = pow(max(dot(reflected, vec3(0.0, 0.0, 1.0)), 0.0), shininess);\n"
+            + "    if (diffuse <= 0.0) {\n"
+            + "        specular = 0.0;\n"
+            + "    }\n"
+            + "    return vec4(diffuse, specular, 1.0e-3, 0.5f);\n"
+            + "}\n\n";
+
+    @Param({"10", "500"})
+    public int functionCount;
+
+    private Language<GlslTokenID> language;
+    private String source;
+
+    @Setup
+    public void createSource() {
+        language = new GlslLanguageHierarchy().language();
+        StringBuilder builder = new StringBuilder("#import \"Common/ShaderLib/GLSLCompat.glsllib\"\n");
+        for (int i = 0; i < functionCount; i++) {
+            builder.append(String.format(BLOCK, i));
+        }
+        source = builder.toString();
+    }
+
+    @Benchmark
+    public int tokenize() {
+        TokenHierarchy<String> hierarchy = TokenHierarchy.create(source, language);
+        TokenSequence<GlslTokenID> tokens = hierarchy.tokenSequence(language);
+        int count = 0;
+        while (tokens.moveNext()) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.terraineditor.tools;
+
+import com.jme3.gde.core.sceneexplorer.nodes.JmeSpatial;
+import com.jme3.gde.terraineditor.tools.TerrainTool.Meshes;
+import com.jme3.material.Material;
+import com.jme3.material.MaterialDef;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+import com.jme3.shader.VarType;
+import com.jme3.terrain.geomipmap.TerrainQuad;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.util.BufferUtils;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures one application of the paint, smooth and rough terrain brushes on
+ * a generated 513x513 terrain. The terrain is recreated for every iteration
+ * so repeated strokes do not saturate the heights or the alpha map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TerrainToolBenchmark {
+
+    private static final int TERRAIN_SIZE = 513;
+    private static final int ALPHA_SIZE = 512;
+
+    @Param({"4", "16", "64"})
+    public float radius;
+
+    private final Vector3f marker = new Vector3f(12.5f, 0, -20.25f);
+    private JmeSpatial rootNode;
+
+    @Setup(Level.Iteration)
+    public void createTerrain() {
+        float[] heights = new float[TERRAIN_SIZE * TERRAIN_SIZE];
+        for (int z = 0; z < TERRAIN_SIZE; z++) {
+            for (int x = 0; x < TERRAIN_SIZE; x++) {
+                heights[z * TERRAIN_SIZE + x] = 20f * FastMath.sin(x * 0.05f) * FastMath.cos(z * 0.03f);
+            }
+        }
+        TerrainQuad terrain = new TerrainQuad("terrain", 65, TERRAIN_SIZE, heights);
+
+        MaterialDef def = new MaterialDef(null, "TerrainBenchmark");
+        def.addMaterialParam(VarType.Texture2D, "AlphaMap", null);
+        Material material = new Material(def);
+        Image alpha = new Image(Image.Format.RGBA8, ALPHA_SIZE, ALPHA_SIZE,
+                BufferUtils.createByteBuffer(ALPHA_SIZE * ALPHA_SIZE * 4), ColorSpace.Linear);
+        material.setTexture("AlphaMap", new Texture2D(alpha));
+        terrain.setMaterial(material);
+
+        Node root = new Node("root");
+        root.attachChild(terrain);
+        rootNode = new JmeSpatial(root);
+    }
+
+    @Benchmark
+    public Object paint() {
+        return new PaintTerrainToolAction(marker, radius, 0.25f, 1).doApplyTool(rootNode);
+    }
+
+    @Benchmark
+    public Object smooth() {
+        return new SmoothTerrainToolAction(marker, radius, 0.25f, Meshes.Sphere).doApplyTool(rootNode);
+    }
+
+    @Benchmark
+    public Object rough() {
+        return new RoughTerrainToolAction(marker, radius, 0.25f, new RoughExtraToolParams()).doApplyTool(rootNode);
+    }
+}
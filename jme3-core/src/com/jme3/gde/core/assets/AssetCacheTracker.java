@@ -0,0 +1,379 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import com.jme3.asset.AssetKey;
+import com.jme3.audio.AudioBuffer;
+import com.jme3.gde.core.Installer;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.prefs.PreferenceChangeEvent;
+import java.util.prefs.PreferenceChangeListener;
+import java.util.prefs.Preferences;
+import org.openide.util.NbPreferences;
+
+/**
+ * Keeps the asset cache of a ProjectAssetManager within a memory budget.<br>
+ * The tracker records the estimated size of every asset that is put into the
+ * cache, the size is estimated from the image data of textures and the vertex
+ * buffers of models. When the resident size exceeds the budget the least
+ * recently requested assets are removed from the cache. Assets pinned by an
+ * open AssetDataObject are never evicted, entries whose weakly cached asset
+ * has been garbage collected are dropped from the accounting.<br>
+ * The budget is shared by all projects and stored in the preferences of the
+ * core module.
+ */
+public class AssetCacheTracker {
+
+    private static final Logger logger = Logger.getLogger(AssetCacheTracker.class.getName());
+    public static final String PREF_CACHE_BUDGET = "asset_cache_budget";
+    private static final long DEFAULT_CACHE_BUDGET = 512;
+    private static final long DEFAULT_ASSET_SIZE = 1024;
+    private static final Set<AssetCacheTracker> trackers = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+    private static volatile long budget = -1;
+
+    private final ProjectAssetManager manager;
+    private final LinkedHashMap<AssetKey, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Object, Collection<AssetKey>> pins = new IdentityHashMap<>();
+    private final Map<AssetKey, Integer> pinCounts = new HashMap<>();
+    private long residentBytes = 0;
+    private long requests = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    AssetCacheTracker(ProjectAssetManager manager) {
+        this.manager = manager;
+        trackers.add(this);
+    }
+
+    /**
+     * @return the cache budget per project in bytes
+     */
+    public static long getBudget() {
+        if (budget < 0) {
+            Preferences prefs = NbPreferences.forModule(Installer.class);
+            budget = prefs.getLong(PREF_CACHE_BUDGET, DEFAULT_CACHE_BUDGET) * 1024 * 1024;
+            prefs.addPreferenceChangeListener(new PreferenceChangeListener() {
+                @Override
+                public void preferenceChange(PreferenceChangeEvent evt) {
+                    if (PREF_CACHE_BUDGET.equals(evt.getKey())) {
+                        budget = prefs.getLong(PREF_CACHE_BUDGET, DEFAULT_CACHE_BUDGET) * 1024 * 1024;
+                        enforceAllBudgets();
+                    }
+                }
+            });
+        }
+        return budget;
+    }
+
+    /**
+     * Sets the cache budget per project, all caches are trimmed immediately
+     * if they are larger.
+     *
+     * @param bytes the budget in bytes, it is stored in full megabytes
+     */
+    public static void setBudget(long bytes) {
+        getBudget();
+        NbPreferences.forModule(Installer.class).putLong(PREF_CACHE_BUDGET, Math.max(1, bytes / (1024 * 1024)));
+    }
+
+    /**
+     * @return the summed statistics of the caches of all open projects
+     */
+    public static Statistics getTotalStatistics() {
+        Statistics total = new Statistics();
+        for (AssetCacheTracker tracker : getTrackers()) {
+            total.add(tracker.getStatistics());
+        }
+        return total;
+    }
+
+    private static List<AssetCacheTracker> getTrackers() {
+        synchronized (trackers) {
+            return new ArrayList<>(trackers);
+        }
+    }
+
+    private static void enforceAllBudgets() {
+        for (AssetCacheTracker tracker : getTrackers()) {
+            tracker.enforceBudget();
+        }
+    }
+
+    /**
+     * @return the statistics of this cache
+     */
+    public synchronized Statistics getStatistics() {
+        Statistics stats = new Statistics();
+        stats.hits = Math.max(0, requests - misses);
+        stats.misses = misses;
+        stats.evictions = evictions;
+        stats.residentBytes = residentBytes;
+        stats.assetCount = entries.size();
+        stats.pinnedCount = pinCounts.size();
+        return stats;
+    }
+
+    /**
+     * Called for every requested asset, cached or not.
+     */
+    synchronized void assetRequested(AssetKey key) {
+        requests++;
+        //touch the entry so it becomes the most recently used one
+        entries.get(key);
+    }
+
+    /**
+     * Called when an asset has been loaded from its file and was put into
+     * the cache.
+     */
+    void assetLoaded(AssetKey key) {
+        long size = DEFAULT_ASSET_SIZE;
+        if (key.getCacheType() != null) {
+            size = estimateSize(manager.getFromCache(key));
+        }
+        synchronized (this) {
+            misses++;
+            if (key.getCacheType() == null) {
+                return;
+            }
+            Long old = entries.put(key, size);
+            residentBytes += size - (old != null ? old : 0);
+        }
+        enforceBudget();
+    }
+
+    /**
+     * Called when an asset has been removed from the cache.
+     */
+    synchronized void assetRemoved(AssetKey key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            residentBytes -= size;
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        residentBytes = 0;
+    }
+
+    /**
+     * Protects the given assets from eviction until unpinAssets is called
+     * with the same owner. Pinning again replaces the previous keys of the
+     * owner.
+     *
+     * @param owner the owner of the assets, normally an AssetDataObject
+     * @param keys the keys of the assets in use by the owner
+     */
+    synchronized void pinAssets(Object owner, Collection<AssetKey> keys) {
+        unpinAssets(owner);
+        List<AssetKey> pinned = new ArrayList<>(keys);
+        pins.put(owner, pinned);
+        for (AssetKey key : pinned) {
+            pinCounts.merge(key, 1, Integer::sum);
+        }
+    }
+
+    synchronized void unpinAssets(Object owner) {
+        Collection<AssetKey> pinned = pins.remove(owner);
+        if (pinned == null) {
+            return;
+        }
+        for (AssetKey key : pinned) {
+            pinCounts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Removes the least recently used unpinned assets from the cache until
+     * the resident size is within the budget.
+     */
+    void enforceBudget() {
+        long limit = getBudget();
+        List<AssetKey> victims = new ArrayList<>();
+        synchronized (this) {
+            if (residentBytes <= limit) {
+                return;
+            }
+            long remaining = residentBytes;
+            for (Iterator<Map.Entry<AssetKey, Long>> it = entries.entrySet().iterator(); it.hasNext() && remaining > limit;) {
+                Map.Entry<AssetKey, Long> entry = it.next();
+                if (manager.getFromCache(entry.getKey()) == null) {
+                    //collected by the garbage collector already
+                    residentBytes -= entry.getValue();
+                    remaining -= entry.getValue();
+                    it.remove();
+                } else if (!pinCounts.containsKey(entry.getKey())) {
+                    remaining -= entry.getValue();
+                    victims.add(entry.getKey());
+                }
+            }
+        }
+        for (AssetKey key : victims) {
+            manager.deleteFromCache(key);
+        }
+        synchronized (this) {
+            evictions += victims.size();
+        }
+        if (!victims.isEmpty()) {
+            logger.log(Level.FINE, "Evicted {0} assets from cache", victims.size());
+        }
+    }
+
+    /**
+     * Estimates the memory used by an asset from its image data and vertex
+     * buffers.
+     */
+    static long estimateSize(Object asset) {
+        if (asset instanceof Texture) {
+            return estimateSize(((Texture) asset).getImage());
+        } else if (asset instanceof Image) {
+            long size = 0;
+            for (ByteBuffer data : ((Image) asset).getData()) {
+                size += getByteSize(data);
+            }
+            return Math.max(size, DEFAULT_ASSET_SIZE);
+        } else if (asset instanceof Spatial) {
+            long[] size = {0};
+            Set<Mesh> meshes = Collections.newSetFromMap(new IdentityHashMap<>());
+            ((Spatial) asset).depthFirstTraversal(spatial -> {
+                if (spatial instanceof Geometry && meshes.add(((Geometry) spatial).getMesh())) {
+                    for (VertexBuffer vb : ((Geometry) spatial).getMesh().getBufferList()) {
+                        size[0] += getByteSize(vb.getData());
+                    }
+                }
+            });
+            return Math.max(size[0], DEFAULT_ASSET_SIZE);
+        } else if (asset instanceof AudioBuffer) {
+            return Math.max(getByteSize(((AudioBuffer) asset).getData()), DEFAULT_ASSET_SIZE);
+        }
+        return DEFAULT_ASSET_SIZE;
+    }
+
+    private static long getByteSize(Buffer buffer) {
+        if (buffer == null) {
+            return 0;
+        }
+        if (buffer instanceof ByteBuffer) {
+            return buffer.capacity();
+        } else if (buffer instanceof ShortBuffer || buffer instanceof CharBuffer) {
+            return buffer.capacity() * 2L;
+        } else if (buffer instanceof DoubleBuffer || buffer instanceof LongBuffer) {
+            return buffer.capacity() * 8L;
+        }
+        //float and int buffers
+        return buffer.capacity() * 4L;
+    }
+
+    /**
+     * A snapshot of the cache statistics.
+     */
+    public static class Statistics {
+
+        private long hits;
+        private long misses;
+        private long evictions;
+        private long residentBytes;
+        private int assetCount;
+        private int pinnedCount;
+
+        private void add(Statistics other) {
+            hits += other.hits;
+            misses += other.misses;
+            evictions += other.evictions;
+            residentBytes += other.residentBytes;
+            assetCount += other.assetCount;
+            pinnedCount += other.pinnedCount;
+        }
+
+        /**
+         * @return the number of requests served from the cache
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return the number of requests that loaded the asset from its file
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return the number of assets removed to stay within the budget
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return the estimated size of all cached assets in bytes
+         */
+        public long getResidentBytes() {
+            return residentBytes;
+        }
+
+        public int getAssetCount() {
+            return assetCount;
+        }
+
+        public int getPinnedCount() {
+            return pinnedCount;
+        }
+    }
+}
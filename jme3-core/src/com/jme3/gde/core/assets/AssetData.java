@@ -44,6 +44,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openide.cookies.SaveCookie;
@@ -130,6 +131,16 @@ public class AssetData {
         return file.loadAsset();
     }
 
+    /**
+     * Loads the asset in the background, see
+     * {@link AssetDataObject#loadAssetAsync()}.
+     *
+     * @return the future of the loaded asset
+     */
+    public CompletableFuture<? extends Savable> loadAssetAsync() {
+        return file.loadAssetAsync();
+    }
+
     /**
      * Saves this asset, when a saveExtension is set, saves it as a brother file
      * with that extension.
@@ -34,17 +34,20 @@ package com.jme3.gde.core.assets;
 import com.jme3.asset.AssetEventListener;
 import com.jme3.asset.AssetKey;
 import com.jme3.export.Savable;
-import com.jme3.export.binary.BinaryExporter;
 import com.jme3.gde.core.icons.IconList;
 import com.jme3.gde.core.scene.SceneApplication;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InterruptedIOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.beanutils.BeanUtils;
@@ -64,6 +67,8 @@ import org.openide.nodes.Children;
 import org.openide.nodes.Node;
 import org.openide.util.Exceptions;
 import org.openide.util.Lookup;
+import org.openide.util.Mutex;
+import org.openide.util.RequestProcessor;
 import org.openide.util.lookup.AbstractLookup;
 import org.openide.util.lookup.InstanceContent;
 import org.openide.util.lookup.ProxyLookup;
@@ -76,6 +81,7 @@ import org.openide.util.lookup.ProxyLookup;
 public class AssetDataObject extends MultiDataObject {
 
     protected static final Logger logger = Logger.getLogger(AssetDataObject.class.getName());
+    private static final RequestProcessor LOAD_PROCESSOR = new RequestProcessor("Asset loading", 2);
     protected final InstanceContent lookupContents = new InstanceContent();
     protected final AbstractLookup contentLookup;
     protected final Lookup lookup;
@@ -90,7 +96,7 @@ public class AssetDataObject extends MultiDataObject {
             //TODO: On OpenGL thread? -- safest way.. with get()?
             SceneApplication.getApplication().enqueue(new Callable() {
                 public Object call() throws Exception {
-                    saveAsset();
+                    saveAssetAsync();
                     return null;
                 }
             });
@@ -191,13 +197,18 @@ public class AssetDataObject extends MultiDataObject {
             lock = getPrimaryFile().lock();
             listListener.start();
             Savable spatial = (Savable) mgr.loadAsset(getAssetKey());
-            listListener.stop();
             lock.releaseLock();
             savable = spatial;
+            mgr.pinAssets(this, assetKeyList);
             logger.log(Level.INFO, "Loaded asset {0}", getName());
         } catch (Exception ex) {
-            Exceptions.printStackTrace(ex);
+            if (listListener.isCancelled()) {
+                logger.log(Level.INFO, "Loading of {0} cancelled", getName());
+            } else {
+                Exceptions.printStackTrace(ex);
+            }
         } finally {
+            listListener.stop();
             if (lock != null) {
                 lock.releaseLock();
             }
@@ -205,49 +216,157 @@ public class AssetDataObject extends MultiDataObject {
         return savable;
     }
 
+    /**
+     * Loads the asset like loadAsset() but on a background thread so the
+     * caller does not block. A cancellable progress bar advances with every
+     * dependency the asset requests, cancelling it or the returned future
+     * aborts the load at the next dependency.<br>
+     * The future completes on the loading thread, changes to a displayed
+     * scene have to be enqueued to the render thread by the caller.
+     *
+     * @return the future of the loaded asset, it completes exceptionally when
+     * the asset could not be loaded
+     */
+    public CompletableFuture<? extends Savable> loadAssetAsync() {
+        return loadAssetAsync(this::loadAsset);
+    }
+
+    /**
+     * Runs the given load method of this asset in the background.
+     *
+     * @param loader the load method, called with the lock of this DataObject
+     * @return the future of the loaded asset
+     */
+    protected <T extends Savable> CompletableFuture<T> loadAssetAsync(final Supplier<T> loader) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final ProgressHandle progressHandle = ProgressHandle.createHandle("Loading " + getPrimaryFile().getNameExt(),
+                () -> future.cancel(true));
+        LOAD_PROCESSOR.post(() -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            progressHandle.start();
+            try {
+                int dependencies = countDependencies();
+                if (dependencies > 0) {
+                    progressHandle.switchToDeterminate(dependencies + 1);
+                }
+                T asset;
+                synchronized (AssetDataObject.this) {
+                    listListener.setLoadProgress(future, progressHandle, dependencies + 1);
+                    try {
+                        asset = loader.get();
+                    } finally {
+                        listListener.setLoadProgress(null, null, 0);
+                    }
+                }
+                if (future.isCancelled()) {
+                    closeAsset();
+                } else if (asset == null) {
+                    future.completeExceptionally(new IOException("Could not load " + getPrimaryFile().getNameExt()));
+                } else {
+                    future.complete(asset);
+                }
+            } catch (RuntimeException ex) {
+                future.completeExceptionally(ex);
+            } finally {
+                progressHandle.finish();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * @return the number of project assets this asset references directly
+     * or indirectly, as far as the dependency graph knows them
+     */
+    private int countDependencies() {
+        ProjectAssetManager mgr = getLookup().lookup(ProjectAssetManager.class);
+        AssetKey key = getAssetKey();
+        if (mgr == null || key == null) {
+            return 0;
+        }
+        return mgr.getDependencyGraph().getTransitiveDependencies(key.getName()).size();
+    }
+
     /**
      * Saves this asset, when a saveExtension is set, saves it as a brother file
-     * with that extension.
+     * with that extension. Waits until the file has been written, see
+     * saveAssetAsync().
      *
      * @throws IOException When we cannot write to the file for unknown reasons
      */
     public synchronized void saveAsset() throws IOException {
+        try {
+            saveAssetAsync().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Saving " + getPrimaryFile().getNameExt() + " was interrupted");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Saves this asset in the background. A snapshot of the asset is taken
+     * on the calling thread, which should be the thread that modifies it
+     * (normally the render thread). The snapshot is written to a temporary
+     * file that replaces the asset file when it is complete, so a crash while
+     * saving leaves the old file intact.
+     *
+     * @return the future of the written file, it completes with null when
+     * there is nothing to save
+     */
+    public synchronized CompletableFuture<FileObject> saveAssetAsync() {
         if (savable == null) {
             logger.log(Level.WARNING, "Trying to write asset failed, asset data null!\nImport failed?");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
-        final Savable savable = this.savable;
-        ProgressHandle progressHandle = ProgressHandle.createHandle("Saving File..");
-        progressHandle.start();
-        BinaryExporter exp = BinaryExporter.getInstance();
-//        FileLock lock = null;
-        OutputStream out = null;
+        CompletableFuture<FileObject> written;
         try {
-            if (saveExtension == null) {
-                out = getPrimaryFile().getOutputStream();
-            } else {
-                FileObject outFileObject = getPrimaryFile().getParent().getFileObject(getPrimaryFile().getName(), saveExtension);
+            FileObject outFileObject = getPrimaryFile();
+            if (saveExtension != null) {
+                outFileObject = getPrimaryFile().getParent().getFileObject(getPrimaryFile().getName(), saveExtension);
                 if (outFileObject == null) {
                     outFileObject = getPrimaryFile().getParent().createData(getPrimaryFile().getName(), saveExtension);
                 }
-                out = outFileObject.getOutputStream();
-                outFileObject.getParent().refresh();
             }
-            try (BufferedOutputStream bout = new BufferedOutputStream(out)) {
-                exp.save(savable, bout);
-            }
-        } finally {
-//            if (lock != null) {
-//                lock.releaseLock();
-//            }
-            if (out != null) {
-                out.close();
+            ChunkedScene chunks = outFileObject.equals(getPrimaryFile()) ? getChunkedScene() : null;
+            written = AssetSaver.save(savable, outFileObject, chunks);
+        } catch (IOException ex) {
+            written = new CompletableFuture<>();
+            written.completeExceptionally(ex);
+        }
+        setModified(false);
+        //runs on the writer thread, must not lock this DataObject
+        return written.whenComplete((file, error) -> {
+            if (error != null) {
+                logger.log(Level.WARNING, "Saving " + getPrimaryFile().getNameExt() + " failed", error);
+                Mutex.EVENT.postWriteRequest(() -> setModified(true));
+            } else {
+                assetSaved(file);
             }
+        });
+    }
 
-            progressHandle.finish();
-            setModified(false);
-        }
-        logger.log(Level.INFO, "File {0} saved successfully", getPrimaryFile().getNameExt());
+    /**
+     * @return the chunked scene the asset file is stored as, null if it is
+     * a plain file
+     */
+    protected ChunkedScene getChunkedScene() {
+        return null;
+    }
+
+    /**
+     * Called on the writer thread after the asset file has been written,
+     * without the lock of this DataObject.
+     *
+     * @param outFile the written file
+     */
+    protected void assetSaved(FileObject outFile) {
     }
 
     /**
@@ -255,6 +374,9 @@ public class AssetDataObject extends MultiDataObject {
      */
     public synchronized void closeAsset() {
         ProjectAssetManager mgr = getLookup().lookup(ProjectAssetManager.class);
+        if (mgr != null) {
+            mgr.unpinAssets(this);
+        }
         if (mgr != null && savable != null) {
             //delete referenced assets too
             for (Iterator<AssetKey> it = assetKeyList.iterator(); it.hasNext();) {
@@ -360,6 +482,10 @@ public class AssetDataObject extends MultiDataObject {
         private final List<AssetKey> assetKeyList;
         private final List<AssetKey> failedList;
         private Thread loadingThread;
+        private volatile Future<?> loadFuture;
+        private ProgressHandle progressHandle;
+        private int progressTotal;
+        private int progressCount;
 
         public AssetListListener(AssetDataObject obj, List<FileObject> assetList, List<AssetKey> assetKeyList, List<AssetKey> failedList) {
             this.obj = obj;
@@ -378,6 +504,12 @@ public class AssetDataObject extends MultiDataObject {
             if (pm == null || loadingThread != Thread.currentThread()) {
                 return;
             }
+            if (loadFuture != null) {
+                if (loadFuture.isCancelled()) {
+                    throw new CancellationException("Loading " + obj.getName() + " cancelled");
+                }
+                reportProgress(ak);
+            }
             FileObject fObj = pm.getAssetFileObject(ak);
             if (fObj != null && !assetList.contains(fObj)) {
                 assetList.add(fObj);
@@ -420,5 +552,37 @@ public class AssetDataObject extends MultiDataObject {
             }
             pm.removeAssetEventListener(this);
         }
+
+        /**
+         * Sets the future and progress bar of a background load, requested
+         * dependencies advance the progress and a cancelled future aborts
+         * the load.
+         */
+        public void setLoadProgress(Future<?> future, ProgressHandle handle, int total) {
+            loadFuture = future;
+            progressHandle = handle;
+            progressTotal = total;
+            progressCount = 0;
+        }
+
+        /**
+         * @return true if the current background load has been cancelled
+         */
+        public boolean isCancelled() {
+            Future<?> future = loadFuture;
+            return future != null && future.isCancelled();
+        }
+
+        private void reportProgress(AssetKey ak) {
+            if (progressHandle == null) {
+                return;
+            }
+            progressCount++;
+            if (progressTotal > 1 && progressCount <= progressTotal) {
+                progressHandle.progress(ak.getName(), progressCount);
+            } else {
+                progressHandle.progress(ak.getName());
+            }
+        }
     };
 }
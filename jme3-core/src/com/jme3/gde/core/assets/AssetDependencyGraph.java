@@ -0,0 +1,360 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Knows which assets of a project reference which other assets, e.g. the
+ * materials and textures used by a j3o or the textures and material definition
+ * of a j3m. The references are found with the AssetDependencyScanner, without
+ * loading the assets.<br>
+ * The graph is built in the background and kept current by listening to the
+ * asset folder. Queries never wait for the build, until it is finished they
+ * answer with the assets scanned so far, see {@link #isBuilt()}. Listeners are told which assets changed and which assets are
+ * affected by that, so caches, previews and open scenes can be refreshed for
+ * exactly those assets.
+ */
+public class AssetDependencyGraph {
+
+    private static final Logger logger = Logger.getLogger(AssetDependencyGraph.class.getName());
+    private static final RequestProcessor GRAPH_PROCESSOR = new RequestProcessor("Asset dependency graph", 1);
+    private static final String[] SCANNED_EXTENSIONS = {"j3o", "j3m", "j3md", "j3sn", "vert", "frag", "geom", "tsctrl", "tseval", "glsl", "glsllib"};
+    /**
+     * File events are collected for this long before the graph is updated and
+     * listeners are notified.
+     */
+    private static final int EVENT_DELAY = 200;
+
+    /**
+     * Notified on a background thread after assets of the project changed.
+     */
+    public interface DependencyChangeListener {
+
+        /**
+         * @param changed the assets that were changed, created or deleted
+         * @param affected the changed assets and all assets that depend on
+         * them, directly or indirectly
+         */
+        void assetsChanged(Set<String> changed, Set<String> affected);
+    }
+
+    private final ProjectAssetManager assetManager;
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    private final List<DependencyChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, FileObject> pendingFiles = new HashMap<>();
+    private final RequestProcessor.Task updateTask = GRAPH_PROCESSOR.create(this::applyPendingChanges);
+    private boolean built = false;
+
+    AssetDependencyGraph(ProjectAssetManager assetManager) {
+        this.assetManager = assetManager;
+        GRAPH_PROCESSOR.post(this::build);
+    }
+
+    public void addDependencyChangeListener(DependencyChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeDependencyChangeListener(DependencyChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return true once all assets of the project have been scanned, before
+     * that queries return partial results
+     */
+    public synchronized boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * @param assetName the asset
+     * @return the assets directly referenced by the asset
+     */
+    public synchronized Set<String> getDependencies(String assetName) {
+        return copy(dependencies.get(assetName));
+    }
+
+    /**
+     * @param assetName the asset
+     * @return the assets that directly reference the asset
+     */
+    public synchronized Set<String> getDependents(String assetName) {
+        return copy(dependents.get(assetName));
+    }
+
+    /**
+     * @param assetNames the assets
+     * @return all assets that reference one of the assets, directly or
+     * indirectly, not including the assets themselves unless they reference
+     * each other
+     */
+    public synchronized Set<String> getTransitiveDependents(Collection<String> assetNames) {
+        return collect(assetNames, dependents);
+    }
+
+    /**
+     * @param assetName the asset
+     * @return all assets the asset references, directly or indirectly
+     */
+    public synchronized Set<String> getTransitiveDependencies(String assetName) {
+        return collect(Collections.singleton(assetName), dependencies);
+    }
+
+    private static Set<String> copy(Set<String> set) {
+        return set == null ? Collections.emptySet() : Collections.unmodifiableSet(new LinkedHashSet<>(set));
+    }
+
+    private static Set<String> collect(Collection<String> start, Map<String, Set<String>> edges) {
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> open = new ArrayDeque<>(start);
+        while (!open.isEmpty()) {
+            Set<String> next = edges.get(open.pop());
+            if (next == null) {
+                continue;
+            }
+            for (String name : next) {
+                if (result.add(name)) {
+                    open.push(name);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Scans all assets on the graph processor. The files are scanned without
+     * holding the lock of the graph, each result is published as soon as it
+     * is known. The folder listener is added first, file events that arrive
+     * meanwhile are applied after the build as both run on the same
+     * processor.
+     */
+    private void build() {
+        FileObject assetFolder = assetManager.getAssetFolder();
+        if (assetFolder == null) {
+            return;
+        }
+        long time = System.currentTimeMillis();
+        assetFolder.addRecursiveListener(folderListener);
+        int count = 0;
+        for (String ext : SCANNED_EXTENSIONS) {
+            for (String name : assetManager.getAssetsWithSuffix(ext, false)) {
+                Set<String> references = scan(assetFolder.getFileObject(name));
+                if (!references.isEmpty()) {
+                    synchronized (this) {
+                        setDependencies(name, references);
+                    }
+                    count++;
+                }
+            }
+        }
+        synchronized (this) {
+            built = true;
+        }
+        logger.log(Level.FINE, "Built dependency graph of {0} assets in {1} ms",
+                new Object[]{count, System.currentTimeMillis() - time});
+    }
+
+    private Set<String> scan(FileObject file) {
+        if (file == null || !file.isValid()) {
+            return Collections.emptySet();
+        }
+        try {
+            return AssetDependencyScanner.scanDependencies(file);
+        } catch (IOException ex) {
+            logger.log(Level.FINE, "Could not scan " + file, ex);
+            return Collections.emptySet();
+        }
+    }
+
+    private void setDependencies(String assetName, Set<String> references) {
+        Set<String> old = dependencies.remove(assetName);
+        if (old != null) {
+            for (String reference : old) {
+                Set<String> users = dependents.get(reference);
+                if (users != null) {
+                    users.remove(assetName);
+                    if (users.isEmpty()) {
+                        dependents.remove(reference);
+                    }
+                }
+            }
+        }
+        if (references.isEmpty()) {
+            return;
+        }
+        dependencies.put(assetName, new HashSet<>(references));
+        for (String reference : references) {
+            dependents.computeIfAbsent(reference, r -> new HashSet<>()).add(assetName);
+        }
+    }
+
+    private void queue(String path, FileObject file) {
+        synchronized (pendingFiles) {
+            pendingFiles.put(path, file);
+        }
+        updateTask.schedule(EVENT_DELAY);
+    }
+
+    /**
+     * Scans the changed files again and notifies the listeners, deleted files
+     * lose their outgoing references but keep the incoming ones, so their
+     * users are found if they are created again.
+     */
+    private void applyPendingChanges() {
+        Map<String, FileObject> files;
+        synchronized (pendingFiles) {
+            files = new HashMap<>(pendingFiles);
+            pendingFiles.clear();
+        }
+        Set<String> changed = new LinkedHashSet<>();
+        Map<String, Set<String>> scanned = new HashMap<>();
+        for (Map.Entry<String, FileObject> entry : files.entrySet()) {
+            String name = assetManager.getRelativeAssetPath(entry.getKey());
+            FileObject file = entry.getValue();
+            changed.add(name);
+            if (file != null && file.isValid() && AssetDependencyScanner.canHaveDependencies(file.getExt())) {
+                scanned.put(name, scan(file));
+            } else {
+                scanned.put(name, Collections.emptySet());
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        Set<String> affected = new LinkedHashSet<>(changed);
+        synchronized (this) {
+            for (Map.Entry<String, Set<String>> entry : scanned.entrySet()) {
+                setDependencies(entry.getKey(), entry.getValue());
+            }
+            affected.addAll(collect(changed, dependents));
+        }
+        Set<String> changedView = Collections.unmodifiableSet(changed);
+        Set<String> affectedView = Collections.unmodifiableSet(affected);
+        for (DependencyChangeListener listener : listeners) {
+            try {
+                listener.assetsChanged(changedView, affectedView);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Error in dependency change listener", e);
+            }
+        }
+    }
+
+    private void queueFolder(FileObject folder) {
+        Enumeration<? extends FileObject> children = folder.getChildren(true);
+        while (children.hasMoreElements()) {
+            FileObject child = children.nextElement();
+            if (!child.isFolder()) {
+                queue(child.getPath(), child);
+            }
+        }
+    }
+
+    /**
+     * Queues all known assets in a deleted folder as deleted.
+     */
+    private void queueDeletedFolder(String path) {
+        String prefix = assetManager.getRelativeAssetPath(path) + "/";
+        String folderPath = path.endsWith("/") ? path : path + "/";
+        Set<String> names = new HashSet<>();
+        synchronized (this) {
+            names.addAll(dependencies.keySet());
+            names.addAll(dependents.keySet());
+        }
+        for (String name : names) {
+            if (name.startsWith(prefix)) {
+                queue(folderPath + name.substring(prefix.length()), null);
+            }
+        }
+    }
+
+    private final FileChangeAdapter folderListener = new FileChangeAdapter() {
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            queueFolder(fe.getFile());
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            queue(fe.getFile().getPath(), fe.getFile());
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            queue(fe.getFile().getPath(), fe.getFile());
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            if (fe.getFile().isFolder()) {
+                queueDeletedFolder(fe.getFile().getPath());
+            } else {
+                queue(fe.getFile().getPath(), null);
+            }
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            FileObject file = fe.getFile();
+            String oldName = fe.getExt().isEmpty() ? fe.getName() : fe.getName() + "." + fe.getExt();
+            FileObject parent = file.getParent();
+            String oldPath = parent != null ? parent.getPath() + "/" + oldName : oldName;
+            if (file.isFolder()) {
+                queueDeletedFolder(oldPath);
+                queueFolder(file);
+            } else {
+                queue(oldPath, null);
+                queue(file.getPath(), file);
+            }
+        }
+    };
+}
@@ -0,0 +1,340 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Finds the assets an asset file references without loading it. Material
+ * files, material definitions and shaders are scanned as text, j3o files are
+ * scanned for the asset paths stored in their asset keys, also when they are
+ * compressed or chunked. The result may contain paths that do not exist,
+ * callers have to resolve them.
+ */
+public class AssetDependencyScanner {
+
+    private static final String DEPENDENCY_EXTENSIONS = "j3o|j3m|j3md|j3sn|vert|frag|geom|tsctrl|tseval|glsl|glsllib"
+            + "|png|jpg|jpeg|gif|bmp|tga|dds|hdr|pfm|ktx";
+    private static final Pattern ASSET_PATH = Pattern.compile(
+            "[A-Za-z0-9_\\-./]+\\.(?i:" + DEPENDENCY_EXTENSIONS + ")(?![A-Za-z0-9_])");
+    private static final int MAX_TEXT_SIZE = 4 * 1024 * 1024;
+    private static final int MIN_BINARY_RUN = 5;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The "JME3" signature that starts j3o files since format version 1.
+     */
+    private static final int J3O_SIGNATURE = 0x4A4D4533;
+    private static final int MAX_J3O_CLASSES = 65536;
+    private static final int MAX_J3O_HEADER_LENGTH = 1024 * 1024;
+    /**
+     * Classes that hold the bulk data of a model and never an asset key.
+     */
+    private static final Set<String> SKIPPED_CLASSES = new HashSet<>(Arrays.asList(
+            "com.jme3.scene.VertexBuffer",
+            "com.jme3.collision.bih.BIHTree",
+            "com.jme3.anim.TransformTrack",
+            "com.jme3.anim.MorphTrack",
+            "com.jme3.animation.BoneTrack",
+            "com.jme3.animation.SpatialTrack",
+            "com.jme3.animation.CompactVector3Array",
+            "com.jme3.animation.CompactQuaternionArray",
+            "com.jme3.terrain.geomipmap.LODGeomap"));
+
+    private AssetDependencyScanner() {
+    }
+
+    /**
+     * @return true if files of this type can reference other assets
+     */
+    public static boolean canHaveDependencies(String extension) {
+        switch (extension.toLowerCase(Locale.ROOT)) {
+            case "j3o":
+            case "j3m":
+            case "j3md":
+            case "j3sn":
+            case "vert":
+            case "frag":
+            case "geom":
+            case "tsctrl":
+            case "tseval":
+            case "glsl":
+            case "glsllib":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Scans the given file for referenced asset paths.
+     *
+     * @param file the asset file
+     * @return the referenced asset names, in the order they were found
+     */
+    public static Set<String> scanDependencies(FileObject file) throws IOException {
+        Set<String> result = new LinkedHashSet<>();
+        if (file == null || file.isFolder() || !canHaveDependencies(file.getExt())) {
+            return result;
+        }
+        if ("j3o".equalsIgnoreCase(file.getExt())) {
+            scanJ3oFile(file, result);
+        } else if (file.getSize() <= MAX_TEXT_SIZE) {
+            scanText(file.asText(StandardCharsets.UTF_8.name()), result);
+        }
+        return result;
+    }
+
+    /**
+     * Scans a j3o file in any of the variants the SDK writes, plain, GZIP
+     * compressed or as chunked scene.
+     */
+    private static void scanJ3oFile(FileObject file, Set<String> result) throws IOException {
+        try (InputStream in = new BufferedInputStream(file.getInputStream(), BUFFER_SIZE)) {
+            if (CompressedBinaryLoader.isCompressed(in)) {
+                scanJ3o(new GZIPInputStream(in, BUFFER_SIZE), result);
+                return;
+            }
+            if (!ChunkedScene.isChunked(in)) {
+                scanJ3o(in, result);
+                return;
+            }
+        }
+        File disk = FileUtil.toFile(file);
+        if (disk == null) {
+            return;
+        }
+        ChunkedScene scene = ChunkedScene.open(disk, null);
+        try (InputStream in = scene.openSkeletonData()) {
+            scanJ3o(new BufferedInputStream(in, BUFFER_SIZE), result);
+        }
+        for (String path : scene.getChunkPaths()) {
+            try (InputStream in = scene.openChunkData(path)) {
+                scanJ3o(new BufferedInputStream(in, BUFFER_SIZE), result);
+            }
+        }
+    }
+
+    /**
+     * Collects the asset paths of a j3o stream. The class table of the
+     * BinaryExporter format is read first, then only the data of objects
+     * whose class can contain asset keys is scanned, vertex buffers,
+     * animation tracks and height maps which make up most of a model are
+     * skipped. If the stream does not have the expected layout the rest of it
+     * is scanned as plain binary.
+     */
+    static void scanJ3o(InputStream stream, Set<String> result) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        Map<String, String> classes = new HashMap<>();
+        int aliasWidth;
+        try {
+            int numClasses = in.readInt();
+            int formatVersion = 0;
+            if (numClasses == J3O_SIGNATURE) {
+                formatVersion = in.readInt();
+                numClasses = in.readInt();
+            }
+            if (numClasses <= 0 || numClasses > MAX_J3O_CLASSES) {
+                throw new IOException("Unexpected class count " + numClasses);
+            }
+            aliasWidth = (int) (float) (Math.log(numClasses) / Math.log(256)) + 1;
+            for (int i = 0; i < numClasses; i++) {
+                String alias = readString(in, aliasWidth);
+                if (formatVersion >= 1) {
+                    skipFully(in, 4 * in.readUnsignedByte());
+                }
+                String className = readString(in, readLength(in));
+                classes.put(alias, className);
+                int fields = readLength(in);
+                for (int j = 0; j < fields; j++) {
+                    skipFully(in, 2);
+                    skipFully(in, readLength(in));
+                }
+            }
+            //location table, root id count and root id
+            skipFully(in, 8L * readLength(in) + 8);
+        } catch (IOException ex) {
+            //not the expected layout, fall back to scanning everything
+            scanBinary(in, result);
+            return;
+        }
+        StringBuilder run = new StringBuilder();
+        byte[] alias = new byte[aliasWidth];
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            while (readAlias(in, alias)) {
+                String className = classes.get(new String(alias, StandardCharsets.ISO_8859_1));
+                int length = in.readInt();
+                if (className == null || length < 0) {
+                    scanBinary(in, result);
+                    return;
+                }
+                if (isSkippedClass(className)) {
+                    skipFully(in, length);
+                    continue;
+                }
+                while (length > 0) {
+                    int read = in.read(buffer, 0, Math.min(length, buffer.length));
+                    if (read < 0) {
+                        throw new EOFException();
+                    }
+                    scanRuns(buffer, read, run, result);
+                    length -= read;
+                }
+                flushRun(run, result);
+            }
+        } catch (EOFException ex) {
+            //truncated file, keep what was found so far
+            flushRun(run, result);
+        }
+    }
+
+    /**
+     * Collects all asset paths found in a text.
+     */
+    static void scanText(CharSequence text, Set<String> result) {
+        Matcher matcher = ASSET_PATH.matcher(text);
+        while (matcher.find()) {
+            String path = normalize(matcher.group());
+            if (path != null) {
+                result.add(path);
+            }
+        }
+    }
+
+    /**
+     * Collects all asset paths found in the printable character runs of a
+     * binary stream, the BinaryExporter stores the names of AssetKeys as
+     * plain strings.
+     */
+    static void scanBinary(InputStream in, Set<String> result) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        StringBuilder run = new StringBuilder();
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            scanRuns(buffer, read, run, result);
+        }
+        flushRun(run, result);
+    }
+
+    private static void scanRuns(byte[] buffer, int length, StringBuilder run, Set<String> result) {
+        for (int i = 0; i < length; i++) {
+            int c = buffer[i] & 0xFF;
+            if (c >= 0x20 && c < 0x7F) {
+                run.append((char) c);
+            } else {
+                flushRun(run, result);
+            }
+        }
+    }
+
+    private static void flushRun(StringBuilder run, Set<String> result) {
+        if (run.length() >= MIN_BINARY_RUN) {
+            scanText(run, result);
+        }
+        run.setLength(0);
+    }
+
+    private static boolean isSkippedClass(String className) {
+        if (SKIPPED_CLASSES.contains(className)) {
+            return true;
+        }
+        return className.startsWith("com.jme3.math.") || className.startsWith("com.jme3.bounding.");
+    }
+
+    /**
+     * @return false at the end of the stream
+     */
+    private static boolean readAlias(DataInputStream in, byte[] alias) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return false;
+        }
+        alias[0] = (byte) first;
+        in.readFully(alias, 1, alias.length - 1);
+        return true;
+    }
+
+    private static String readString(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_J3O_HEADER_LENGTH) {
+            throw new IOException("Unexpected length " + length);
+        }
+        return length;
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    private static String normalize(String path) {
+        while (path.startsWith("/") || path.startsWith("./")) {
+            path = path.substring(path.charAt(0) == '/' ? 1 : 2);
+        }
+        if (path.isEmpty() || path.startsWith(".") || path.contains("..")) {
+            return null;
+        }
+        return path;
+    }
+}
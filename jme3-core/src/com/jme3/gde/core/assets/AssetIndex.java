@@ -0,0 +1,454 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Index of the asset names of a ProjectAssetManager by file extension, used
+ * to answer getTextures(), getModels() etc. without walking the asset folder
+ * and all jars on the classpath each time.<br>
+ * The project assets are indexed once and then kept current by a recursive
+ * listener on the asset folder, the dependencies are indexed again when the
+ * classpath changes. Each jar of the classpath also gets a hash index from
+ * path to entry, used to find assets in dependencies. Jars that did not change
+ * are not indexed again. All indices are published as immutable snapshots,
+ * readers never lock.
+ */
+class AssetIndex {
+
+    private static final Logger logger = Logger.getLogger(AssetIndex.class.getName());
+    private static final RequestProcessor INDEX_PROCESSOR = new RequestProcessor("Asset index", 1);
+    /**
+     * Created assets are collected for this long before a new project index
+     * is published, so a bulk import copies the lists once per burst.
+     */
+    private static final int PUBLISH_DELAY = 100;
+    private final ProjectAssetManager assetManager;
+    private volatile Map<String, List<String>> projectFiles;
+    /**
+     * All names in the project index and the pending additions, guarded by
+     * this.
+     */
+    private final Set<String> projectNames = new HashSet<>();
+    private final Map<String, List<String>> pendingFiles = new HashMap<>();
+    private volatile boolean pending;
+    private final RequestProcessor.Task publishTask = INDEX_PROCESSOR.create(this::publishPendingFiles);
+    private volatile Map<String, List<String>> dependencyFiles;
+    private volatile List<RootIndex> dependencyRoots;
+    private final Map<FileObject, RootIndex> rootCache = new HashMap<>();
+    private final RequestProcessor.Task dependencyTask;
+
+    AssetIndex(ProjectAssetManager assetManager) {
+        this.assetManager = assetManager;
+        this.dependencyTask = INDEX_PROCESSOR.create(this::indexDependencies);
+    }
+
+    /**
+     * Starts building the index in the background.
+     */
+    void buildInBackground() {
+        INDEX_PROCESSOR.post(() -> {
+            getProjectFiles("");
+            getDependencyFiles("");
+        });
+    }
+
+    /**
+     * @param suffix the file extension
+     * @return the names of all assets with the extension in the asset folder
+     */
+    List<String> getProjectFiles(String suffix) {
+        if (pending) {
+            publishPendingFiles();
+        }
+        Map<String, List<String>> files = projectFiles;
+        if (files == null) {
+            files = indexProject();
+        }
+        return get(files, suffix);
+    }
+
+    /**
+     * @param suffix the file extension
+     * @return the names of all assets with the extension in the jars and
+     * folders on the classpath of the project
+     */
+    List<String> getDependencyFiles(String suffix) {
+        Map<String, List<String>> files = dependencyFiles;
+        if (files == null) {
+            files = indexDependencies();
+        }
+        return get(files, suffix);
+    }
+
+    /**
+     * Finds an asset in the dependencies, the first classpath entry
+     * containing it wins.
+     *
+     * @param name the path of the asset
+     * @return the file or null if no dependency contains it
+     */
+    FileObject findDependencyFile(String name) {
+        for (RootIndex root : getDependencyRoots()) {
+            FileObject file = root.entries.get(name);
+            if (file != null) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds an asset in the dependencies, ignoring the case of the path if
+     * there is no exact match.
+     *
+     * @param name the path of the asset
+     * @return the file or null if no dependency contains it
+     */
+    FileObject findDependencyFileIgnoreCase(String name) {
+        FileObject file = findDependencyFile(name);
+        if (file != null) {
+            return file;
+        }
+        String lowerCaseName = name.toLowerCase(Locale.ROOT);
+        for (RootIndex root : getDependencyRoots()) {
+            file = root.lowerCaseEntries.get(lowerCaseName);
+            if (file != null) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    private List<RootIndex> getDependencyRoots() {
+        List<RootIndex> roots = dependencyRoots;
+        if (roots == null) {
+            indexDependencies();
+            roots = dependencyRoots;
+        }
+        return roots;
+    }
+
+    private static List<String> get(Map<String, List<String>> files, String suffix) {
+        List<String> list = files.get(suffix.toLowerCase(Locale.ROOT));
+        return list != null ? list : Collections.emptyList();
+    }
+
+    /**
+     * Indexes the dependencies again in the background, the old index is used
+     * until then.
+     */
+    void classPathChanged() {
+        if (dependencyFiles != null) {
+            dependencyTask.schedule(0);
+        }
+    }
+
+    private synchronized Map<String, List<String>> indexProject() {
+        if (projectFiles != null) {
+            return projectFiles;
+        }
+        long time = System.currentTimeMillis();
+        Map<String, List<String>> files = new HashMap<>();
+        FileObject assetFolder = assetManager.getAssetFolder();
+        if (assetFolder != null) {
+            assetFolder.addRecursiveListener(folderListener);
+            addFolder(files, assetFolder);
+        }
+        for (List<String> names : files.values()) {
+            projectNames.addAll(names);
+        }
+        projectFiles = freeze(files);
+        logger.log(Level.FINE, "Indexed project assets in {0} ms", System.currentTimeMillis() - time);
+        return projectFiles;
+    }
+
+    /**
+     * Indexes all classpath entries, jars that did not change since the last
+     * call keep their index.
+     */
+    private Map<String, List<String>> indexDependencies() {
+        synchronized (rootCache) {
+            long time = System.currentTimeMillis();
+            Map<String, List<String>> files = new HashMap<>();
+            List<RootIndex> roots = new ArrayList<>();
+            int indexed = 0;
+            for (FileObject root : assetManager.getClassPathRoots()) {
+                long stamp = getStamp(root);
+                RootIndex index = rootCache.get(root);
+                if (index == null || stamp == -1 || index.stamp != stamp) {
+                    index = new RootIndex(root, stamp);
+                    indexed++;
+                }
+                roots.add(index);
+                for (Map.Entry<String, List<String>> entry : index.files.entrySet()) {
+                    files.computeIfAbsent(entry.getKey(), e -> new ArrayList<>()).addAll(entry.getValue());
+                }
+            }
+            rootCache.clear();
+            for (RootIndex index : roots) {
+                rootCache.put(index.root, index);
+            }
+            Map<String, List<String>> frozen = freeze(files);
+            dependencyRoots = Collections.unmodifiableList(roots);
+            dependencyFiles = frozen;
+            logger.log(Level.FINE, "Indexed {0} of {1} classpath entries in {2} ms",
+                    new Object[]{indexed, roots.size(), System.currentTimeMillis() - time});
+            return frozen;
+        }
+    }
+
+    /**
+     * @return a stamp of the jar file of the root, or -1 for folders which
+     * are always indexed again
+     */
+    private static long getStamp(FileObject root) {
+        FileObject archive = FileUtil.getArchiveFile(root);
+        if (archive == null) {
+            return -1;
+        }
+        return archive.lastModified().getTime() * 31 + archive.getSize();
+    }
+
+    private void addFolder(Map<String, List<String>> files, FileObject folder) {
+        Enumeration<? extends FileObject> assets = folder.getChildren(true);
+        while (assets.hasMoreElements()) {
+            FileObject asset = assets.nextElement();
+            if (!asset.isFolder()) {
+                add(files, asset.getExt(), assetManager.getRelativeAssetPath(asset.getPath()));
+            }
+        }
+    }
+
+    private static void add(Map<String, List<String>> files, String ext, String name) {
+        files.computeIfAbsent(ext.toLowerCase(Locale.ROOT), e -> new ArrayList<>()).add(name);
+    }
+
+    private static Map<String, List<String>> freeze(Map<String, List<String>> files) {
+        Map<String, List<String>> frozen = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : files.entrySet()) {
+            frozen.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    /**
+     * Queues a created asset for the next published project index.
+     */
+    private synchronized void addProjectFile(FileObject file) {
+        if (projectFiles == null || file.isFolder()) {
+            return;
+        }
+        queueProjectFile(file.getExt(), assetManager.getRelativeAssetPath(file.getPath()));
+    }
+
+    private synchronized void addProjectFolder(FileObject folder) {
+        if (projectFiles == null) {
+            return;
+        }
+        Map<String, List<String>> added = new HashMap<>();
+        addFolder(added, folder);
+        for (Map.Entry<String, List<String>> entry : added.entrySet()) {
+            for (String name : entry.getValue()) {
+                queueProjectFile(entry.getKey(), name);
+            }
+        }
+    }
+
+    private void queueProjectFile(String ext, String name) {
+        if (!projectNames.add(name)) {
+            return;
+        }
+        add(pendingFiles, ext, name);
+        pending = true;
+        publishTask.schedule(PUBLISH_DELAY);
+    }
+
+    /**
+     * Publishes a copy of the project index with the queued assets added,
+     * only the lists of their extensions are copied.
+     */
+    private synchronized void publishPendingFiles() {
+        if (pendingFiles.isEmpty()) {
+            pending = false;
+            return;
+        }
+        Map<String, List<String>> files = new HashMap<>(projectFiles);
+        for (Map.Entry<String, List<String>> entry : pendingFiles.entrySet()) {
+            List<String> old = files.getOrDefault(entry.getKey(), Collections.emptyList());
+            List<String> list = new ArrayList<>(old.size() + entry.getValue().size());
+            list.addAll(old);
+            list.addAll(entry.getValue());
+            files.put(entry.getKey(), Collections.unmodifiableList(list));
+        }
+        pendingFiles.clear();
+        projectFiles = Collections.unmodifiableMap(files);
+        pending = false;
+    }
+
+    /**
+     * Publishes a copy of the project index without the matching assets, the
+     * lists without matches are shared with the old index. Queued additions
+     * are published first.
+     */
+    private synchronized void removeProjectFiles(Predicate<String> matcher) {
+        if (projectFiles == null) {
+            return;
+        }
+        publishPendingFiles();
+        if (!projectNames.removeIf(matcher)) {
+            return;
+        }
+        Map<String, List<String>> files = null;
+        for (Map.Entry<String, List<String>> entry : projectFiles.entrySet()) {
+            if (entry.getValue().stream().noneMatch(matcher)) {
+                continue;
+            }
+            if (files == null) {
+                files = new HashMap<>(projectFiles);
+            }
+            List<String> list = new ArrayList<>(entry.getValue());
+            list.removeIf(matcher);
+            files.put(entry.getKey(), Collections.unmodifiableList(list));
+        }
+        if (files != null) {
+            projectFiles = Collections.unmodifiableMap(files);
+        }
+    }
+
+    private void removeProjectPath(String path, boolean folder) {
+        String name = assetManager.getRelativeAssetPath(path);
+        if (folder) {
+            String prefix = name.isEmpty() ? "" : name + "/";
+            removeProjectFiles(n -> n.startsWith(prefix));
+        } else {
+            removeProjectFile(name);
+        }
+    }
+
+    /**
+     * Publishes a copy of the project index without one asset, only the list
+     * of its extension is copied.
+     */
+    private synchronized void removeProjectFile(String name) {
+        if (projectFiles == null) {
+            return;
+        }
+        publishPendingFiles();
+        if (!projectNames.remove(name)) {
+            return;
+        }
+        int dot = name.lastIndexOf('.');
+        String ext = dot > name.lastIndexOf('/') ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        List<String> list = new ArrayList<>(projectFiles.getOrDefault(ext, Collections.emptyList()));
+        list.remove(name);
+        Map<String, List<String>> files = new HashMap<>(projectFiles);
+        files.put(ext, Collections.unmodifiableList(list));
+        projectFiles = Collections.unmodifiableMap(files);
+    }
+
+    private final FileChangeAdapter folderListener = new FileChangeAdapter() {
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            addProjectFolder(fe.getFile());
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            addProjectFile(fe.getFile());
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            removeProjectPath(fe.getFile().getPath(), fe.getFile().isFolder());
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            FileObject file = fe.getFile();
+            String oldName = fe.getExt().isEmpty() ? fe.getName() : fe.getName() + "." + fe.getExt();
+            FileObject parent = file.getParent();
+            removeProjectPath(parent != null ? parent.getPath() + "/" + oldName : oldName, file.isFolder());
+            if (file.isFolder()) {
+                addProjectFolder(file);
+            } else {
+                addProjectFile(file);
+            }
+        }
+    };
+
+    /**
+     * The entries of one jar or folder of the classpath.
+     */
+    private static class RootIndex {
+
+        final FileObject root;
+        final long stamp;
+        final Map<String, FileObject> entries = new HashMap<>();
+        final Map<String, FileObject> lowerCaseEntries = new HashMap<>();
+        final Map<String, List<String>> files = new HashMap<>();
+
+        RootIndex(FileObject root, long stamp) {
+            this.root = root;
+            this.stamp = stamp;
+            Enumeration<? extends FileObject> children = root.getChildren(true);
+            while (children.hasMoreElements()) {
+                FileObject entry = children.nextElement();
+                String path = entry.getPath();
+                if (entry.isFolder() || path.startsWith("/")) {
+                    continue;
+                }
+                entries.put(path, entry);
+                lowerCaseEntries.putIfAbsent(path.toLowerCase(Locale.ROOT), entry);
+                add(files, entry.getExt(), path);
+            }
+        }
+    }
+}
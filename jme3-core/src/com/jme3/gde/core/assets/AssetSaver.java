@@ -0,0 +1,222 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import com.jme3.export.Savable;
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.gde.core.Installer;
+import com.jme3.scene.Spatial;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import org.netbeans.api.progress.ProgressHandle;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.NbPreferences;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Writes Savables to asset files without blocking the caller and without
+ * leaving a broken file behind when the SDK crashes while saving.<br>
+ * The caller takes a snapshot of the Savable, spatials are deep cloned and
+ * other savables are serialized into memory. The snapshot is written to a
+ * temporary file in the target folder by a single writer thread, the
+ * temporary file is then moved over the target file. Optionally j3o files are
+ * written GZIP compressed, the CompressedBinaryLoader of the
+ * ProjectAssetManager reads both variants. The setting only affects the files
+ * in the SDK, the jME runtime can not read compressed j3o files so they are
+ * replaced by plain copies when the project is built, see
+ * {@link RuntimeAssetExport}.
+ */
+class AssetSaver {
+
+    private static final Logger logger = Logger.getLogger(AssetSaver.class.getName());
+    static final String PREF_COMPRESS_J3O = "compress_j3o";
+    private static final RequestProcessor WRITER = new RequestProcessor("Asset writer", 1);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private AssetSaver() {
+    }
+
+    /**
+     * @return true if j3o files should be saved compressed, SDK only, the
+     * project build exports plain j3o files
+     */
+    static boolean isCompressionEnabled() {
+        return "true".equals(NbPreferences.forModule(Installer.class).get(PREF_COMPRESS_J3O, "false"));
+    }
+
+    /**
+     * Takes a snapshot of the savable and writes it in the background. Has
+     * to be called on the thread that modifies the savable, normally the
+     * render thread.
+     *
+     * @param savable the savable to save
+     * @param target the file to write, it has to exist
+     * @param chunks the chunked scene of the target file, null to write a
+     * plain j3o file
+     * @return the future of the written file
+     * @throws IOException if the snapshot could not be taken
+     */
+    static CompletableFuture<FileObject> save(Savable savable, final FileObject target, ChunkedScene chunks) throws IOException {
+        final Snapshot snapshot = new Snapshot(savable, chunks);
+        final boolean compress = chunks == null && "j3o".equalsIgnoreCase(target.getExt()) && isCompressionEnabled();
+        final CompletableFuture<FileObject> future = new CompletableFuture<>();
+        WRITER.post(() -> {
+            ProgressHandle progressHandle = ProgressHandle.createHandle("Saving " + target.getNameExt());
+            progressHandle.start();
+            long time = System.currentTimeMillis();
+            try {
+                write(snapshot, target, compress);
+                logger.log(Level.INFO, "Saved {0} ({1} KB{2}) in {3} ms", new Object[]{target.getNameExt(),
+                    target.getSize() / 1024, compress ? ", compressed" : "", System.currentTimeMillis() - time});
+                future.complete(target);
+            } catch (IOException | RuntimeException ex) {
+                future.completeExceptionally(ex);
+            } finally {
+                progressHandle.finish();
+            }
+        });
+        return future;
+    }
+
+    private static void write(Snapshot snapshot, FileObject target, boolean compress) throws IOException {
+        File file = FileUtil.toFile(target);
+        if (file == null) {
+            //not on disk, no atomic replace possible
+            try (OutputStream out = target.getOutputStream()) {
+                writeData(snapshot, out, compress);
+            }
+            snapshot.committed();
+            return;
+        }
+        File temp = File.createTempFile("." + target.getName(), ".tmp", file.getParentFile());
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(temp)) {
+                writeData(snapshot, fileOut, compress);
+                fileOut.getChannel().force(true);
+            }
+            synchronized (snapshot.getLock()) {
+                try {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                snapshot.committed();
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+        target.refresh();
+    }
+
+    private static void writeData(Snapshot snapshot, OutputStream out, boolean compress) throws IOException {
+        GZIPOutputStream gzip = null;
+        if (compress) {
+            //favour speed, the size is dominated by already compressed images
+            gzip = new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+        }
+        snapshot.writeTo(new BufferedOutputStream(gzip != null ? gzip : out, BUFFER_SIZE));
+        if (gzip != null) {
+            gzip.finish();
+        }
+    }
+
+    /**
+     * A copy of a Savable that can be written on another thread while the
+     * original is modified.
+     */
+    private static class Snapshot {
+
+        private final ChunkedScene chunks;
+        private Savable savable;
+        private ByteArrayOutputStream data;
+
+        Snapshot(Savable original, ChunkedScene chunks) throws IOException {
+            this.chunks = chunks;
+            if (original instanceof Spatial) {
+                try {
+                    savable = ((Spatial) original).deepClone();
+                    return;
+                } catch (RuntimeException ex) {
+                    if (chunks != null) {
+                        throw new IOException("Cannot take a snapshot of " + original, ex);
+                    }
+                    logger.log(Level.FINE, "Cannot clone " + original + ", serializing it directly", ex);
+                }
+            } else if (chunks != null) {
+                throw new IOException("Only spatials can be saved as chunked scene");
+            }
+            data = new ByteArrayOutputStream(BUFFER_SIZE);
+            BinaryExporter.getInstance().save(original, data);
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            if (chunks != null) {
+                chunks.write((Spatial) savable, out);
+            } else if (savable != null) {
+                BinaryExporter.getInstance().save(savable, out);
+            } else {
+                data.writeTo(out);
+            }
+            out.flush();
+        }
+
+        /**
+         * @return the lock held while the written file replaces the old one
+         */
+        Object getLock() {
+            return chunks != null ? chunks : this;
+        }
+
+        void committed() {
+            if (chunks != null) {
+                chunks.commit();
+            }
+        }
+    }
+}
@@ -80,10 +80,30 @@ public class AssetsLookupProvider implements LookupProvider {
         "jme.project.version"
     };
     private final String extensionName = "assets";
-    private final String extensionVersion = "v1.0";
+    private final String extensionVersion = "v1.1";
+    /**
+     * Compressed and chunked j3o files can only be read by the SDK, when the
+     * project is built in the SDK they are exported as plain j3o files that
+     * replace the originals in the assets jar.
+     */
     private final String extensionTargets =
-            "    <target name=\"-init-assets\">\n"
-            + "        <jar jarfile=\"${build.dir}/${assets.jar.name}\" excludes=\"${assets.excludes}\" basedir=\"${assets.folder.name}\" compress=\"${assets.compress}\"/>\n"
+            "    <target name=\"-export-assets\" if=\"libs.jme3-asset-export.classpath\">\n"
+            + "        <java classname=\"com.jme3.gde.core.assets.RuntimeAssetExport\" fork=\"true\" failonerror=\"true\">\n"
+            + "            <classpath>\n"
+            + "                <pathelement path=\"${libs.jme3-asset-export.classpath}\"/>\n"
+            + "                <pathelement path=\"${javac.classpath}\"/>\n"
+            + "            </classpath>\n"
+            + "            <arg file=\"${assets.folder.name}\"/>\n"
+            + "            <arg file=\"${build.dir}/assets-export\"/>\n"
+            + "        </java>\n"
+            + "    </target>\n"
+            + "    <target name=\"-init-assets\" depends=\"-export-assets\">\n"
+            + "        <jar jarfile=\"${build.dir}/${assets.jar.name}\" compress=\"${assets.compress}\">\n"
+            + "            <fileset dir=\"${assets.folder.name}\" excludes=\"${assets.excludes}\">\n"
+            + "                <present present=\"srconly\" targetdir=\"${build.dir}/assets-export\"/>\n"
+            + "            </fileset>\n"
+            + "            <fileset dir=\"${build.dir}/assets-export\" excludes=\"${assets.excludes}\" erroronmissingdir=\"false\"/>\n"
+            + "        </jar>\n"
             + "        <property location=\"${assets.folder.name}\" name=\"assets.dir.resolved\"/>\n"
             + "        <property location=\"${build.dir}/${assets.jar.name}\" name=\"assets.jar.resolved\"/>\n"
             + "        <property location=\"${build.classes.dir}\" name=\"build.classes.dir.resolved\"/>\n"
@@ -0,0 +1,209 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.gde.core.scene.SceneApplication;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Node;
+import com.jme3.scene.control.AbstractControl;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Sits on the placeholder Node of an unloaded chunk of a ChunkedScene and
+ * streams the chunk in when it becomes visible in a camera or when it is
+ * requested, e.g. by expanding the node in the SceneExplorer. The chunk is
+ * loaded in the background, its children, lights and controls are moved into
+ * the placeholder on the render thread and the control removes itself.
+ */
+public class ChunkStreamingControl extends AbstractControl {
+
+    private static final Logger logger = Logger.getLogger(ChunkStreamingControl.class.getName());
+    static final RequestProcessor LOAD_PROCESSOR = new RequestProcessor("Scene chunks", 2);
+    private ChunkedScene scene;
+    private String path;
+    private boolean loading;
+    private List<Runnable> callbacks = new ArrayList<>();
+    private BoundingBox worldBound = new BoundingBox();
+
+    /**
+     * For serialization only.
+     */
+    public ChunkStreamingControl() {
+    }
+
+    public ChunkStreamingControl(ChunkedScene scene, String path) {
+        this.scene = scene;
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return true while the chunk is being loaded
+     */
+    public synchronized boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * Loads the chunk in the background unless it is loading already.
+     *
+     * @param callback called on the render thread after the chunk has been
+     * attached, can be null
+     */
+    public void requestLoad(Runnable callback) {
+        synchronized (this) {
+            if (callback != null) {
+                callbacks.add(callback);
+            }
+            if (loading || scene == null) {
+                return;
+            }
+            loading = true;
+        }
+        scene.loadChunkAsync(path).whenComplete((chunk, error) -> {
+            if (error != null) {
+                logger.log(Level.WARNING, "Could not load chunk " + path, error);
+                synchronized (this) {
+                    loading = false;
+                    callbacks.clear();
+                }
+                return;
+            }
+            SceneApplication.getApplication().enqueue(() -> attachChunk(chunk));
+        });
+    }
+
+    /**
+     * Loads the chunk on the calling thread and attaches it. Has to be called
+     * on the render thread while the placeholder is part of a live scene, a
+     * background load that is still running is discarded.
+     */
+    void load() throws IOException {
+        synchronized (this) {
+            if (scene == null) {
+                return;
+            }
+            loading = true;
+        }
+        Node chunk;
+        try {
+            chunk = scene.loadChunk(path);
+        } catch (IOException | RuntimeException ex) {
+            synchronized (this) {
+                loading = false;
+            }
+            throw ex;
+        }
+        attachChunk(chunk);
+    }
+
+    private void attachChunk(Node chunk) {
+        List<Runnable> done;
+        synchronized (this) {
+            done = new ArrayList<>(callbacks);
+            callbacks.clear();
+            loading = false;
+        }
+        if (!(spatial instanceof Node)) {
+            //removed from the scene while loading
+            return;
+        }
+        Node node = (Node) spatial;
+        ChunkedScene.moveContent(chunk, node);
+        node.removeControl(this);
+        for (Runnable runnable : done) {
+            runnable.run();
+        }
+    }
+
+    @Override
+    protected void controlUpdate(float tpf) {
+    }
+
+    @Override
+    protected void controlRender(RenderManager rm, ViewPort vp) {
+        if (scene == null || isLoading()) {
+            return;
+        }
+        BoundingVolume bound = scene.getBound(path);
+        if (bound == null) {
+            return;
+        }
+        bound.transform(spatial.getWorldTransform(), worldBound);
+        Camera cam = vp.getCamera();
+        int planeState = cam.getPlaneState();
+        Camera.FrustumIntersect intersect = cam.contains(worldBound);
+        cam.setPlaneState(planeState);
+        if (intersect != Camera.FrustumIntersect.Outside) {
+            requestLoad(null);
+        }
+    }
+
+    @Override
+    public Object jmeClone() {
+        ChunkStreamingControl clone = (ChunkStreamingControl) super.jmeClone();
+        clone.callbacks = new ArrayList<>();
+        clone.loading = false;
+        clone.worldBound = new BoundingBox();
+        return clone;
+    }
+
+    @Override
+    public void write(JmeExporter ex) throws IOException {
+        super.write(ex);
+        OutputCapsule capsule = ex.getCapsule(this);
+        capsule.write(path, "path", null);
+    }
+
+    @Override
+    public void read(JmeImporter im) throws IOException {
+        super.read(im);
+        InputCapsule capsule = im.getCapsule(this);
+        path = capsule.readString("path", null);
+    }
+}
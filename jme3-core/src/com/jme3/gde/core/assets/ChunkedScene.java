@@ -0,0 +1,553 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.export.binary.BinaryImporter;
+import com.jme3.light.Light;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.control.Control;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A j3o container that stores the subtrees of a scene as independently
+ * compressed chunks, so the editor only has to load the parts of a scene that
+ * are actually looked at.<br>
+ * The file starts with the skeleton of the scene, a normal j3o graph in which
+ * every chunk has been replaced by an empty placeholder Node. The placeholder
+ * keeps name, transform and user data of the chunk root and stores the chunk
+ * path in the {@link #CHUNK_PATH} user data. The compressed chunks follow,
+ * the table of contents with offset, content hash and bounds of each chunk is
+ * stored at the end of the file:
+ * <pre>
+ * int magic, int version, int skeletonLength, skeleton
+ * chunk data...
+ * int count, (UTF path, long offset, int length, UTF hash, bounds)*
+ * long tocOffset
+ * </pre>
+ * The chunks are the Nodes directly below the scene root. When saving, chunks
+ * that are still placeholders or whose content did not change are copied
+ * from the old file without serializing or compressing them again.<br>
+ * Chunked files are read by the CompressedBinaryLoader of the SDK only, the
+ * jME runtime does not know the format. When a project is built they are
+ * replaced by plain j3o files, see {@link RuntimeAssetExport}.
+ */
+public class ChunkedScene {
+
+    private static final Logger logger = Logger.getLogger(ChunkedScene.class.getName());
+    public static final String CHUNK_PATH = "ChunkPath";
+    static final int MAGIC = 0x4A334F43;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private final File file;
+    private final AssetManager assetManager;
+    private Map<String, Entry> entries = new LinkedHashMap<>();
+    private Map<String, Entry> pendingEntries;
+
+    private ChunkedScene(File file, AssetManager assetManager) {
+        this.file = file;
+        this.assetManager = assetManager;
+    }
+
+    /**
+     * Opens the table of contents of a chunked file.
+     *
+     * @param file the chunked file
+     * @param assetManager the asset manager used to load the chunks
+     * @return the chunked scene
+     */
+    public static ChunkedScene open(File file, AssetManager assetManager) throws IOException {
+        ChunkedScene scene = new ChunkedScene(file, assetManager);
+        scene.entries = readEntries(file);
+        return scene;
+    }
+
+    /**
+     * Creates a chunked scene for a file that does not contain chunks yet,
+     * the file is converted when the scene is saved.
+     */
+    public static ChunkedScene create(File file, AssetManager assetManager) {
+        return new ChunkedScene(file, assetManager);
+    }
+
+    /**
+     * @return true if the file is a chunked scene
+     */
+    public static boolean isChunked(File file) {
+        try (InputStream in = new FileInputStream(file)) {
+            return new DataInputStream(in).readInt() == MAGIC;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the stream starts with a chunked scene, the stream has
+     * to support mark and reset
+     */
+    static boolean isChunked(InputStream in) throws IOException {
+        in.mark(4);
+        try {
+            return new DataInputStream(in).readInt() == MAGIC;
+        } catch (IOException ex) {
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * Reads the skeleton of a chunked scene, all chunks are placeholders.
+     */
+    static Spatial readSkeleton(InputStream stream, AssetManager assetManager) throws IOException {
+        return (Spatial) inflate(readSkeletonBlob(stream), assetManager);
+    }
+
+    /**
+     * @return the uncompressed j3o data of the skeleton, for scanners that do
+     * not need the scene graph
+     */
+    InputStream openSkeletonData() throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return new InflaterInputStream(new ByteArrayInputStream(readSkeletonBlob(in)));
+        }
+    }
+
+    /**
+     * @return the uncompressed j3o data of a chunk, for scanners that do not
+     * need the scene graph
+     */
+    synchronized InputStream openChunkData(String path) throws IOException {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            throw new IOException("No chunk " + path + " in " + file.getName());
+        }
+        return new InflaterInputStream(new ByteArrayInputStream(readBlob(entry)));
+    }
+
+    private static byte[] readSkeletonBlob(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a chunked scene");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported chunked scene version " + version);
+        }
+        int length = in.readInt();
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return data;
+    }
+
+    /**
+     * Reads a chunked file as one plain scene, every placeholder is filled
+     * with the content of its chunk.
+     *
+     * @param file the chunked file
+     * @param assetManager the asset manager used to load the scene
+     * @return the complete scene
+     */
+    static Spatial readScene(File file, AssetManager assetManager) throws IOException {
+        ChunkedScene scene = open(file, assetManager);
+        Spatial root;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            root = readSkeleton(in, assetManager);
+        }
+        if (root instanceof Node) {
+            for (Spatial child : ((Node) root).getChildren()) {
+                String path = child.getUserData(CHUNK_PATH);
+                if (path != null && child instanceof Node && scene.entries.containsKey(path)) {
+                    moveContent(scene.loadChunk(path), (Node) child);
+                }
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Moves children, lights and controls of a loaded chunk into its
+     * placeholder.
+     */
+    static void moveContent(Node chunk, Node placeholder) {
+        while (chunk.getQuantity() > 0) {
+            placeholder.attachChild(chunk.getChild(0));
+        }
+        for (Light light : chunk.getLocalLightList()) {
+            placeholder.addLight(light);
+        }
+        while (chunk.getNumControls() > 0) {
+            Control control = chunk.getControl(0);
+            chunk.removeControl(control);
+            placeholder.addControl(control);
+        }
+    }
+
+    /**
+     * Adds a ChunkStreamingControl to every placeholder of the given scene
+     * root, the chunks are loaded when the controls request them.
+     *
+     * @param root the loaded skeleton
+     */
+    public void attach(Spatial root) {
+        if (!(root instanceof Node)) {
+            return;
+        }
+        for (Spatial child : ((Node) root).getChildren()) {
+            String path = child.getUserData(CHUNK_PATH);
+            if (path != null && child instanceof Node && ((Node) child).getQuantity() == 0
+                    && child.getControl(ChunkStreamingControl.class) == null) {
+                child.addControl(new ChunkStreamingControl(this, path));
+            }
+        }
+    }
+
+    /**
+     * @return the bounds of the chunk in the local space of its root, null
+     * if unknown
+     */
+    public synchronized BoundingVolume getBound(String path) {
+        Entry entry = entries.get(path);
+        return entry != null ? entry.bound : null;
+    }
+
+    /**
+     * Loads a chunk in the background.
+     *
+     * @param path the path of the chunk
+     * @return the future of the chunk root
+     */
+    public CompletableFuture<Node> loadChunkAsync(final String path) {
+        final CompletableFuture<Node> future = new CompletableFuture<>();
+        ChunkStreamingControl.LOAD_PROCESSOR.post(() -> {
+            try {
+                future.complete(loadChunk(path));
+            } catch (IOException | RuntimeException ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Loads a chunk on the calling thread.
+     *
+     * @param path the path of the chunk
+     * @return the chunk root
+     */
+    public synchronized Node loadChunk(String path) throws IOException {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            throw new IOException("No chunk " + path + " in " + file.getName());
+        }
+        long time = System.currentTimeMillis();
+        Node node = (Node) inflate(readBlob(entry), assetManager);
+        logger.log(Level.FINE, "Loaded chunk {0} of {1} in {2} ms", new Object[]{path, file.getName(), System.currentTimeMillis() - time});
+        return node;
+    }
+
+    /**
+     * Writes the given scene as chunked file. The scene has to be a private
+     * copy, its chunks are replaced by placeholders. The new table of
+     * contents is used after commit() has been called, once the written file
+     * replaced the old one.
+     *
+     * @param root a copy of the scene
+     * @param stream the target stream
+     */
+    synchronized void write(Spatial root, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        Map<String, Entry> written = new LinkedHashMap<>();
+        List<Node> chunks = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        if (root instanceof Node) {
+            Node rootNode = (Node) root;
+            Set<String> used = new HashSet<>();
+            for (int i = 0; i < rootNode.getQuantity(); i++) {
+                Spatial child = rootNode.getChild(i);
+                if (!(child instanceof Node)) {
+                    continue;
+                }
+                String path = createPath(child, used);
+                chunks.add((Node) child);
+                paths.add(path);
+                rootNode.detachChildAt(i);
+                rootNode.attachChildAt(createPlaceholder((Node) child, path), i);
+            }
+        }
+        byte[] skeleton = deflate(serialize(root));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(skeleton.length);
+        out.write(skeleton);
+        long offset = HEADER_SIZE + skeleton.length;
+        int reused = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            Node chunk = chunks.get(i);
+            String path = paths.get(i);
+            Entry old = entries.get(path);
+            Entry entry = new Entry();
+            byte[] blob;
+            if (chunk.getControl(ChunkStreamingControl.class) != null) {
+                //never loaded, copy it
+                if (old == null) {
+                    throw new IOException("Chunk " + path + " is not loaded and not part of " + file.getName());
+                }
+                blob = readBlob(old);
+                entry.hash = old.hash;
+                entry.bound = old.bound;
+                reused++;
+            } else {
+                byte[] data = serialize(chunk);
+                entry.hash = hash(data);
+                entry.bound = computeBound(chunk);
+                if (old != null && old.hash.equals(entry.hash)) {
+                    blob = readBlob(old);
+                    reused++;
+                } else {
+                    blob = deflate(data);
+                }
+            }
+            entry.offset = offset;
+            entry.length = blob.length;
+            out.write(blob);
+            offset += blob.length;
+            written.put(path, entry);
+        }
+        out.writeInt(written.size());
+        for (Map.Entry<String, Entry> mapEntry : written.entrySet()) {
+            out.writeUTF(mapEntry.getKey());
+            mapEntry.getValue().write(out);
+        }
+        out.writeLong(offset);
+        out.flush();
+        pendingEntries = written;
+        logger.log(Level.INFO, "Wrote {0} chunks of {1}, {2} unchanged", new Object[]{written.size(), file.getName(), reused});
+    }
+
+    /**
+     * Switches to the table of contents of the last write, has to be called
+     * after the written file replaced the old one.
+     */
+    synchronized void commit() {
+        if (pendingEntries != null) {
+            entries = pendingEntries;
+            pendingEntries = null;
+        }
+    }
+
+    /**
+     * @return the paths of all chunks in the file
+     */
+    public synchronized Set<String> getChunkPaths() {
+        return Collections.unmodifiableSet(new HashSet<>(entries.keySet()));
+    }
+
+    private static String createPath(Spatial child, Set<String> used) {
+        String path = child.getUserData(CHUNK_PATH);
+        if (path == null || used.contains(path)) {
+            String base = "/" + (child.getName() != null ? child.getName() : "chunk");
+            path = base;
+            for (int i = 2; used.contains(path); i++) {
+                path = base + "#" + i;
+            }
+        }
+        used.add(path);
+        child.setUserData(CHUNK_PATH, path);
+        return path;
+    }
+
+    private static Node createPlaceholder(Node chunk, String path) {
+        Node placeholder = new Node(chunk.getName());
+        placeholder.setLocalTransform(chunk.getLocalTransform());
+        placeholder.setCullHint(chunk.getLocalCullHint());
+        placeholder.setShadowMode(chunk.getLocalShadowMode());
+        placeholder.setQueueBucket(chunk.getLocalQueueBucket());
+        for (String key : chunk.getUserDataKeys()) {
+            placeholder.setUserData(key, chunk.getUserData(key));
+        }
+        placeholder.setUserData(CHUNK_PATH, path);
+        return placeholder;
+    }
+
+    /**
+     * @return the bounds of the detached chunk in its own local space
+     */
+    private static BoundingBox computeBound(Node chunk) {
+        Transform transform = chunk.getLocalTransform().clone();
+        chunk.setLocalTransform(Transform.IDENTITY);
+        chunk.updateGeometricState();
+        BoundingVolume bound = chunk.getWorldBound();
+        BoundingBox box = null;
+        if (bound instanceof BoundingBox) {
+            box = (BoundingBox) bound.clone();
+        } else if (bound instanceof BoundingSphere) {
+            float radius = ((BoundingSphere) bound).getRadius();
+            box = new BoundingBox(bound.getCenter().clone(), radius, radius, radius);
+        }
+        chunk.setLocalTransform(transform);
+        return box;
+    }
+
+    private byte[] readBlob(Entry entry) throws IOException {
+        byte[] blob = new byte[entry.length];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(entry.offset);
+            in.readFully(blob);
+        }
+        return blob;
+    }
+
+    private static Map<String, Entry> readEntries(File file) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.readInt() != MAGIC) {
+                throw new IOException(file.getName() + " is not a chunked scene");
+            }
+            raf.seek(raf.length() - 8);
+            raf.seek(raf.readLong());
+            int count = raf.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = raf.readUTF();
+                entries.put(path, Entry.read(raf));
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] serialize(Spatial spatial) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        BinaryExporter.getInstance().save(spatial, data);
+        return data.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater)) {
+            deflaterOut.write(data);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static Object inflate(byte[] blob, AssetManager assetManager) throws IOException {
+        BinaryImporter importer = new BinaryImporter();
+        importer.setAssetManager(assetManager);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(blob))) {
+            return importer.load(in);
+        }
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(data)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static class Entry {
+
+        long offset;
+        int length;
+        String hash;
+        BoundingBox bound;
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(offset);
+            out.writeInt(length);
+            out.writeUTF(hash);
+            out.writeBoolean(bound != null);
+            if (bound != null) {
+                Vector3f center = bound.getCenter();
+                out.writeFloat(center.x);
+                out.writeFloat(center.y);
+                out.writeFloat(center.z);
+                out.writeFloat(bound.getXExtent());
+                out.writeFloat(bound.getYExtent());
+                out.writeFloat(bound.getZExtent());
+            }
+        }
+
+        static Entry read(DataInput in) throws IOException {
+            Entry entry = new Entry();
+            entry.offset = in.readLong();
+            entry.length = in.readInt();
+            entry.hash = in.readUTF();
+            if (in.readBoolean()) {
+                Vector3f center = new Vector3f(in.readFloat(), in.readFloat(), in.readFloat());
+                entry.bound = new BoundingBox(center, in.readFloat(), in.readFloat(), in.readFloat());
+            }
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetLoader;
+import com.jme3.export.Savable;
+import com.jme3.export.binary.BinaryImporter;
+import com.jme3.gde.core.Installer;
+import com.jme3.util.BufferUtils;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.NbPreferences;
+
+/**
+ * Loads j3o files that have been saved compressed by the SDK as well as
+ * plain j3o files. Compressed files are recognized by the GZIP header, for
+ * chunked files (see ChunkedScene) only the skeleton is loaded, all other
+ * files are passed to the BinaryImporter unchanged.<br>
+ * Large plain project files are memory mapped instead of being read through
+ * a stream. The BinaryImporter copies the whole data section into one byte
+ * array before it creates the buffers of the scene, with a mapped file that
+ * array is allocated once with its exact size and filled straight from the
+ * mapping, instead of growing while the stream is copied.
+ */
+public class CompressedBinaryLoader implements AssetLoader {
+
+    public static final String PREF_MAPPED_LOADING = "mapped_j3o_loading";
+    static final long MIN_MAPPED_SIZE = 4 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The "JME3" signature that starts j3o files since format version 1.
+     */
+    private static final int J3O_SIGNATURE = 0x4A4D4533;
+    private static final int MAX_HEADER_LENGTH = 1024 * 1024;
+
+    @Override
+    public Object load(final AssetInfo info) throws IOException {
+        File file = findMappableFile(info);
+        if (file != null) {
+            BinaryImporter importer = new BinaryImporter();
+            importer.setAssetManager(info.getManager());
+            Savable savable = loadMapped(importer, file);
+            if (savable != null) {
+                return savable;
+            }
+        }
+        try (InputStream in = new BufferedInputStream(info.openStream(), BUFFER_SIZE)) {
+            if (ChunkedScene.isChunked(in)) {
+                return ChunkedScene.readSkeleton(in, info.getManager());
+            }
+        }
+        return new BinaryImporter().load(new AssetInfo(info.getManager(), info.getKey()) {
+            @Override
+            public InputStream openStream() {
+                return decompress(info.openStream());
+            }
+        });
+    }
+
+    /**
+     * @return true if large j3o files are memory mapped
+     */
+    public static boolean isMappingEnabled() {
+        return "true".equals(NbPreferences.forModule(Installer.class).get(PREF_MAPPED_LOADING, "true"));
+    }
+
+    private static File findMappableFile(AssetInfo info) {
+        if (!isMappingEnabled() || !(info.getManager() instanceof ProjectAssetManager)) {
+            return null;
+        }
+        FileObject fileObject = ((ProjectAssetManager) info.getManager()).getAssetFileObject(info.getKey().getName());
+        File file = fileObject != null ? FileUtil.toFile(fileObject) : null;
+        if (file == null || file.length() < MIN_MAPPED_SIZE || file.length() > Integer.MAX_VALUE) {
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * Loads a plain j3o file through a memory mapping.
+     *
+     * @param importer the importer, with the asset manager set
+     * @param file the j3o file
+     * @return the loaded savable or null if the file is compressed or
+     * chunked
+     */
+    public static Savable loadMapped(BinaryImporter importer, File file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (mapped.remaining() >= 2 && (mapped.get(0) & 0xFF) == 0x1f && (mapped.get(1) & 0xFF) == 0x8b) {
+                return null;
+            }
+            if (mapped.remaining() >= 4 && mapped.getInt(0) == ChunkedScene.MAGIC) {
+                return null;
+            }
+            int headerLength = j3oHeaderLength(mapped);
+            int dataLength = headerLength > 0 ? mapped.limit() - headerLength : mapped.limit();
+            return importer.load(new BufferInputStream(mapped), null, new ExactSizeOutputStream(dataLength));
+        } finally {
+            //release the mapping now, otherwise the file stays locked on some systems until the next gc
+            BufferUtils.destroyDirectBuffer(mapped);
+        }
+    }
+
+    /**
+     * Walks the class and location tables of the BinaryExporter format to
+     * find where the data section starts. The importer reads the header
+     * through its own buffered stream, so the length can not be taken from
+     * the position of the mapping.
+     *
+     * @return the length of the header or -1 if the buffer does not have
+     * the expected layout
+     */
+    private static int j3oHeaderLength(ByteBuffer data) {
+        try {
+            int pos = 0;
+            int numClasses = data.getInt(pos);
+            int formatVersion = 0;
+            pos += 4;
+            if (numClasses == J3O_SIGNATURE) {
+                formatVersion = data.getInt(pos);
+                numClasses = data.getInt(pos + 4);
+                pos += 8;
+            }
+            if (numClasses <= 0) {
+                return -1;
+            }
+            int aliasWidth = (int) (float) (Math.log(numClasses) / Math.log(256)) + 1;
+            for (int i = 0; i < numClasses; i++) {
+                pos += aliasWidth;
+                if (formatVersion >= 1) {
+                    pos += 1 + 4 * (data.get(pos) & 0xFF);
+                }
+                pos += 4 + checkLength(data.getInt(pos));
+                int fields = checkLength(data.getInt(pos));
+                pos += 4;
+                for (int j = 0; j < fields; j++) {
+                    pos += 2;
+                    pos += 4 + checkLength(data.getInt(pos));
+                }
+            }
+            //location table, root id count and root id
+            pos += 4 + 8 * checkLength(data.getInt(pos)) + 8;
+            return pos <= data.limit() ? pos : -1;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException ex) {
+            return -1;
+        }
+    }
+
+    private static int checkLength(int length) {
+        if (length < 0 || length > MAX_HEADER_LENGTH) {
+            throw new IllegalArgumentException("Unexpected length " + length);
+        }
+        return length;
+    }
+
+    /**
+     * @return true if the stream starts with a GZIP header, the stream has to
+     * support mark and reset
+     */
+    static boolean isCompressed(InputStream in) throws IOException {
+        in.mark(2);
+        try {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        } finally {
+            in.reset();
+        }
+    }
+
+    private static InputStream decompress(InputStream stream) {
+        InputStream in = new BufferedInputStream(stream, BUFFER_SIZE);
+        try {
+            if (isCompressed(in)) {
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            }
+        } catch (IOException ex) {
+            //let the importer report the broken stream
+        }
+        return in;
+    }
+
+    /**
+     * Reads a ByteBuffer without copying it.
+     */
+    private static class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * Collects the data section the BinaryImporter copies from the stream.
+     * The array is allocated up front with the size of the data section, so
+     * it does not grow and is handed out without a copy when the size was
+     * right.
+     */
+    private static class ExactSizeOutputStream extends ByteArrayOutputStream {
+
+        ExactSizeOutputStream(int size) {
+            super(size);
+        }
+
+        @Override
+        public synchronized byte[] toByteArray() {
+            return count == buf.length ? buf : super.toByteArray();
+        }
+    }
+}
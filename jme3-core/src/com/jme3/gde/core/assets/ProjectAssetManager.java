@@ -43,12 +43,14 @@ import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -93,6 +95,14 @@ public class ProjectAssetManager extends DesktopAssetManager {
     private final List<String> folderNames = new LinkedList<>();
     private final List<FileObject> jarItems = new LinkedList<>();
     private URLClassLoader loader;
+    private final AssetIndex assetIndex = new AssetIndex(this);
+    private AssetDependencyGraph dependencyGraph;
+    /**
+     * The keys of all cached assets by asset name, used to remove single
+     * assets from the cache when they change.
+     */
+    private final Map<String, Set<AssetKey>> cachedKeys = new HashMap<>();
+    private final AssetCacheTracker cacheTracker = new AssetCacheTracker(this);
 
     public ProjectAssetManager(Project prj, String folderName) {
         super(true);
@@ -103,6 +113,9 @@ public class ProjectAssetManager extends DesktopAssetManager {
         addFolderLocator(folderName);
         updateClassLoader();
         prepAssetEventListeners();
+        registerLoader(CompressedBinaryLoader.class, "j3o");
+        assetIndex.buildInBackground();
+        getDependencyGraph();
     }
 
     /**
@@ -126,6 +139,7 @@ public class ProjectAssetManager extends DesktopAssetManager {
             di.prepareManager(this);
         }
         prepAssetEventListeners();
+        registerLoader(CompressedBinaryLoader.class, "j3o");
     }
 
     public ProjectAssetManager() {
@@ -291,11 +305,95 @@ public class ProjectAssetManager extends DesktopAssetManager {
                     clearClassLoader();
                     loadClassLoader();
                 }
+                assetIndex.classPathChanged();
             }
         });
         notifyClassPathListeners();
     }
 
+    /**
+     * Gets the dependency graph of the project assets, it is created on the
+     * first call. Assets that are affected by changes in the graph are removed
+     * from the cache of this asset manager.
+     *
+     * @return the dependency graph
+     */
+    public synchronized AssetDependencyGraph getDependencyGraph() {
+        if (dependencyGraph == null) {
+            dependencyGraph = new AssetDependencyGraph(this);
+            dependencyGraph.addDependencyChangeListener((changed, affected) -> deleteFromCache(affected));
+        }
+        return dependencyGraph;
+    }
+
+    /**
+     * Removes the given assets from the cache, in contrast to clearCache()
+     * all other assets stay cached.
+     *
+     * @param assetNames the names of the assets
+     */
+    public void deleteFromCache(Collection<String> assetNames) {
+        List<AssetKey> keys = new ArrayList<>();
+        synchronized (cachedKeys) {
+            for (String assetName : assetNames) {
+                Set<AssetKey> cached = cachedKeys.remove(assetName);
+                if (cached != null) {
+                    keys.addAll(cached);
+                }
+            }
+        }
+        for (AssetKey key : keys) {
+            deleteFromCache(key);
+        }
+        if (!keys.isEmpty()) {
+            logger.log(Level.FINE, "Removed {0} changed assets from cache", keys.size());
+        }
+    }
+
+    @Override
+    public boolean deleteFromCache(AssetKey key) {
+        cacheTracker.assetRemoved(key);
+        return super.deleteFromCache(key);
+    }
+
+    @Override
+    public void clearCache() {
+        super.clearCache();
+        synchronized (cachedKeys) {
+            cachedKeys.clear();
+        }
+        cacheTracker.clear();
+    }
+
+    /**
+     * Protects the given assets from being evicted from the cache when it
+     * exceeds its memory budget, until unpinAssets is called with the same
+     * owner.
+     *
+     * @param owner the user of the assets, e.g. an AssetDataObject
+     * @param keys the keys of the assets
+     */
+    public void pinAssets(Object owner, Collection<AssetKey> keys) {
+        cacheTracker.pinAssets(owner, keys);
+    }
+
+    /**
+     * Releases all assets pinned by the given owner, they can be evicted
+     * again.
+     *
+     * @param owner the user of the assets
+     */
+    public void unpinAssets(Object owner) {
+        cacheTracker.unpinAssets(owner);
+    }
+
+    /**
+     * @return the hit, miss and eviction statistics of the asset cache
+     */
+    public AssetCacheTracker.Statistics getCacheStatistics() {
+        return cacheTracker.getStatistics();
+    }
+
     @Override
     public void setAssetEventListener(AssetEventListener listener) {
         throw new UnsupportedOperationException("Setting the asset event listener is not allowed for ProjectAssetManager, use addAssetEventListener instead");
@@ -304,6 +402,12 @@ public class ProjectAssetManager extends DesktopAssetManager {
     private void prepAssetEventListeners() {
         super.setAssetEventListener(new AssetEventListener() {
             public void assetLoaded(AssetKey ak) {
+                if (ak.getCacheType() != null) {
+                    synchronized (cachedKeys) {
+                        cachedKeys.computeIfAbsent(ak.getName(), n -> new HashSet<>()).add(ak);
+                    }
+                }
+                cacheTracker.assetLoaded(ak);
                 synchronized (assetEventListeners) {
                     for (AssetEventListener assetEventListener : assetEventListeners) {
                         assetEventListener.assetLoaded(ak);
@@ -312,6 +416,7 @@ public class ProjectAssetManager extends DesktopAssetManager {
             }
 
             public void assetRequested(AssetKey ak) {
+                cacheTracker.assetRequested(ak);
                 synchronized (assetEventListeners) {
                     for (AssetEventListener assetEventListener : assetEventListeners) {
                         assetEventListener.assetRequested(ak);
@@ -360,23 +465,7 @@ public class ProjectAssetManager extends DesktopAssetManager {
         if (file != null) {
             return file;
         }
-        synchronized (classPathItems) {
-            // TODO I need to find out if classPathItems contains all jars added to a project
-
-            for (ClassPathItem classPathItem : classPathItems) {
-                FileObject jarFile = classPathItem.object;
-
-                Enumeration<FileObject> jarEntry = (Enumeration<FileObject>) jarFile.getChildren(true);
-                while (jarEntry.hasMoreElements()) {
-                    FileObject jarEntryAsset = jarEntry.nextElement();
-                    String path = jarEntryAsset.getPath();
-                    if (!path.startsWith("/") && path.equals(name)) {
-                        return jarEntryAsset;
-                    }
-                }
-            }
-        }
-        return null;
+        return assetIndex.findDependencyFile(name);
     }
 
     public FileObject createAsset(String path) {
@@ -537,78 +626,46 @@ public class ProjectAssetManager extends DesktopAssetManager {
     }
 
     private List<String> collectProjectFilesWithSuffix(String suffix, List<String> list) {
-        FileObject assetsFolder = getAssetFolder();
-        if (assetsFolder != null) {
-            Enumeration<FileObject> assets = (Enumeration<FileObject>) assetsFolder.getChildren(true);
-            while (assets.hasMoreElements()) {
-                FileObject asset = assets.nextElement();
-                if (asset.getExt().equalsIgnoreCase(suffix)) {
-                    list.add(getRelativeAssetPath(asset.getPath()));
-                }
-            }
-        }
+        list.addAll(assetIndex.getProjectFiles(suffix));
         return list;
     }
 
     private List<String> collectDependenciesFilesWithSuffix(String suffix, List<String> list) {
+        list.addAll(assetIndex.getDependencyFiles(suffix));
+        return list;
+    }
+
+    /**
+     * @return the roots of all jars and folders on the classpath of the
+     * project that are scanned for assets
+     */
+    List<FileObject> getClassPathRoots() {
+        List<FileObject> roots = new ArrayList<>();
         synchronized (classPathItems) {
-            // TODO I need to find out if classPathItems contains all jars added to a project
-            Iterator<ClassPathItem> classPathItemsIter = classPathItems.iterator();
-            while (classPathItemsIter.hasNext()) {
-                ClassPathItem classPathItem = classPathItemsIter.next();
+            for (ClassPathItem classPathItem : classPathItems) {
                 FileObject jarFile = classPathItem.object;
-                
+
                 // Gradle projects don't know that the dependency is a Jar file
                 if (FileUtil.isArchiveFile(jarFile)) {
                     jarFile = FileUtil.getArchiveRoot(jarFile);
                 }
-
-                Enumeration<FileObject> jarEntry = (Enumeration<FileObject>) jarFile.getChildren(true);
-                while (jarEntry.hasMoreElements()) {
-                    FileObject jarEntryAsset = jarEntry.nextElement();
-                    if (jarEntryAsset.getExt().equalsIgnoreCase(suffix)) {
-                        if (!jarEntryAsset.getPath().startsWith("/")) {
-                            list.add(jarEntryAsset.getPath());
-                        }
-                    }
-                }
-
+                roots.add(jarFile);
             }
-            return list;
         }
+        return roots;
     }
 
     public InputStream getResourceAsStream(String name) {
-        InputStream in = null;//JmeSystem.getResourceAsStream(name);
-        synchronized (classPathItems) {
-            // TODO I need to find out if classPathItems contains all jars added to a project
-            Iterator<ClassPathItem> classPathItemsIter = classPathItems.iterator();
-            while (classPathItemsIter.hasNext()) {
-                ClassPathItem classPathItem = classPathItemsIter.next();
-                FileObject jarFile = classPathItem.object;
-
-                Enumeration<FileObject> jarEntry;
-                if (FileUtil.isArchiveFile(jarFile)) {
-                    FileObject jarFileRoot = FileUtil.getArchiveRoot(jarFile);
-                    jarEntry = (Enumeration<FileObject>) jarFileRoot.getChildren(true);
-                } else {
-                    jarEntry = (Enumeration<FileObject>) jarFile.getChildren(true);
-                }
-
-                while (jarEntry.hasMoreElements()) {
-                    FileObject jarEntryAsset = jarEntry.nextElement();
-                    if (jarEntryAsset.getPath().equalsIgnoreCase(name)) {
-                        try {
-                            in = jarEntryAsset.getInputStream();
-                        } catch (FileNotFoundException ex) {
-                            Exceptions.printStackTrace(ex);
-                        }
-                        break;
-                    }
-                }
-            }
+        FileObject file = assetIndex.findDependencyFileIgnoreCase(name);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return file.getInputStream();
+        } catch (FileNotFoundException ex) {
+            Exceptions.printStackTrace(ex);
+            return null;
         }
-        return in;
     }
 
     /**
@@ -0,0 +1,181 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.asset.plugins.FileLocator;
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.scene.Spatial;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Writes plain j3o copies of the GZIP compressed and chunked j3o files of a
+ * project. Both formats are only understood by the loaders of the SDK, the
+ * assets jar of the project build takes the exported copies instead of the
+ * original files so the game can load them with the default jME loaders.<br>
+ * Called by the -init-assets target of the project build when it runs in the
+ * SDK, it only uses jME classes so it can run on the classpath of the
+ * project. Files whose copy is up to date are skipped, copies of files that
+ * are plain again or were deleted are removed.
+ * <pre>
+ * RuntimeAssetExport &lt;assets folder&gt; &lt;export folder&gt;
+ * </pre>
+ */
+public class RuntimeAssetExport {
+
+    private static final Logger logger = Logger.getLogger(RuntimeAssetExport.class.getName());
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final Path assetsDir;
+    private final Path exportDir;
+    private AssetManager assetManager;
+
+    public RuntimeAssetExport(Path assetsDir, Path exportDir) {
+        this.assetsDir = assetsDir;
+        this.exportDir = exportDir;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: RuntimeAssetExport <assets folder> <export folder>");
+            System.exit(1);
+        }
+        new RuntimeAssetExport(Paths.get(args[0]), Paths.get(args[1])).export();
+    }
+
+    /**
+     * Exports all compressed and chunked j3o files of the assets folder.
+     */
+    public void export() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(assetsDir)) {
+            files = stream.filter(path -> Files.isRegularFile(path)
+                    && path.getFileName().toString().toLowerCase().endsWith(".j3o"))
+                    .collect(Collectors.toList());
+        }
+        Set<Path> exported = new HashSet<>();
+        int written = 0;
+        for (Path file : files) {
+            Path target = exportDir.resolve(assetsDir.relativize(file).toString());
+            int magic = readMagic(file);
+            boolean compressed = (magic >>> 16) == 0x1f8b;
+            if (!compressed && magic != ChunkedScene.MAGIC) {
+                continue;
+            }
+            exported.add(target);
+            if (Files.exists(target) && !Files.getLastModifiedTime(target).toInstant()
+                    .isBefore(Files.getLastModifiedTime(file).toInstant())) {
+                continue;
+            }
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), ".export", ".tmp");
+            try {
+                if (compressed) {
+                    try (InputStream in = new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+                        Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } else {
+                    Spatial scene = ChunkedScene.readScene(file.toFile(), getAssetManager());
+                    try (OutputStream out = Files.newOutputStream(temp)) {
+                        BinaryExporter.getInstance().save(scene, out);
+                    }
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            written++;
+        }
+        int removed = removeStale(exported);
+        logger.log(Level.INFO, "Exported {0} of {1} j3o files for the runtime, {2} up to date, {3} stale copies removed",
+                new Object[]{written, files.size(), exported.size() - written, removed});
+    }
+
+    /**
+     * @return the first four bytes of the file, -1 if it is shorter
+     */
+    private static int readMagic(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = new byte[4];
+            int read = 0;
+            while (read < magic.length) {
+                int count = in.read(magic, read, magic.length - read);
+                if (count < 0) {
+                    return -1;
+                }
+                read += count;
+            }
+            return (magic[0] & 0xFF) << 24 | (magic[1] & 0xFF) << 16 | (magic[2] & 0xFF) << 8 | (magic[3] & 0xFF);
+        }
+    }
+
+    private int removeStale(Set<Path> exported) throws IOException {
+        if (!Files.isDirectory(exportDir)) {
+            return 0;
+        }
+        List<Path> stale;
+        try (Stream<Path> stream = Files.walk(exportDir)) {
+            stale = stream.filter(path -> Files.isRegularFile(path) && !exported.contains(path))
+                    .collect(Collectors.toList());
+        }
+        for (Path path : stale) {
+            Files.delete(path);
+        }
+        return stale.size();
+    }
+
+    /**
+     * The chunks of a scene reference materials and textures of the project,
+     * they are loaded from the assets folder and the classpath.
+     */
+    private AssetManager getAssetManager() {
+        if (assetManager == null) {
+            assetManager = new DesktopAssetManager(true);
+            assetManager.registerLocator(assetsDir.toAbsolutePath().toString(), FileLocator.class);
+        }
+        return assetManager;
+    }
+}
@@ -33,14 +33,21 @@ package com.jme3.gde.core.assets;
 
 import com.jme3.asset.AssetKey;
 import com.jme3.asset.ModelKey;
+import com.jme3.gde.core.scene.SceneApplication;
 import com.jme3.gde.core.util.SpatialUtil;
+import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
-import java.util.logging.Logger;
 import org.openide.DialogDisplayer;
 import org.openide.NotifyDescriptor;
 import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
 import org.openide.loaders.DataObject;
 import org.openide.loaders.DataObjectExistsException;
 import org.openide.loaders.MultiFileLoader;
@@ -52,6 +59,8 @@ import org.openide.loaders.MultiFileLoader;
 @SuppressWarnings({"unchecked", "rawtypes"})
 public class SpatialAssetDataObject extends AssetDataObject {
 
+    private ChunkedScene chunkedScene;
+
     public SpatialAssetDataObject(FileObject pf, MultiFileLoader loader) throws DataObjectExistsException, IOException {
         super(pf, loader);
         saveExtension = "j3o";
@@ -91,38 +100,140 @@ public class SpatialAssetDataObject extends AssetDataObject {
         try {
             listListener.start();
             Spatial spatial = mgr.loadModel(getAssetKey());
-            listListener.stop();
             if (!(this instanceof BinaryModelDataObject)) {
                 SpatialUtil.storeOriginalPathUserData(spatial);
             }
             savable = spatial;
+            mgr.pinAssets(this, assetKeyList);
+            openChunkedScene(mgr, spatial);
             logger.log(Level.INFO, "Loaded asset {0}", getName());
             return spatial;
         } catch (Exception ex) {
-            logger.log(Level.SEVERE, "An Exception has occured when trying to load asset {0}", getName());
-            logger.log(Level.SEVERE, ex.getMessage(), ex);
+            if (listListener.isCancelled()) {
+                logger.log(Level.INFO, "Loading of {0} cancelled", getName());
+            } else {
+                logger.log(Level.SEVERE, "An Exception has occured when trying to load asset {0}", getName());
+                logger.log(Level.SEVERE, ex.getMessage(), ex);
+            }
+        } finally {
+            listListener.stop();
         }
         return null;
     }
 
+    private void openChunkedScene(ProjectAssetManager mgr, Spatial spatial) throws IOException {
+        File file = FileUtil.toFile(getPrimaryFile());
+        if (file != null && ChunkedScene.isChunked(file)) {
+            chunkedScene = ChunkedScene.open(file, mgr);
+            chunkedScene.attach(spatial);
+        } else {
+            chunkedScene = null;
+        }
+    }
+
     @Override
-    public synchronized void saveAsset() throws IOException {
-        super.saveAsset();
+    protected synchronized ChunkedScene getChunkedScene() {
+        return chunkedScene;
+    }
+
+    /**
+     * @return true if the file is stored as chunked scene
+     */
+    public synchronized boolean isChunked() {
+        return chunkedScene != null;
+    }
+
+    /**
+     * Sets if the file is stored as chunked scene, the file is converted
+     * the next time the asset is saved. When switching back to a plain file
+     * all chunks that were not streamed in yet are loaded first, otherwise
+     * their empty placeholders would be saved. Must not be called on the EDT
+     * because the chunks are attached on the render thread.
+     *
+     * @param chunked true to save the file as chunked scene
+     * @throws IOException if a chunk could not be loaded, the file stays
+     * chunked then
+     */
+    public void setChunked(boolean chunked) throws IOException {
+        ChunkedScene scene;
+        synchronized (this) {
+            File file = FileUtil.toFile(getPrimaryFile());
+            ProjectAssetManager mgr = getLookup().lookup(ProjectAssetManager.class);
+            if (chunked) {
+                if (chunkedScene == null && file != null && mgr != null) {
+                    chunkedScene = ChunkedScene.create(file, mgr);
+                }
+                return;
+            }
+            scene = chunkedScene;
+        }
+        if (scene == null) {
+            return;
+        }
+        loadChunks();
+        synchronized (this) {
+            if (chunkedScene == scene) {
+                chunkedScene = null;
+            }
+        }
+    }
+
+    /**
+     * Replaces the placeholders of all chunks that were not streamed in yet
+     * by their content, on the render thread as the scene may be open in the
+     * editor. Does not hold the lock of this object while waiting for it.
+     */
+    private void loadChunks() throws IOException {
+        final Spatial root;
+        synchronized (this) {
+            root = (Spatial) savable;
+        }
+        if (!(root instanceof Node)) {
+            return;
+        }
+        Callable<Void> load = () -> {
+            for (Spatial child : ((Node) root).getChildren()) {
+                ChunkStreamingControl control = child.getControl(ChunkStreamingControl.class);
+                if (control != null) {
+                    control.load();
+                }
+            }
+            return null;
+        };
+        SceneApplication app = SceneApplication.getApplication();
+        try {
+            if (app.isOgl()) {
+                load.call();
+            } else {
+                app.enqueue(load).get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading the chunks of " + getName());
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException("Could not load the chunks of " + getName(), ex.getCause());
+        } catch (IOException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException("Could not load the chunks of " + getName(), ex);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Spatial> loadAssetAsync() {
+        return loadAssetAsync(this::loadAsset);
+    }
+
+    @Override
+    protected void assetSaved(FileObject outFile) {
         ProjectAssetManager mgr = getLookup().lookup(ProjectAssetManager.class);
         if (mgr == null) {
             DialogDisplayer.getDefault().notifyLater(new NotifyDescriptor.Message("File is not part of a project!\nCannot load without ProjectAssetManager."));
             return;
         }
-        FileObject outFile = null;
-        if (saveExtension == null) {
-            outFile = getPrimaryFile();
-        } else {
-            outFile = getPrimaryFile().getParent().getFileObject(getPrimaryFile().getName(), saveExtension);
-            if (outFile == null) {
-                Logger.getLogger(SpatialAssetDataObject.class.getName()).log(Level.SEVERE, "Could not locate saved file.");
-                return;
-            }
-        }
         try {
             DataObject targetModel = DataObject.find(outFile);
             AssetData properties = targetModel.getLookup().lookup(AssetData.class);
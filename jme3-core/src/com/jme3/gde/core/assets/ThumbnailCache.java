@@ -0,0 +1,628 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets;
+
+import com.jme3.gde.core.Installer;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+import org.openide.filesystems.FileObject;
+import org.openide.modules.Places;
+import org.openide.util.NbPreferences;
+
+/**
+ * Persistent cache for asset thumbnails, shared by all projects and editors of
+ * the SDK.<br>
+ * Thumbnails are keyed by a content hash of the asset and all assets it
+ * references (see {@link #computeKey(ProjectAssetManager, String, String)}),
+ * so a thumbnail stays valid as long as neither the asset nor any of its
+ * dependencies change, no matter where the asset is located. Each key can
+ * hold thumbnails in multiple sizes.<br>
+ * All thumbnails are stored in one pack file in the cache directory of the
+ * SDK. When the pack file grows beyond the disk budget the least recently used
+ * thumbnails are dropped.
+ */
+public class ThumbnailCache {
+
+    private static final Logger logger = Logger.getLogger(ThumbnailCache.class.getName());
+    /**
+     * Preference key for the disk budget of the cache in megabytes.
+     */
+    public static final String PREF_DISK_BUDGET = "thumbnail_cache_budget";
+    private static final long DEFAULT_DISK_BUDGET = 256;
+    private static final String PACK_FILE = "jmonkeyengine/thumbnails.pack";
+    private static final int MAGIC = 0x4A4D5443;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final byte RECORD_THUMBNAIL = 1;
+    private static final byte RECORD_STAMP = 2;
+    /**
+     * After compacting, the pack file is filled to this fraction of the
+     * budget so it is not compacted again with the next thumbnail.
+     */
+    private static final float COMPACT_FILL = 0.75f;
+    private static ThumbnailCache defaultCache;
+
+    private final File file;
+    private RandomAccessFile pack;
+    private long diskBudget;
+    /**
+     * Thumbnail locations in access order, the eldest entry is the least
+     * recently used one.
+     */
+    private final LinkedHashMap<String, Location> thumbnails = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, FileStamp> stamps = new HashMap<>();
+
+    /**
+     * @return the thumbnail cache of the SDK
+     */
+    public static synchronized ThumbnailCache getDefault() {
+        if (defaultCache == null) {
+            long budget = NbPreferences.forModule(Installer.class).getLong(PREF_DISK_BUDGET, DEFAULT_DISK_BUDGET);
+            defaultCache = new ThumbnailCache(Places.getCacheSubfile(PACK_FILE), budget * 1024 * 1024);
+        }
+        return defaultCache;
+    }
+
+    ThumbnailCache(File file, long diskBudget) {
+        this.file = file;
+        this.diskBudget = diskBudget;
+        open();
+    }
+
+    private synchronized void open() {
+        try {
+            File parent = file.getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            pack = new RandomAccessFile(file, "rw");
+            if (pack.length() < HEADER_SIZE || pack.readInt() != MAGIC || pack.readInt() != VERSION) {
+                pack.setLength(0);
+                pack.writeInt(MAGIC);
+                pack.writeInt(VERSION);
+                return;
+            }
+            readIndex();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not open thumbnail cache " + file, ex);
+            closePack();
+        }
+    }
+
+    /**
+     * Builds the index by reading all record headers, records written later
+     * replace earlier ones. A truncated record at the end (e.g. from a crash)
+     * is cut off.
+     */
+    private void readIndex() throws IOException {
+        long length = pack.length();
+        pack.seek(HEADER_SIZE);
+        // the stream shares the file position and must not be closed
+        CountingInputStream counter = new CountingInputStream(
+                new BufferedInputStream(Channels.newInputStream(pack.getChannel())), HEADER_SIZE);
+        DataInputStream in = new DataInputStream(counter);
+        long position = HEADER_SIZE;
+        try {
+            while (position < length) {
+                byte type = in.readByte();
+                if (type == RECORD_THUMBNAIL) {
+                    String key = in.readUTF();
+                    int width = in.readShort() & 0xFFFF;
+                    int height = in.readShort() & 0xFFFF;
+                    int size = in.readInt();
+                    long offset = counter.position;
+                    if (size < 0 || offset + size > length) {
+                        throw new EOFException();
+                    }
+                    counter.skipFully(size);
+                    thumbnails.put(thumbnailKey(key, width, height), new Location(key, width, height, offset, size));
+                } else if (type == RECORD_STAMP) {
+                    FileStamp stamp = readStamp(in);
+                    stamps.put(stamp.url, stamp);
+                } else {
+                    throw new EOFException();
+                }
+                position = counter.position;
+            }
+        } catch (EOFException ex) {
+            logger.log(Level.INFO, "Thumbnail cache truncated at {0}", position);
+            pack.setLength(position);
+        }
+        logger.log(Level.FINE, "Thumbnail cache opened with {0} thumbnails", thumbnails.size());
+    }
+
+    private static FileStamp readStamp(DataInput in) throws IOException {
+        String url = in.readUTF();
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        String hash = in.readUTF();
+        int count = in.readInt();
+        List<String> dependencies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            dependencies.add(in.readUTF());
+        }
+        return new FileStamp(url, size, lastModified, hash, dependencies);
+    }
+
+    private static void writeStamp(DataOutputStream out, FileStamp stamp) throws IOException {
+        out.writeByte(RECORD_STAMP);
+        out.writeUTF(stamp.url);
+        out.writeLong(stamp.size);
+        out.writeLong(stamp.lastModified);
+        out.writeUTF(stamp.hash);
+        out.writeInt(stamp.dependencies.size());
+        for (String dependency : stamp.dependencies) {
+            out.writeUTF(dependency);
+        }
+    }
+
+    private void closePack() {
+        if (pack != null) {
+            try {
+                pack.close();
+            } catch (IOException ex) {
+                logger.log(Level.FINE, "Could not close thumbnail cache", ex);
+            }
+            pack = null;
+        }
+    }
+
+    /**
+     * Computes the cache key for an asset. The key is a hash over the content
+     * of the asset and, transitively, of all assets it references (e.g. the
+     * textures and material definition of a j3m or the materials and
+     * textures of a j3o). File hashes are remembered by size and modification
+     * time, so only changed files are read again.<br>
+     * This method reads files and should not be called on the EDT.
+     *
+     * @param assetManager the asset manager used to resolve the asset and its
+     * dependencies
+     * @param assetName the name of the asset
+     * @param variant describes how the thumbnail is rendered (e.g. the
+     * preview mesh), thumbnails of different variants get different keys
+     * @return the key or null if the asset could not be found
+     */
+    public String computeKey(ProjectAssetManager assetManager, String assetName, String variant) {
+        FileObject file = assetManager.getAssetFileObject(assetName);
+        if (file == null) {
+            return null;
+        }
+        MessageDigest digest = createDigest();
+        digest.update(variant.getBytes(StandardCharsets.UTF_8));
+        hashAsset(assetManager, assetName, file, digest, new HashSet<>());
+        return toHex(digest.digest());
+    }
+
+    private void hashAsset(ProjectAssetManager assetManager, String assetName, FileObject file, MessageDigest digest, Set<String> visited) {
+        if (!visited.add(assetName)) {
+            return;
+        }
+        digest.update(assetName.getBytes(StandardCharsets.UTF_8));
+        if (file == null) {
+            // missing dependencies are part of the key too, so the thumbnail
+            // is updated once they are added
+            digest.update((byte) 0);
+            return;
+        }
+        FileStamp stamp = getStamp(file);
+        if (stamp == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        digest.update(stamp.hash.getBytes(StandardCharsets.UTF_8));
+        for (String dependency : stamp.dependencies) {
+            hashAsset(assetManager, dependency, assetManager.getAssetFileObject(dependency), digest, visited);
+        }
+    }
+
+    private FileStamp getStamp(FileObject file) {
+        String url = file.toURL().toExternalForm();
+        long size = file.getSize();
+        long lastModified = file.lastModified().getTime();
+        synchronized (this) {
+            FileStamp stamp = stamps.get(url);
+            if (stamp != null && stamp.size == size && stamp.lastModified == lastModified) {
+                return stamp;
+            }
+        }
+        try {
+            MessageDigest digest = createDigest();
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = file.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            List<String> dependencies = new ArrayList<>(AssetDependencyScanner.scanDependencies(file));
+            FileStamp stamp = new FileStamp(url, size, lastModified, toHex(digest.digest()), dependencies);
+            synchronized (this) {
+                stamps.put(url, stamp);
+                append(stamp, null);
+            }
+            return stamp;
+        } catch (IOException ex) {
+            logger.log(Level.FINE, "Could not hash " + file, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Gets a thumbnail from the cache.
+     *
+     * @param key the key from computeKey()
+     * @param width the width of the thumbnail
+     * @param height the height of the thumbnail
+     * @return the thumbnail or null if it is not cached
+     */
+    public BufferedImage get(String key, int width, int height) {
+        if (key == null) {
+            return null;
+        }
+        byte[] bytes;
+        synchronized (this) {
+            Location location = thumbnails.get(thumbnailKey(key, width, height));
+            if (location == null || pack == null) {
+                return null;
+            }
+            bytes = new byte[location.length];
+            try {
+                pack.seek(location.offset);
+                pack.readFully(bytes);
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not read thumbnail", ex);
+                thumbnails.remove(thumbnailKey(key, width, height));
+                return null;
+            }
+        }
+        try {
+            return ImageIO.read(new ByteArrayInputStream(bytes));
+        } catch (IOException ex) {
+            logger.log(Level.FINE, "Could not decode thumbnail", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a thumbnail in the cache, it replaces a thumbnail with the same
+     * key and size.
+     *
+     * @param key the key from computeKey()
+     * @param image the thumbnail
+     */
+    public void put(String key, BufferedImage image) {
+        if (key == null || image == null) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        try {
+            ImageIO.write(image, "png", bytes);
+        } catch (IOException ex) {
+            logger.log(Level.FINE, "Could not encode thumbnail", ex);
+            return;
+        }
+        synchronized (this) {
+            append(new Location(key, image.getWidth(), image.getHeight(), 0, bytes.size()), bytes.toByteArray());
+            if (pack != null && getPackSize() > diskBudget) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Appends a record to the pack file, either a file stamp or a thumbnail.
+     */
+    private void append(Object record, byte[] data) {
+        if (pack == null) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(data != null ? data.length + 64 : 256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            long start = pack.length();
+            if (record instanceof FileStamp) {
+                writeStamp(out, (FileStamp) record);
+            } else {
+                Location location = (Location) record;
+                writeThumbnailHeader(out, location);
+                out.flush();
+                location.offset = start + bytes.size();
+                out.write(data);
+                thumbnails.put(thumbnailKey(location.key, location.width, location.height), location);
+            }
+            out.flush();
+            pack.seek(start);
+            pack.write(bytes.toByteArray());
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not write thumbnail cache", ex);
+            closePack();
+        }
+    }
+
+    private static void writeThumbnailHeader(DataOutputStream out, Location location) throws IOException {
+        out.writeByte(RECORD_THUMBNAIL);
+        out.writeUTF(location.key);
+        out.writeShort(location.width);
+        out.writeShort(location.height);
+        out.writeInt(location.length);
+    }
+
+    private long getPackSize() {
+        try {
+            return pack.length();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Rewrites the pack file without replaced records and without the least
+     * recently used thumbnails that exceed the budget. Thumbnails are written
+     * from least to most recently used, so the order survives a restart.
+     */
+    private void compact() {
+        File temp = new File(file.getPath() + ".tmp");
+        long limit = (long) (diskBudget * COMPACT_FILL);
+        List<Location> kept = new ArrayList<>();
+        long used = 0;
+        List<Location> newestFirst = new ArrayList<>(thumbnails.values());
+        Collections.reverse(newestFirst);
+        for (Location location : newestFirst) {
+            used += location.length + location.key.length() + 16;
+            if (used > limit) {
+                break;
+            }
+            kept.add(location);
+        }
+        Collections.reverse(kept);
+        Map<String, Location> moved = new LinkedHashMap<>();
+        try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+            out.setLength(0);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+            DataOutputStream data = new DataOutputStream(bytes);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            for (FileStamp stamp : stamps.values()) {
+                writeStamp(data, stamp);
+            }
+            data.flush();
+            out.write(bytes.toByteArray());
+            for (Location location : kept) {
+                byte[] image = new byte[location.length];
+                pack.seek(location.offset);
+                pack.readFully(image);
+                bytes.reset();
+                writeThumbnailHeader(data, location);
+                data.flush();
+                Location copy = new Location(location.key, location.width, location.height,
+                        out.getFilePointer() + bytes.size(), location.length);
+                out.write(bytes.toByteArray());
+                out.write(image);
+                moved.put(thumbnailKey(copy.key, copy.width, copy.height), copy);
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not compact thumbnail cache", ex);
+            temp.delete();
+            return;
+        }
+        closePack();
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            pack = new RandomAccessFile(file, "rw");
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not replace thumbnail cache", ex);
+            open();
+            return;
+        }
+        logger.log(Level.FINE, "Compacted thumbnail cache, dropped {0} thumbnails", thumbnails.size() - moved.size());
+        thumbnails.clear();
+        thumbnails.putAll(moved);
+    }
+
+    /**
+     * Removes file stamps of files that no longer exist from memory, they are
+     * dropped from the pack file the next time it is compacted.
+     */
+    public synchronized void pruneStamps(Set<String> existingUrls) {
+        for (Iterator<String> it = stamps.keySet().iterator(); it.hasNext();) {
+            if (!existingUrls.contains(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the disk budget in bytes
+     */
+    public synchronized long getDiskBudget() {
+        return diskBudget;
+    }
+
+    /**
+     * Sets the maximum size of the pack file, the cache is compacted
+     * immediately if it is larger.
+     *
+     * @param diskBudget the disk budget in bytes
+     */
+    public synchronized void setDiskBudget(long diskBudget) {
+        this.diskBudget = diskBudget;
+        if (this == defaultCache) {
+            NbPreferences.forModule(Installer.class).putLong(PREF_DISK_BUDGET, diskBudget / (1024 * 1024));
+        }
+        if (pack != null && getPackSize() > diskBudget) {
+            compact();
+        }
+    }
+
+    /**
+     * @return the number of thumbnails in the cache
+     */
+    public synchronized int size() {
+        return thumbnails.size();
+    }
+
+    private static String thumbnailKey(String key, int width, int height) {
+        return key + '@' + width + 'x' + height;
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static class Location {
+
+        final String key;
+        final int width;
+        final int height;
+        long offset;
+        final int length;
+
+        Location(String key, int width, int height, long offset, int length) {
+            this.key = key;
+            this.width = width;
+            this.height = height;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Keeps track of the file position while the index is read through a
+     * buffer.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        long position;
+
+        CountingInputStream(InputStream in, long position) {
+            super(in);
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                position++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            position += skipped;
+            return skipped;
+        }
+
+        void skipFully(long n) throws IOException {
+            while (n > 0) {
+                long skipped = skip(n);
+                if (skipped <= 0) {
+                    if (read() == -1) {
+                        throw new EOFException();
+                    }
+                    skipped = 1;
+                }
+                n -= skipped;
+            }
+        }
+    }
+
+    private static class FileStamp {
+
+        final String url;
+        final long size;
+        final long lastModified;
+        final String hash;
+        final List<String> dependencies;
+
+        FileStamp(String url, long size, long lastModified, String hash, List<String> dependencies) {
+            this.url = url;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets.actions;
+
+import com.jme3.gde.core.assets.AssetCacheTracker;
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.Timer;
+import org.openide.util.NbBundle;
+
+/**
+ * Shows the statistics of the asset caches of all open projects and allows
+ * setting the cache budget. The values are refreshed once a second while the
+ * panel is showing.
+ */
+public class AssetCachePanel extends JPanel {
+
+    private static final int REFRESH_INTERVAL = 1000;
+    private final JLabel residentLabel = new JLabel();
+    private final JLabel assetsLabel = new JLabel();
+    private final JLabel hitsLabel = new JLabel();
+    private final JLabel missesLabel = new JLabel();
+    private final JLabel hitRateLabel = new JLabel();
+    private final JLabel evictionsLabel = new JLabel();
+    private final JSpinner budgetSpinner;
+    private final Timer timer = new Timer(REFRESH_INTERVAL, (ActionEvent e) -> refresh());
+
+    public AssetCachePanel() {
+        super(new GridLayout(0, 2, 12, 4));
+        setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+        long budgetMB = AssetCacheTracker.getBudget() / (1024 * 1024);
+        budgetSpinner = new JSpinner(new SpinnerNumberModel((int) budgetMB, 16, 65536, 64));
+        budgetSpinner.addChangeListener(e -> AssetCacheTracker.setBudget(
+                ((Number) budgetSpinner.getValue()).longValue() * 1024 * 1024));
+        addRow("LBL_ResidentSize", residentLabel);
+        addRow("LBL_CachedAssets", assetsLabel);
+        addRow("LBL_CacheHits", hitsLabel);
+        addRow("LBL_CacheMisses", missesLabel);
+        addRow("LBL_HitRate", hitRateLabel);
+        addRow("LBL_Evictions", evictionsLabel);
+        add(new JLabel(NbBundle.getMessage(AssetCachePanel.class, "LBL_CacheBudget")));
+        add(budgetSpinner);
+        refresh();
+    }
+
+    private void addRow(String labelKey, JLabel valueLabel) {
+        add(new JLabel(NbBundle.getMessage(AssetCachePanel.class, labelKey)));
+        add(valueLabel);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refresh();
+        timer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        timer.stop();
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        AssetCacheTracker.Statistics stats = AssetCacheTracker.getTotalStatistics();
+        long requests = stats.getHits() + stats.getMisses();
+        residentLabel.setText(String.format("%.1f MB", stats.getResidentBytes() / (1024f * 1024f)));
+        assetsLabel.setText(stats.getAssetCount() + " (" + stats.getPinnedCount() + " in use)");
+        hitsLabel.setText(Long.toString(stats.getHits()));
+        missesLabel.setText(Long.toString(stats.getMisses()));
+        hitRateLabel.setText(requests == 0 ? "-" : String.format("%.1f %%", stats.getHits() * 100f / requests));
+        evictionsLabel.setText(Long.toString(stats.getEvictions()));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.assets.actions;
+
+import com.jme3.export.binary.BinaryImporter;
+import com.jme3.gde.core.assets.BinaryModelDataObject;
+import com.jme3.gde.core.assets.CompressedBinaryLoader;
+import com.jme3.gde.core.assets.ProjectAssetManager;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.progress.ProgressHandle;
+import org.openide.DialogDisplayer;
+import org.openide.NotifyDescriptor;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionRegistration;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Compares loading a j3o file through its input stream with loading it
+ * through a memory mapping. Both ways are run a few times after a warm up,
+ * the average time and heap allocation are written to the Application log.
+ */
+@ActionID(category = "File",
+id = "com.jme3.gde.core.assets.actions.BenchmarkModelLoading")
+@ActionRegistration(displayName = "#CTL_BenchmarkModelLoading")
+@ActionReference(path = "Loaders/application/jme3model/Actions", position = 1150)
+public final class BenchmarkModelLoading implements ActionListener {
+
+    private static final Logger logger = Logger.getLogger(BenchmarkModelLoading.class.getName());
+    private static final int ROUNDS = 5;
+    private final BinaryModelDataObject context;
+
+    public BenchmarkModelLoading(BinaryModelDataObject context) {
+        this.context = context;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent ev) {
+        final ProjectAssetManager manager = context.getLookup().lookup(ProjectAssetManager.class);
+        final File file = FileUtil.toFile(context.getPrimaryFile());
+        if (manager == null || file == null) {
+            DialogDisplayer.getDefault().notifyLater(new NotifyDescriptor.Message("Only files on disk that are part of a project can be benchmarked."));
+            return;
+        }
+        RequestProcessor.getDefault().post(() -> {
+            ProgressHandle progressHandle = ProgressHandle.createHandle("Benchmarking " + file.getName());
+            progressHandle.start(ROUNDS * 2 + 2);
+            try {
+                //warm up, also puts referenced textures into the cache
+                loadStream(manager);
+                progressHandle.progress(1);
+                loadMapped(manager, file);
+                progressHandle.progress(2);
+                Measurement stream = new Measurement();
+                Measurement mapped = new Measurement();
+                for (int i = 0; i < ROUNDS; i++) {
+                    stream.start();
+                    loadStream(manager);
+                    stream.stop();
+                    progressHandle.progress(3 + i * 2);
+                    mapped.start();
+                    loadMapped(manager, file);
+                    mapped.stop();
+                    progressHandle.progress(4 + i * 2);
+                }
+                logger.log(Level.INFO, "Loading {0} ({1} KB), average of {2} rounds:\n"
+                        + "  stream: {3} ms, {4} KB allocated\n"
+                        + "  mapped: {5} ms, {6} KB allocated",
+                        new Object[]{file.getName(), file.length() / 1024, ROUNDS,
+                            stream.getTime(), stream.getAllocated() / 1024,
+                            mapped.getTime(), mapped.getAllocated() / 1024});
+            } catch (IOException | RuntimeException ex) {
+                logger.log(Level.WARNING, "Benchmark of " + file.getName() + " failed", ex);
+            } finally {
+                progressHandle.finish();
+            }
+        });
+    }
+
+    private void loadStream(ProjectAssetManager manager) throws IOException {
+        BinaryImporter importer = new BinaryImporter();
+        importer.setAssetManager(manager);
+        try (InputStream in = context.getPrimaryFile().getInputStream()) {
+            importer.load(in);
+        }
+    }
+
+    private void loadMapped(ProjectAssetManager manager, File file) throws IOException {
+        BinaryImporter importer = new BinaryImporter();
+        importer.setAssetManager(manager);
+        if (CompressedBinaryLoader.loadMapped(importer, file) == null) {
+            throw new IOException("Compressed and chunked files cannot be memory mapped");
+        }
+    }
+
+    /**
+     * Sums up the time and the heap allocated by the current thread.
+     */
+    private static class Measurement {
+
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private long time;
+        private long allocated;
+        private long startTime;
+        private long startAllocated;
+        private int count;
+
+        void start() {
+            startAllocated = getAllocatedBytes();
+            startTime = System.nanoTime();
+        }
+
+        void stop() {
+            time += System.nanoTime() - startTime;
+            allocated += getAllocatedBytes() - startAllocated;
+            count++;
+        }
+
+        long getTime() {
+            return time / count / 1000000;
+        }
+
+        long getAllocated() {
+            return allocated / count;
+        }
+
+        private long getAllocatedBytes() {
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+            return 0;
+        }
+    }
+}
@@ -41,7 +41,7 @@ import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import org.netbeans.api.progress.ProgressHandle;
+import java.util.concurrent.CancellationException;
 import org.openide.DialogDisplayer;
 import org.openide.NotifyDescriptor;
 
@@ -58,41 +58,25 @@ public final class OpenModel implements ActionListener {
         if (manager == null) {
             return;
         }
-        Runnable call = new Runnable() {
-
-            public void run() {
-                ProgressHandle progressHandle = ProgressHandle.createHandle("Opening Model");
-                progressHandle.start();
-                try {
-                    manager.clearCache();
-
-                    final Spatial asset = context.loadAsset();
-
-                    if (asset != null) {
-                        Node node = null;
-                        if (asset instanceof Node) {
-                            node = (Node) asset;
-                        } else {
-                            node = new Node("RootNode");
-                            node.attachChild(asset);
-                        }
-                        JmeNode jmeNode = NodeUtility.createNode(node);
-                        SceneApplication app = SceneApplication.getApplication();
-                        SceneRequest request = new SceneRequest(app, jmeNode, manager);
-                        request.setDataObject(context);
-                        request.setWindowTitle("OpenGL Window - View Model");
-                        app.openScene(request);
-                    } else {
-                        DialogDisplayer.getDefault().notifyLater(new NotifyDescriptor.Message("Error opening " + context.getPrimaryFile().getNameExt(), NotifyDescriptor.ERROR_MESSAGE));
-                    }
-                }catch(Exception e){
-                    e.printStackTrace();
-                }finally {
-                    progressHandle.finish();
+        manager.clearCache();
+        context.loadAssetAsync().whenComplete((asset, error) -> {
+            if (asset != null) {
+                Node node = null;
+                if (asset instanceof Node) {
+                    node = (Node) asset;
+                } else {
+                    node = new Node("RootNode");
+                    node.attachChild(asset);
                 }
+                JmeNode jmeNode = NodeUtility.createNode(node);
+                SceneApplication app = SceneApplication.getApplication();
+                SceneRequest request = new SceneRequest(app, jmeNode, manager);
+                request.setDataObject(context);
+                request.setWindowTitle("OpenGL Window - View Model");
+                app.openScene(request);
+            } else if (!(error instanceof CancellationException)) {
+                DialogDisplayer.getDefault().notifyLater(new NotifyDescriptor.Message("Error opening " + context.getPrimaryFile().getNameExt(), NotifyDescriptor.ERROR_MESSAGE));
             }
-        };
-        new Thread(call).start();
-
+        });
     }
 }
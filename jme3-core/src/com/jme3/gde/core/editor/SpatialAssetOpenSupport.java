@@ -4,7 +4,6 @@
  */
 package com.jme3.gde.core.editor;
 
-import com.jme3.gde.core.assets.AssetData;
 import com.jme3.gde.core.assets.SpatialAssetDataObject;
 import com.jme3.light.DirectionalLight;
 import com.jme3.scene.Spatial;
@@ -57,11 +56,12 @@ public class SpatialAssetOpenSupport extends OpenSupport implements OpenCookie,
                                     tc.repaint();
                                 }
                             });
-                            Spatial spat = (Spatial) dataObject.getLookup().lookup(AssetData.class).loadAsset();
-                            if (spat != null) {
-                                app.getRootNode().attachChild(spat);
-                                app.getRootNode().addLight(new DirectionalLight());
-                            }
+                            //load in the background, only attach on the render thread
+                            final SceneApplication sceneApp = app;
+                            dataObject.loadAssetAsync().thenAccept((Spatial spat) -> sceneApp.enqueue(() -> {
+                                sceneApp.getRootNode().attachChild(spat);
+                                sceneApp.getRootNode().addLight(new DirectionalLight());
+                            }));
                             dataObject.getLookupContents().add(app);
 //                            progressHandle.finish();
                             return null;
@@ -32,6 +32,7 @@
 package com.jme3.gde.core.options;
 
 import com.jme3.gde.core.Installer;
+import com.jme3.gde.core.scene.SceneApplication;
 import org.openide.util.NbPreferences;
 
 /**
@@ -59,6 +60,9 @@ final class OpenGLPanel extends javax.swing.JPanel {
         chkHeavyweightCanvas = new javax.swing.JCheckBox();
         scrollHeavyweight = new javax.swing.JScrollPane();
         txtHeavyweight = new javax.swing.JTextArea();
+        chkRenderOnDemand = new javax.swing.JCheckBox();
+        scrollRenderOnDemand = new javax.swing.JScrollPane();
+        txtRenderOnDemand = new javax.swing.JTextArea();
 
         org.openide.awt.Mnemonics.setLocalizedText(chkHeavyweightCanvas, org.openide.util.NbBundle.getMessage(OpenGLPanel.class, "OpenGLPanel.text")); // NOI18N
         chkHeavyweightCanvas.setName(""); // NOI18N
@@ -72,6 +76,17 @@ final class OpenGLPanel extends javax.swing.JPanel {
         txtHeavyweight.setDisabledTextColor(new java.awt.Color(0, 0, 0));
         scrollHeavyweight.setViewportView(txtHeavyweight);
 
+        org.openide.awt.Mnemonics.setLocalizedText(chkRenderOnDemand, org.openide.util.NbBundle.getMessage(OpenGLPanel.class, "OpenGLPanel.chkRenderOnDemand.text")); // NOI18N
+
+        txtRenderOnDemand.setEditable(false);
+        txtRenderOnDemand.setColumns(20);
+        txtRenderOnDemand.setLineWrap(true);
+        txtRenderOnDemand.setRows(5);
+        txtRenderOnDemand.setText(org.openide.util.NbBundle.getMessage(OpenGLPanel.class, "OpenGLPanel.txtRenderOnDemand.text")); // NOI18N
+        txtRenderOnDemand.setWrapStyleWord(true);
+        txtRenderOnDemand.setDisabledTextColor(new java.awt.Color(0, 0, 0));
+        scrollRenderOnDemand.setViewportView(txtRenderOnDemand);
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -80,8 +95,11 @@ final class OpenGLPanel extends javax.swing.JPanel {
                 .addContainerGap()
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                     .addComponent(scrollHeavyweight, javax.swing.GroupLayout.DEFAULT_SIZE, 380, Short.MAX_VALUE)
+                    .addComponent(scrollRenderOnDemand, javax.swing.GroupLayout.DEFAULT_SIZE, 380, Short.MAX_VALUE)
                     .addGroup(layout.createSequentialGroup()
-                        .addComponent(chkHeavyweightCanvas)
+                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                            .addComponent(chkHeavyweightCanvas)
+                            .addComponent(chkRenderOnDemand))
                         .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))))
         );
         layout.setVerticalGroup(
@@ -91,12 +109,17 @@ final class OpenGLPanel extends javax.swing.JPanel {
                 .addComponent(chkHeavyweightCanvas)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(scrollHeavyweight, javax.swing.GroupLayout.PREFERRED_SIZE, 115, javax.swing.GroupLayout.PREFERRED_SIZE)
-                .addContainerGap(181, Short.MAX_VALUE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(chkRenderOnDemand)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(scrollRenderOnDemand, javax.swing.GroupLayout.PREFERRED_SIZE, 115, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addContainerGap(29, Short.MAX_VALUE))
         );
     }// </editor-fold>//GEN-END:initComponents
 
     void load() {
         chkHeavyweightCanvas.setSelected("true".equals(NbPreferences.forModule(Installer.class).get("use_lwjgl_canvas", "false")));
+        chkRenderOnDemand.setSelected("true".equals(NbPreferences.forModule(Installer.class).get(SceneApplication.PREF_RENDER_ON_DEMAND, "false")));
     }
 
     void store() {
@@ -105,6 +128,11 @@ final class OpenGLPanel extends javax.swing.JPanel {
         }else{
             NbPreferences.forModule(Installer.class).put("use_lwjgl_canvas", "false");
         }
+        if(chkRenderOnDemand.isSelected()){
+            NbPreferences.forModule(Installer.class).put(SceneApplication.PREF_RENDER_ON_DEMAND, "true");
+        }else{
+            NbPreferences.forModule(Installer.class).put(SceneApplication.PREF_RENDER_ON_DEMAND, "false");
+        }
     }
 
     boolean valid() {
@@ -113,7 +141,10 @@ final class OpenGLPanel extends javax.swing.JPanel {
     }
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JCheckBox chkHeavyweightCanvas;
+    private javax.swing.JCheckBox chkRenderOnDemand;
     private javax.swing.JScrollPane scrollHeavyweight;
+    private javax.swing.JScrollPane scrollRenderOnDemand;
     private javax.swing.JTextArea txtHeavyweight;
+    private javax.swing.JTextArea txtRenderOnDemand;
     // End of variables declaration//GEN-END:variables
 }
@@ -0,0 +1,320 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.properties;
+
+import com.jme3.material.Material;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compiles the getters, setters and copy methods used by the scene
+ * properties once, so they can be called without reflection. Methods of
+ * classes visible to this module are bound with LambdaMetafactory, methods of
+ * other classes (e.g. from the project classpath) are called through a
+ * MethodHandle. The accessors of classes visible to this module are cached
+ * per class. Accessors of other classes are compiled on each call and kept
+ * only by the caller, SceneExplorerProperty holds them in its fields. A
+ * global cache would keep project classes and their class loader alive, as
+ * the cached functions refer to the class they are keyed on.
+ */
+public final class PropertyAccessor {
+
+    private static final Logger logger = Logger.getLogger(PropertyAccessor.class.getName());
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ClassValue<Map<String, Object>> ACCESSORS = new ClassValue<Map<String, Object>>() {
+        @Override
+        protected Map<String, Object> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final ClassValue<Boolean> VISIBLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isVisible(type);
+        }
+    };
+    private static final ClassValue<Boolean> COMPARABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            if (Material.class.isAssignableFrom(type)) {
+                return true;
+            }
+            try {
+                return type.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException ex) {
+                return false;
+            }
+        }
+    };
+    private static final ClassValue<Optional<Function<Object, Object>>> CLONERS = new ClassValue<Optional<Function<Object, Object>>>() {
+        @Override
+        protected Optional<Function<Object, Object>> computeValue(Class<?> type) {
+            return compileCloner(type);
+        }
+    };
+    private static final ClassValue<Optional<Function<Object, Object>>> COPIERS = new ClassValue<Optional<Function<Object, Object>>>() {
+        @Override
+        protected Optional<Function<Object, Object>> computeValue(Class<?> type) {
+            return compileCopier(type);
+        }
+    };
+
+    private PropertyAccessor() {
+    }
+
+    /**
+     * @param method a public getter without parameters
+     * @return a function calling the getter on the bean passed to it
+     */
+    public static Function<Object, Object> getter(Method method) {
+        if (!VISIBLE.get(method.getDeclaringClass())) {
+            return compileGetter(method);
+        }
+        return (Function<Object, Object>) ACCESSORS.get(method.getDeclaringClass())
+                .computeIfAbsent(method.toString(), key -> compileGetter(method));
+    }
+
+    /**
+     * @param method a public setter with one parameter
+     * @return a consumer calling the setter on the bean passed to it
+     */
+    public static BiConsumer<Object, Object> setter(Method method) {
+        if (!VISIBLE.get(method.getDeclaringClass())) {
+            return compileSetter(method);
+        }
+        return (BiConsumer<Object, Object>) ACCESSORS.get(method.getDeclaringClass())
+                .computeIfAbsent(method.toString(), key -> compileSetter(method));
+    }
+
+    /**
+     * @return true if values of the given type can be compared by content,
+     * either by their own equals method or, for materials, by their
+     * parameters
+     */
+    public static boolean isComparable(Class<?> type) {
+        return COMPARABLE.get(type);
+    }
+
+    /**
+     * Compares two values of a comparable type by content.
+     */
+    public static boolean contentEquals(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a instanceof Material) {
+            return ((Material) a).contentEquals(b);
+        }
+        return a.equals(b);
+    }
+
+    /**
+     * Clones the value with its public clone method.
+     *
+     * @return the clone or null if the type cannot be cloned
+     */
+    public static Object cloneValue(Object value) {
+        Class<?> type = value.getClass();
+        Optional<Function<Object, Object>> cloner = VISIBLE.get(type) ? CLONERS.get(type) : compileCloner(type);
+        return cloner.isPresent() ? cloner.get().apply(value) : null;
+    }
+
+    /**
+     * Copies the value using the copy constructor of its type.
+     *
+     * @return the copy or null if the type has no copy constructor
+     */
+    public static Object copyValue(Object value) {
+        Class<?> type = value.getClass();
+        Optional<Function<Object, Object>> copier = VISIBLE.get(type) ? COPIERS.get(type) : compileCopier(type);
+        return copier.isPresent() ? copier.get().apply(value) : null;
+    }
+
+    private static Function<Object, Object> compileGetter(Method method) {
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException ex) {
+            logger.log(Level.FINE, "Cannot access {0}, using reflection", method);
+            return bean -> invoke(method, bean);
+        }
+        if (isVisible(method.getDeclaringClass()) && isVisible(method.getReturnType())) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        handle,
+                        MethodType.methodType(Object.class, method.getDeclaringClass()));
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable t) {
+                logger.log(Level.FINE, "Cannot bind " + method + ", using a method handle", t);
+            }
+        }
+        MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return bean -> {
+            try {
+                return generic.invokeExact(bean);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        };
+    }
+
+    private static BiConsumer<Object, Object> compileSetter(Method method) {
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException ex) {
+            logger.log(Level.FINE, "Cannot access {0}, using reflection", method);
+            return (bean, value) -> invoke(method, bean, value);
+        }
+        Class<?> parameter = method.getParameterTypes()[0];
+        if (isVisible(method.getDeclaringClass()) && isVisible(parameter)) {
+            try {
+                Class<?> boxed = MethodType.methodType(parameter).wrap().returnType();
+                CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        handle,
+                        MethodType.methodType(void.class, method.getDeclaringClass(), boxed));
+                return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+            } catch (Throwable t) {
+                logger.log(Level.FINE, "Cannot bind " + method + ", using a method handle", t);
+            }
+        }
+        MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (bean, value) -> {
+            try {
+                generic.invokeExact(bean, value);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        };
+    }
+
+    private static Optional<Function<Object, Object>> compileCloner(Class<?> type) {
+        try {
+            Method clone = type.getMethod("clone");
+            if (clone.getParameterCount() == 0 && !Modifier.isStatic(clone.getModifiers())) {
+                return Optional.of(getter(clone));
+            }
+        } catch (NoSuchMethodException ex) {
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<Function<Object, Object>> compileCopier(Class<?> type) {
+        try {
+            return Optional.of(compileCopier(type.getConstructor(type)));
+        } catch (NoSuchMethodException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private static Function<Object, Object> compileCopier(Constructor<?> constructor) {
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflectConstructor(constructor)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException ex) {
+            return value -> {
+                try {
+                    return constructor.newInstance(value);
+                } catch (ReflectiveOperationException e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            };
+        }
+        return value -> {
+            try {
+                return handle.invokeExact(value);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        };
+    }
+
+    private static Object invoke(Method method, Object bean, Object... args) {
+        try {
+            return method.invoke(bean, args);
+        } catch (IllegalAccessException ex) {
+            throw new UndeclaredThrowableException(ex);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new UndeclaredThrowableException(ex.getCause());
+        }
+    }
+
+    /**
+     * Classes the generated lambdas refer to have to be loadable from the
+     * class loader of this module.
+     */
+    private static boolean isVisible(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(type.getName(), false, PropertyAccessor.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+}
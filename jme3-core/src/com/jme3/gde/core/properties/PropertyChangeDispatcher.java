@@ -0,0 +1,106 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.properties;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers the change notifications of SceneExplorerProperties on the AWT
+ * thread. All notifications posted until the AWT thread picks them up are
+ * delivered in one event, in the order they were posted. Consecutive scene
+ * changes of one property are merged into a single change from the first old
+ * value to the last new value.
+ */
+final class PropertyChangeDispatcher {
+
+    private static final Object lock = new Object();
+    private static List<Change> pending = new ArrayList<>();
+    private static final Map<SceneExplorerProperty<?>, Change> pendingSceneChanges = new IdentityHashMap<>();
+
+    private PropertyChangeDispatcher() {
+    }
+
+    static void post(SceneExplorerProperty<?> property, String type, Object before, Object after) {
+        synchronized (lock) {
+            boolean sceneChange = SceneExplorerProperty.PROP_SCENE_CHANGE.equals(type);
+            if (sceneChange) {
+                Change previous = pendingSceneChanges.get(property);
+                if (previous != null) {
+                    previous.after = after;
+                    return;
+                }
+            }
+            Change change = new Change(property, type, before, after);
+            if (sceneChange) {
+                pendingSceneChanges.put(property, change);
+            } else {
+                // later scene changes must not be merged into an earlier entry
+                pendingSceneChanges.remove(property);
+            }
+            if (pending.isEmpty()) {
+                EventQueue.invokeLater(PropertyChangeDispatcher::deliver);
+            }
+            pending.add(change);
+        }
+    }
+
+    private static void deliver() {
+        List<Change> changes;
+        synchronized (lock) {
+            changes = pending;
+            pending = new ArrayList<>();
+            pendingSceneChanges.clear();
+        }
+        for (Change change : changes) {
+            change.property.fireChange(change.type, change.before, change.after);
+        }
+    }
+
+    private static class Change {
+
+        final SceneExplorerProperty<?> property;
+        final String type;
+        final Object before;
+        Object after;
+
+        Change(SceneExplorerProperty<?> property, String type, Object before, Object after) {
+            this.property = property;
+            this.type = type;
+            this.before = before;
+            this.after = after;
+        }
+    }
+}
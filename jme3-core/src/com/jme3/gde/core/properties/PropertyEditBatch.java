@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.properties;
+
+import com.jme3.gde.core.scene.SceneApplication;
+import com.jme3.gde.core.undoredo.AbstractUndoableSceneEdit;
+import com.jme3.gde.core.undoredo.SceneUndoRedoManager;
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.Lookup;
+
+/**
+ * Collects the values set on SceneExplorerProperties during one AWT event.
+ * When a property is edited with several nodes selected the property sheet
+ * sets the value on the property of each node in a loop, all of these
+ * values are applied in one render thread task and recorded as a single
+ * undo edit.
+ */
+final class PropertyEditBatch {
+
+    private static final Logger logger = Logger.getLogger(PropertyEditBatch.class.getName());
+    private static PropertyEditBatch current;
+    private final List<Edit> edits = new ArrayList<>();
+
+    private PropertyEditBatch() {
+    }
+
+    /**
+     * Adds a scene value to set. Values added on the AWT thread are applied
+     * when the current AWT event is done, values added on other threads are
+     * applied right away.
+     */
+    static void add(SceneExplorerProperty<?> property, Object value) {
+        if (!EventQueue.isDispatchThread()) {
+            PropertyEditBatch batch = new PropertyEditBatch();
+            batch.edits.add(new Edit(property, value));
+            batch.apply();
+            return;
+        }
+        if (current == null) {
+            current = new PropertyEditBatch();
+            EventQueue.invokeLater(current::apply);
+        }
+        current.edits.add(new Edit(property, value));
+    }
+
+    private void apply() {
+        if (current == this) {
+            current = null;
+        }
+        SceneApplication.getApplication().enqueue(() -> {
+            applyOnScene();
+            return null;
+        });
+    }
+
+    private void applyOnScene() {
+        for (Edit edit : edits) {
+            edit.before = edit.property.applySceneValue(edit.after);
+        }
+        SceneUndoRedoManager undoRedo = Lookup.getDefault().lookup(SceneUndoRedoManager.class);
+        if (undoRedo == null) {
+            logger.log(Level.WARNING, "Cannot access SceneUndoRedoManager. "
+                + "If you are editing properties without having a j3o file open,"
+                + "you wont have undo/redo support!");
+            return;
+        }
+        logger.log(Level.FINE, "Add undo for {0} property changes", edits.size());
+        undoRedo.addEdit(edits.get(0).property, new AbstractUndoableSceneEdit() {
+            @Override
+            public void sceneUndo() {
+                for (int i = edits.size() - 1; i >= 0; i--) {
+                    Edit edit = edits.get(i);
+                    edit.property.notifyListeners(SceneExplorerProperty.PROP_USER_CHANGE, edit.after, edit.before);
+                    edit.property.restoreSceneValue(edit.before);
+                }
+            }
+
+            @Override
+            public void sceneRedo() {
+                for (Edit edit : edits) {
+                    edit.property.notifyListeners(SceneExplorerProperty.PROP_USER_CHANGE, edit.before, edit.after);
+                    edit.property.restoreSceneValue(edit.after);
+                }
+            }
+        });
+    }
+
+    private static class Edit {
+
+        final SceneExplorerProperty<?> property;
+        final Object after;
+        Object before;
+
+        Edit(SceneExplorerProperty<?> property, Object after) {
+            this.property = property;
+            this.after = after;
+        }
+    }
+}
@@ -33,7 +33,6 @@ package com.jme3.gde.core.properties;
 
 import com.jme3.effect.influencers.ParticleInfluencer;
 import com.jme3.effect.shapes.EmitterShape;
-import com.jme3.gde.core.scene.SceneApplication;
 import com.jme3.gde.core.undoredo.AbstractUndoableSceneEdit;
 import com.jme3.gde.core.undoredo.SceneUndoRedoManager;
 import com.jme3.light.Light;
@@ -46,7 +45,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.LinkedList;
-import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openide.nodes.PropertySupport;
@@ -56,8 +56,10 @@ import org.openide.util.Mutex;
 
 /**
  * This class allows editing jME scene values in property sheets in a threadsafe
- * manner. The getter and setter are called via reflection and changes in the
- * properties can be listened for.
+ * manner. The getter and setter are compiled once with PropertyAccessor and
+ * changes in the properties can be listened for. Listeners are notified on the
+ * AWT thread, scene changes that happen before the AWT thread gets to them are
+ * merged.
  *
  * @author normenhansen
  */
@@ -80,15 +82,25 @@ public class SceneExplorerProperty<T> extends PropertySupport.Reflection<T> {
      * and not the initialiation value.
      */
     public static final String PROP_INIT_CHANGE = "PROP_INIT_CHANGE";
-    protected T objectLocal;
-    protected boolean changing = false;
+    /**
+     * Values of types that can only be compared by identity are refreshed
+     * after this many seconds.
+     */
+    protected static final float REFRESH_INTERVAL = 1;
+    protected volatile T objectLocal;
+    protected volatile boolean changing = false;
     protected final boolean cloneable;
     protected final boolean instantiable;
     protected final boolean primitive;
     protected final Mutex mutex = new Mutex();
-    protected boolean inited = false;
+    protected volatile boolean inited = false;
     protected final boolean editable;
     protected LinkedList<ScenePropertyChangeListener> listeners = new LinkedList<ScenePropertyChangeListener>();
+    private final Object bean;
+    private final Function<Object, Object> getterFunction;
+    private final BiConsumer<Object, Object> setterFunction;
+    private volatile Object lastSceneValue;
+    private float refreshTimer;
 
     public SceneExplorerProperty(T instance, Class valueType, String getter, String setter) throws NoSuchMethodException {
         this(instance, valueType, getter, setter, null);
@@ -96,6 +108,9 @@ public class SceneExplorerProperty<T> extends PropertySupport.Reflection<T> {
 
     public SceneExplorerProperty(T instance, Class valueType, String getter, String setter, ScenePropertyChangeListener listener) throws NoSuchMethodException {
         super(instance, valueType, getter, setter);
+        bean = instance;
+        getterFunction = PropertyAccessor.getter(instance.getClass().getMethod(getter));
+        setterFunction = setter != null ? PropertyAccessor.setter(instance.getClass().getMethod(setter, valueType)) : null;
         primitive = isPrimitive(instance, getter);
         if (!primitive) {
             cloneable = canClone(instance, getter);
@@ -136,48 +151,71 @@ public class SceneExplorerProperty<T> extends PropertySupport.Reflection<T> {
      * thread.
      */
     public void syncValue() {
+        syncValue(0);
+    }
+
+    /**
+     * Synchronizes the local value if the scene value changed, has to be
+     * called on render thread. Checking an unchanged value does not lock or
+     * allocate. Values that cannot be compared by content are compared by
+     * identity and refreshed every REFRESH_INTERVAL seconds.
+     *
+     * @param tpf the time since the last sync, 0 refreshes all values
+     */
+    public void syncValue(float tpf) {
+        if (changing) {
+            return;
+        }
+        boolean refresh = tpf == 0;
+        if (!refresh) {
+            refreshTimer += tpf;
+            if (refreshTimer >= REFRESH_INTERVAL) {
+                refreshTimer = 0;
+                refresh = true;
+            }
+        }
         final T realValue = getSuperValue();
-        mutex.readAccess(new Runnable() {
+        if (inited && !isChanged(objectLocal, realValue, refresh)) {
+            return;
+        }
+        final boolean refreshAll = refresh;
+        mutex.postWriteRequest(new Runnable() {
             @Override
             public void run() {
                 if (changing) {
                     return;
                 }
                 if ((objectLocal == null) && !inited) {
-                    mutex.postWriteRequest(new Runnable() {
-                        @Override
-                        public void run() {
-                            inited = true;
-                            objectLocal = duplicateObject(realValue);
-                            notifyListeners(PROP_INIT_CHANGE, null, objectLocal);
-                            logger.log(Level.FINE, "Got first sync duplicate for {0}", objectLocal);
-                        }
-                    });
-                } else if ((objectLocal != null) && !objectLocal.equals(realValue)) {
-                    mutex.postWriteRequest(new Runnable() {
-                        @Override
-                        public void run() {
-                            T oldObject = objectLocal;
-                            T newObject = duplicateObject(realValue);
-                            objectLocal = newObject;
-                            notifyListeners(PROP_SCENE_CHANGE, oldObject, objectLocal);
-                            logger.log(Level.FINE, "Got update for {0} due to equals check", objectLocal);
-                        }
-                    });
+                    inited = true;
+                    objectLocal = duplicateObject(realValue);
+                    notifyListeners(PROP_INIT_CHANGE, null, objectLocal);
+                    logger.log(Level.FINE, "Got first sync duplicate for {0}", objectLocal);
+                } else if ((objectLocal != null) && isChanged(objectLocal, realValue, refreshAll)) {
+                    T oldObject = objectLocal;
+                    T newObject = duplicateObject(realValue);
+                    objectLocal = newObject;
+                    notifyListeners(PROP_SCENE_CHANGE, oldObject, objectLocal);
+                    logger.log(Level.FINE, "Got update for {0} due to equals check", objectLocal);
                 } else if ((objectLocal == null) && (realValue != null)) {
-                    mutex.postWriteRequest(new Runnable() {
-                        @Override
-                        public void run() {
-                            objectLocal = duplicateObject(realValue);
-                            notifyListeners(PROP_SCENE_CHANGE, null, objectLocal);
-                            logger.log(Level.FINE, "Got update for {0} due to change from null", objectLocal);
-                        }
-                    });
+                    objectLocal = duplicateObject(realValue);
+                    notifyListeners(PROP_SCENE_CHANGE, null, objectLocal);
+                    logger.log(Level.FINE, "Got update for {0} due to change from null", objectLocal);
                 }
+                lastSceneValue = realValue;
             }
         });
     }
 
+    private boolean isChanged(T local, T realValue, boolean refresh) {
+        if (local == null || realValue == null) {
+            return local != realValue;
+        }
+        if (primitive || PropertyAccessor.isComparable(realValue.getClass())) {
+            return !PropertyAccessor.contentEquals(local, realValue);
+        }
+        return refresh || realValue != lastSceneValue;
+    }
+
     /**
      * Gets the current value, its a duplicate of the actual scene value. Note
      * that the value is most probably not initialized yet when the Propety is
@@ -202,7 +240,9 @@ public class SceneExplorerProperty<T> extends PropertySupport.Reflection<T> {
 
     /**
      * Stores the given value locally and applies a duplicate to the scene
-     * object on the render thread.
+     * object on the render thread. Values set on several properties during
+     * one AWT event, like when editing a multi selection, are applied in one
+     * render thread task and undone as one edit.
      *
      * @param val
      * @throws IllegalAccessException
@@ -218,26 +258,33 @@ public class SceneExplorerProperty<T> extends PropertySupport.Reflection<T> {
                 final T oldObject = objectLocal;
                 changing = true;
                 objectLocal = val;
-                final T sceneObject = duplicateObject(val);
-                SceneApplication.getApplication().enqueue(new Callable<Void>() {
-                    @Override
-                    public Void call() throws Exception {
-                        mutex.postWriteRequest(new Runnable() {
-                            @Override
-                            public void run() {
-                                setSuperValue(sceneObject);
-                                changing = false;
-                            }
-                        });
-                        return null;
-                    }
-                });
+                PropertyEditBatch.add(SceneExplorerProperty.this, duplicateObject(val));
                 //call listeners after enqueueing our own change.
                 notifyListeners(PROP_USER_CHANGE, oldObject, objectLocal);
             }
         });
     }
 
+    /**
+     * Sets a value of an edit batch on the scene object, has to be called on
+     * the render thread.
+     *
+     * @return a duplicate of the replaced scene value
+     */
+    Object applySceneValue(Object val) {
+        T before = duplicateObject(getSuperValue());
+        setSuperValue((T) val, false);
+        changing = false;
+        return before;
+    }
+
+    /**
+     * Sets a value of an undone or redone edit batch on the scene object.
+     */
+    void restoreSceneValue(Object val) {
+        setSuperValue((T) val, false);
+    }
+
     /**
      * Checks if a getters return object is a primitive.
      *
@@ -334,38 +381,16 @@ public class SceneExplorerProperty<T> extends PropertySupport.Reflection<T> {
             return a;
         }
         T obj = null;
-        if (cloneable) {
-            try {
-                obj = (T) a.getClass().getMethod("clone").invoke(a);
+        try {
+            if (cloneable) {
+                obj = (T) PropertyAccessor.cloneValue(a);
                 logger.log(Level.FINE, "Cloned object {0} to {1}", new Object[]{a, obj});
-            } catch (IllegalAccessException ex) {
-                Exceptions.printStackTrace(ex);
-            } catch (IllegalArgumentException ex) {
-                Exceptions.printStackTrace(ex);
-            } catch (InvocationTargetException ex) {
-                Exceptions.printStackTrace(ex);
-            } catch (NoSuchMethodException ex) {
-                Exceptions.printStackTrace(ex);
-            } catch (SecurityException ex) {
-                Exceptions.printStackTrace(ex);
-            }
-        } else if (instantiable) {
-            try {
-                obj = (T) a.getClass().getConstructor(a.getClass()).newInstance(a);
+            } else if (instantiable) {
+                obj = (T) PropertyAccessor.copyValue(a);
                 logger.log(Level.FINE, "Instantiated new object from {0} to {1}", new Object[]{a, obj});
-            } catch (InstantiationException ex) {
-                Exceptions.printStackTrace(ex);
-            } catch (IllegalAccessException ex) {
-                Exceptions.printStackTrace(ex);
-            } catch (IllegalArgumentException ex) {
-                Exceptions.printStackTrace(ex);
-            } catch (InvocationTargetException ex) {
-                Exceptions.printStackTrace(ex);
-            } catch (NoSuchMethodException ex) {
-                Exceptions.printStackTrace(ex);
-            } catch (SecurityException ex) {
-                Exceptions.printStackTrace(ex);
             }
+        } catch (RuntimeException ex) {
+            Exceptions.printStackTrace(ex);
         }
         if (obj == null) {
             logger.log(Level.FINE, "Simply returning non-primitive {0} as duplicate", new Object[]{a});
@@ -392,12 +417,8 @@ public class SceneExplorerProperty<T> extends PropertySupport.Reflection<T> {
     protected T getSuperValue() {
         try {
             logger.log(Level.FINER, "Get super value thread {0}", Thread.currentThread().getName());
-            return super.getValue();
-        } catch (IllegalAccessException ex) {
-            Exceptions.printStackTrace(ex);
-        } catch (IllegalArgumentException ex) {
-            Exceptions.printStackTrace(ex);
-        } catch (InvocationTargetException ex) {
+            return (T) getterFunction.apply(bean);
+        } catch (RuntimeException ex) {
             Exceptions.printStackTrace(ex);
         }
         return null;
@@ -417,13 +438,19 @@ public class SceneExplorerProperty<T> extends PropertySupport.Reflection<T> {
                 addUndo(dupe, val);
             }
             logger.log(Level.FINER, "Set super value on thread {0}", Thread.currentThread().getName());
-            super.setValue(val);
+            if (setterFunction != null) {
+                setterFunction.accept(bean, val);
+            } else {
+                super.setValue(val);
+            }
         } catch (IllegalAccessException ex) {
             Exceptions.printStackTrace(ex);
         } catch (IllegalArgumentException ex) {
             Exceptions.printStackTrace(ex);
         } catch (InvocationTargetException ex) {
             Exceptions.printStackTrace(ex);
+        } catch (RuntimeException ex) {
+            Exceptions.printStackTrace(ex);
         }
     }
 
@@ -499,14 +526,16 @@ public class SceneExplorerProperty<T> extends PropertySupport.Reflection<T> {
      * @param after 
      */
     protected void notifyListeners(final String type, final Object before, final Object after) {
-        java.awt.EventQueue.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-                logger.log(Level.FINE, "Notify SceneExplorer listeners");
-                for (ScenePropertyChangeListener propertyChangeListener : listeners) {
-                    propertyChangeListener.propertyChange(type, getName(), before, after);
-                }
-            }
-        });
+        PropertyChangeDispatcher.post(this, type, before, after);
+    }
+
+    /**
+     * Calls the listeners, on the AWT thread.
+     */
+    void fireChange(String type, Object before, Object after) {
+        logger.log(Level.FINE, "Notify SceneExplorer listeners");
+        for (ScenePropertyChangeListener propertyChangeListener : listeners) {
+            propertyChangeListener.propertyChange(type, getName(), before, after);
+        }
     }
 }
@@ -33,6 +33,7 @@ package com.jme3.gde.core.properties.preview;
 
 import com.jme3.asset.TextureKey;
 import com.jme3.gde.core.assets.ProjectAssetManager;
+import com.jme3.gde.core.assets.ThumbnailCache;
 import com.jme3.gde.core.scene.PreviewRequest;
 import com.jme3.gde.core.scene.SceneApplication;
 import com.jme3.gde.core.scene.SceneListener;
@@ -45,7 +46,10 @@ import com.jme3.scene.Spatial;
 import com.jme3.scene.shape.Quad;
 import com.jme3.texture.Texture;
 import com.jme3.util.SkyFactory;
+import java.awt.image.BufferedImage;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JComponent;
@@ -63,6 +67,7 @@ public class TexturePreview implements SceneListener {
     private final Geometry quad3D;
     private final Material material;
     private final Material material3D;
+    private final Map<PreviewRequest, String> cacheKeys = new ConcurrentHashMap<>();
 
     public TexturePreview(ProjectAssetManager assetManager) {
         this.assetManager = assetManager;
@@ -116,7 +121,17 @@ public class TexturePreview implements SceneListener {
                     }
                 }
 
+                final String cacheKey = ThumbnailCache.getDefault().computeKey(assetManager, textureName, "texture-preview");
+                final BufferedImage cached = ThumbnailCache.getDefault().get(cacheKey, width, height);
+                if (cached != null) {
+                    java.awt.EventQueue.invokeLater(() -> setIcon(new ImageIcon(cached)));
+                    return null;
+                }
+
                 PreviewRequest request = new PreviewRequest(TexturePreview.this, geom, width, height);
+                if (cacheKey != null) {
+                    cacheKeys.put(request, cacheKey);
+                }
                 request.getCameraRequest().setLocation(new Vector3f(0, 0, 5.3f));
                 request.getCameraRequest().setLookAt(new Vector3f(0, 0, 0), Vector3f.UNIT_Y.mult(-1));
                 SceneApplication.getApplication().createPreview(request);
@@ -164,20 +179,28 @@ public class TexturePreview implements SceneListener {
         }
     }
 
+    private void setIcon(ImageIcon icon) {
+        if (picPreview instanceof JLabel) {
+            ((JLabel) picPreview).setIcon(icon);
+        }
+        if (picPreview instanceof JButton) {
+            ((JButton) picPreview).setIcon(icon);
+        }
+    }
+
     @Override
     public void previewCreated(final PreviewRequest request) {
+        if (request.getRequester() != TexturePreview.this) {
+            return;
+        }
+        String cacheKey = cacheKeys.remove(request);
+        if (cacheKey != null) {
+            ThumbnailCache.getDefault().put(cacheKey, request.getImage());
+        }
         java.awt.EventQueue.invokeLater(new Runnable() {
             @Override
             public void run() {
-                if (request.getRequester() == TexturePreview.this) {
-                    final ImageIcon icon = new ImageIcon(request.getImage());
-                    if (picPreview instanceof JLabel) {
-                        ((JLabel) picPreview).setIcon(icon);
-                    }
-                    if (picPreview instanceof JButton) {
-                        ((JButton) picPreview).setIcon(icon);
-                    }
-                }
+                setIcon(new ImageIcon(request.getImage()));
             }
         });
     }
@@ -0,0 +1,306 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.scene;
+
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.Renderer;
+import com.jme3.renderer.lwjgl.LwjglGL;
+import com.jme3.renderer.opengl.GL;
+import com.jme3.texture.FrameBuffer;
+import com.jme3.texture.Image.Format;
+import com.jme3.util.BufferUtils;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads back the content of offscreen FrameBuffers into BufferedImages
+ * without stalling the render thread. The pixels are read into one of
+ * several pixel buffer objects which are fetched a frame later, when the GPU
+ * has finished writing them. The pixel data is copied straight into the
+ * DataBufferInt of the target image (TYPE_INT_ARGB), no byte swizzling is done
+ * on the CPU.<br>
+ * If pixel buffer objects are not supported, the reader falls back to a
+ * synchronous read.<br>
+ * All methods have to be called on the render thread.
+ */
+public class AsyncFrameBufferReader {
+
+    private static final Logger logger = Logger.getLogger(AsyncFrameBufferReader.class.getName());
+    private static final int GL_PIXEL_PACK_BUFFER = 0x88EB;
+    private static final int GL_STREAM_READ = 0x88E1;
+    private static final int GL_BGRA = 0x80E1;
+    private static final int GL_UNSIGNED_INT_8_8_8_8_REV = 0x8367;
+
+    /**
+     * Called on the render thread when the pixels of a read have been copied
+     * into the target image.
+     */
+    public interface ReadbackListener {
+
+        void readbackCompleted(BufferedImage image);
+    }
+
+    private final Renderer renderer;
+    private final Slot[] slots;
+    private GL gl;
+    private boolean async;
+    private boolean initialized = false;
+    private ByteBuffer transferBuffer;
+    private long frame = 0;
+
+    public AsyncFrameBufferReader(Renderer renderer) {
+        this(renderer, 2);
+    }
+
+    /**
+     * @param renderer the renderer of the SceneApplication
+     * @param bufferCount the number of pixel buffers to cycle through, at
+     * least two
+     */
+    public AsyncFrameBufferReader(Renderer renderer, int bufferCount) {
+        this.renderer = renderer;
+        this.slots = new Slot[Math.max(2, bufferCount)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    private void initialize() {
+        initialized = true;
+        async = renderer.getCaps().contains(Caps.OpenGL21);
+        if (async) {
+            try {
+                gl = new LwjglGL();
+                IntBuffer ids = BufferUtils.createIntBuffer(slots.length);
+                gl.glGenBuffers(ids);
+                for (Slot slot : slots) {
+                    slot.pbo = ids.get();
+                }
+            } catch (Exception | LinkageError e) {
+                logger.log(Level.INFO, "Pixel buffer objects not available, using synchronous readback", e);
+                async = false;
+            }
+        }
+    }
+
+    /**
+     * Creates an image that can be used as target for this reader.
+     */
+    public static BufferedImage createImage(int width, int height) {
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Starts reading the given FrameBuffer into the image. The image has to
+     * be of TYPE_INT_ARGB and the size of the FrameBuffer. The listener is
+     * called once the pixels are available, normally during the next frame.
+     *
+     * @param fb the FrameBuffer to read
+     * @param image the target image
+     * @param flipY true to flip the image vertically, OpenGL has its origin
+     * in the lower left corner
+     * @param listener notified when the image has been filled, can be null
+     */
+    public void readFrameBuffer(FrameBuffer fb, BufferedImage image, boolean flipY, ReadbackListener listener) {
+        if (!initialized) {
+            initialize();
+        }
+        int size = fb.getWidth() * fb.getHeight() * 4;
+        if (!async) {
+            ByteBuffer buffer = getTransferBuffer(size);
+            renderer.readFrameBufferWithFormat(fb, buffer, Format.BGRA8);
+            copyToImage(buffer, image, flipY);
+            if (listener != null) {
+                listener.readbackCompleted(image);
+            }
+            return;
+        }
+        Slot slot = findFreeSlot();
+        gl.glBindBuffer(GL_PIXEL_PACK_BUFFER, slot.pbo);
+        if (slot.capacity < size) {
+            gl.glBufferData(GL_PIXEL_PACK_BUFFER, size, GL_STREAM_READ);
+            slot.capacity = size;
+        }
+        renderer.setFrameBuffer(fb);
+        gl.glReadPixels(0, 0, fb.getWidth(), fb.getHeight(), GL_BGRA, GL_UNSIGNED_INT_8_8_8_8_REV, 0);
+        gl.glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        slot.size = size;
+        slot.image = image;
+        slot.flipY = flipY;
+        slot.listener = listener;
+        slot.frame = frame;
+    }
+
+    /**
+     * Has to be called once per frame, completes all reads that are old
+     * enough to not block the GPU anymore.
+     */
+    public void update() {
+        frame++;
+        if (!async) {
+            return;
+        }
+        long completeFrame = frame - (slots.length - 1);
+        for (Slot slot : getSlotsByAge()) {
+            if (slot.image != null && slot.frame <= completeFrame) {
+                complete(slot);
+            }
+        }
+    }
+
+    /**
+     * Completes all outstanding reads, waiting for the GPU if needed.
+     */
+    public void flush() {
+        if (!async) {
+            return;
+        }
+        for (Slot slot : getSlotsByAge()) {
+            if (slot.image != null) {
+                complete(slot);
+            }
+        }
+    }
+
+    /**
+     * @return true if there are reads that did not complete yet
+     */
+    public boolean hasPendingReads() {
+        for (Slot slot : slots) {
+            if (slot.image != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deletes the pixel buffers, outstanding reads are discarded.
+     */
+    public void cleanup() {
+        if (initialized && async) {
+            IntBuffer ids = BufferUtils.createIntBuffer(slots.length);
+            for (Slot slot : slots) {
+                ids.put(slot.pbo);
+                slot.image = null;
+                slot.listener = null;
+                slot.capacity = 0;
+            }
+            ids.flip();
+            gl.glDeleteBuffers(ids);
+        }
+        initialized = false;
+        transferBuffer = null;
+    }
+
+    private Slot findFreeSlot() {
+        Slot oldest = null;
+        for (Slot slot : slots) {
+            if (slot.image == null) {
+                return slot;
+            }
+            if (oldest == null || slot.frame < oldest.frame) {
+                oldest = slot;
+            }
+        }
+        // all buffers in flight, the oldest read has to finish now
+        complete(oldest);
+        return oldest;
+    }
+
+    private Slot[] getSlotsByAge() {
+        Slot[] sorted = slots.clone();
+        Arrays.sort(sorted, (Slot a, Slot b) -> Long.compare(a.frame, b.frame));
+        return sorted;
+    }
+
+    private void complete(Slot slot) {
+        ByteBuffer buffer = getTransferBuffer(slot.size);
+        gl.glBindBuffer(GL_PIXEL_PACK_BUFFER, slot.pbo);
+        gl.glGetBufferSubData(GL_PIXEL_PACK_BUFFER, 0, buffer);
+        gl.glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        BufferedImage image = slot.image;
+        ReadbackListener listener = slot.listener;
+        copyToImage(buffer, image, slot.flipY);
+        slot.image = null;
+        slot.listener = null;
+        if (listener != null) {
+            listener.readbackCompleted(image);
+        }
+    }
+
+    private ByteBuffer getTransferBuffer(int size) {
+        if (transferBuffer == null || transferBuffer.capacity() < size) {
+            transferBuffer = BufferUtils.createByteBuffer(size);
+        }
+        transferBuffer.clear();
+        transferBuffer.limit(size);
+        return transferBuffer;
+    }
+
+    /**
+     * Copies BGRA pixels (one little endian ARGB int per pixel) into the
+     * int raster of the image.
+     */
+    static void copyToImage(ByteBuffer buffer, BufferedImage image, boolean flipY) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        buffer.clear();
+        IntBuffer pixels = buffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        if (!flipY) {
+            pixels.get(data, 0, width * height);
+            return;
+        }
+        for (int y = 0; y < height; y++) {
+            pixels.position((height - y - 1) * width);
+            pixels.get(data, y * width, width);
+        }
+    }
+
+    private static class Slot {
+
+        int pbo;
+        int capacity;
+        int size;
+        long frame;
+        boolean flipY;
+        BufferedImage image;
+        ReadbackListener listener;
+    }
+}
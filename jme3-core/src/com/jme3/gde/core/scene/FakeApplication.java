@@ -129,6 +129,7 @@ public class FakeApplication extends SimpleApplication {
 
     @Override
     public <V> Future<V> enqueue(Callable<V> callable) {
+        SceneApplication.sceneChangedIfStarted();
         return super.enqueue(callable);
     }
 
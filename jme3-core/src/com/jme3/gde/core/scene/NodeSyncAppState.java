@@ -45,6 +45,10 @@ import org.openide.util.LookupListener;
 import org.openide.util.Utilities;
 
 /**
+ * Keeps the properties of the selected scene explorer node in sync with the
+ * scene. The selected node is checked every frame, its properties only
+ * notify the UI when a value actually changed. Newly selected and deselected
+ * nodes get a full refresh.
  *
  * @author normenhansen
  */
@@ -55,8 +59,6 @@ public class NodeSyncAppState extends AbstractAppState implements LookupListener
     private final List<SceneSyncListener> oldNodes = Collections.synchronizedList(new LinkedList<SceneSyncListener>());
     private final Result<SceneSyncListener> nodeSelectionResult;
     private SceneSyncListener node;
-    private float timeStep = 1;
-    private float timer = 0;
 
     public NodeSyncAppState() {
         nodeSelectionResult = Utilities.actionsGlobalContext().lookupResult(SceneSyncListener.class);
@@ -78,13 +80,9 @@ public class NodeSyncAppState extends AbstractAppState implements LookupListener
                 it.remove();
             }
         }
-        timer += tpf;
-        if (timer > timeStep) {
-            timer = 0;
-            SceneSyncListener node = this.node;
-            if (initialized && node != null) {
-                node.syncSceneData(tpf);
-            }
+        SceneSyncListener node = this.node;
+        if (initialized && node != null && tpf > 0) {
+            node.syncSceneData(tpf);
         }
         synchronized (oldNodes) {
             for (Iterator<SceneSyncListener> it = oldNodes.iterator(); it.hasNext();) {
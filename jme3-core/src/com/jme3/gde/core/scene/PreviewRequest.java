@@ -38,7 +38,10 @@ import java.awt.image.BufferedImage;
 
 /**
  * Used to render an image of a scene using SceneApplication. Used by 
- * Material Editor and Shader Editor, for example.
+ * Material Editor and Shader Editor, for example.<br>
+ * Requests with a higher priority are rendered first, requests that are no
+ * longer needed (e.g. the widget showing them was scrolled out of view) can
+ * be cancelled.
  * 
  * @author normenhansen
  */
@@ -48,6 +51,9 @@ public class PreviewRequest {
     private Spatial spatial;
     private BufferedImage image;
     private CameraRequest cameraRequest;
+    private volatile boolean cancelled = false;
+    private int priority = 0;
+    private long sequence;
 
     public PreviewRequest(Object requester, Spatial spatial) {
         this(requester, spatial, 120, 120);
@@ -93,6 +99,47 @@ public class PreviewRequest {
         return cameraRequest;
     }
 
+    /**
+     * @return the priority, requests with a higher priority are rendered
+     * first
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of this request, has to be set before the request is
+     * passed to SceneApplication.createPreview().
+     *
+     * @param priority the priority to set
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Cancels this request, if it has not been rendered yet it is skipped
+     * and no preview will be created.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if this request has been cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     public class CameraRequest {
 
         Vector3f location = null;
@@ -24,16 +24,22 @@
  */
 package com.jme3.gde.core.scene;
 
+import com.jme3.anim.AnimComposer;
+import com.jme3.animation.AnimControl;
 import com.jme3.app.LegacyApplication;
 import com.jme3.app.StatsView;
 import com.jme3.asset.AssetManager;
 import com.jme3.bullet.BulletAppState;
+import com.jme3.cinematic.events.MotionEvent;
+import com.jme3.effect.ParticleEmitter;
 import com.jme3.environment.EnvironmentCamera;
 import com.jme3.font.BitmapFont;
 import com.jme3.font.BitmapText;
 import com.jme3.gde.core.Installer;
 import com.jme3.gde.core.assets.AssetData;
 import com.jme3.gde.core.assets.AssetDataObject;
+import com.jme3.gde.core.assets.AssetDependencyGraph;
+import com.jme3.gde.core.assets.ProjectAssetManager;
 import com.jme3.gde.core.scene.controller.AbstractCameraController;
 import com.jme3.gde.core.scene.processors.WireProcessor;
 import com.jme3.gde.core.scene.state.NormalViewState;
@@ -44,33 +50,57 @@ import com.jme3.gde.core.util.notify.MessageType;
 import com.jme3.gde.core.util.notify.NotifyUtil;
 import com.jme3.input.FlyByCamera;
 import com.jme3.input.MouseInput;
+import com.jme3.input.RawInputListener;
 import com.jme3.input.controls.MouseAxisTrigger;
 import com.jme3.input.controls.MouseButtonTrigger;
+import com.jme3.input.event.JoyAxisEvent;
+import com.jme3.input.event.JoyButtonEvent;
+import com.jme3.input.event.KeyInputEvent;
+import com.jme3.input.event.MouseButtonEvent;
+import com.jme3.input.event.MouseMotionEvent;
+import com.jme3.input.event.TouchEvent;
 import com.jme3.light.LightProbe;
 import com.jme3.light.PointLight;
+import com.jme3.material.MatParam;
+import com.jme3.material.MatParamTexture;
+import com.jme3.material.Material;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.ViewPort;
 import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.scene.Spatial.CullHint;
+import com.jme3.scene.control.AbstractControl;
+import com.jme3.scene.control.Control;
 import com.jme3.system.AppSettings;
 import com.jme3.system.JmeCanvasContext;
 import com.jme3.system.awt.AwtPanel;
 import com.jme3.system.awt.AwtPanelsContext;
 import com.jme3.system.awt.PaintMode;
+import com.jme3.terrain.geomipmap.TerrainLodControl;
+import com.jme3.texture.Texture;
 import com.jme3.util.SkyFactory;
 import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.prefs.PreferenceChangeEvent;
 import org.netbeans.spi.project.LookupProvider;
 import org.openide.DialogDisplayer;
 import org.openide.NotifyDescriptor;
@@ -91,6 +121,26 @@ import org.openide.util.lookup.Lookups;
 public class SceneApplication extends LegacyApplication implements LookupProvider {
 
     private static final Logger logger = Logger.getLogger(SceneApplication.class.getName());
+    /**
+     * Preference key that selects the on-demand render mode instead of the
+     * continuous 30 fps loop.
+     */
+    public static final String PREF_RENDER_ON_DEMAND = "render_on_demand";
+    /**
+     * Number of frames rendered after each render request, so that changes
+     * which need more than one update to settle (e.g. geometric state of
+     * freshly attached spatials, the AwtPanel readback) are displayed.
+     */
+    private static final int ON_DEMAND_FRAMES = 3;
+    /**
+     * Number of frames rendered after each render request while the scene
+     * contains controls that finish their work asynchronously (terrain LOD).
+     */
+    private static final int SETTLE_FRAMES = 15;
+    /**
+     * Number of spatials checked for animated controls per frame.
+     */
+    private static final int ANIMATION_SCAN_PER_FRAME = 2000;
     private static boolean failMessageShown = false;
     private final ColorRGBA backgroundColor = new ColorRGBA().setAsSrgb(0.25f, 0.25f, 0.25f, 1.0f);
     private PointLight camLight;
@@ -123,6 +173,12 @@ public class SceneApplication extends LegacyApplication implements LookupProvide
     private SceneRequest currentSceneRequest;
     private ConcurrentLinkedQueue<SceneListener> listeners = new ConcurrentLinkedQueue<>();
     private ScenePreviewProcessor previewProcessor;
+    private final AssetDependencyGraph.DependencyChangeListener sceneAssetListener = (changed, affected) -> {
+        enqueue(() -> {
+            reloadChangedAssets(affected);
+            return null;
+        });
+    };
     private ApplicationLogHandler logHandler = new ApplicationLogHandler();
     private WireProcessor wireProcessor;
     private String lastError = "";
@@ -137,10 +193,26 @@ public class SceneApplication extends LegacyApplication implements LookupProvide
     private FakeApplication fakeApp;
     private LightProbe pbrLightProbe;
     private Spatial pbrSky;
+    private volatile boolean renderOnDemand = false;
+    private volatile boolean renderRequested = true;
+    private volatile boolean sceneChanged = true;
+    private int pendingFrames = 0;
+    private boolean sceneAnimated = false;
+    private boolean sceneSettling = false;
+    private final ArrayDeque<Spatial> animationScan = new ArrayDeque<>();
+    private boolean scanAnimated = false;
+    private boolean scanSettling = false;
 
     public SceneApplication() {
         Logger.getLogger("com.jme3").addHandler(logHandler);
         useCanvas = "true".equals(NbPreferences.forModule(Installer.class).get("use_lwjgl_canvas", "false"));
+        renderOnDemand = "true".equals(NbPreferences.forModule(Installer.class).get(PREF_RENDER_ON_DEMAND, "false"));
+        NbPreferences.forModule(Installer.class).addPreferenceChangeListener((PreferenceChangeEvent evt) -> {
+            if (PREF_RENDER_ON_DEMAND.equals(evt.getKey())) {
+                renderOnDemand = "true".equals(evt.getNewValue());
+                requestRender();
+            }
+        });
         Logger.getLogger("com.jme3.renderer.opengl.TextureUtil").setLevel(Level.SEVERE);
         try {
             AppSettings newSetting = new AppSettings(true);
@@ -171,17 +243,31 @@ public class SceneApplication extends LegacyApplication implements LookupProvide
 
     public Component getMainPanel() {
         if (useCanvas) {
-            return ((JmeCanvasContext) getContext()).getCanvas();
+            Component canvas = ((JmeCanvasContext) getContext()).getCanvas();
+            if (!hasResizeListener(canvas)) {
+                canvas.addComponentListener(resizeListener);
+            }
+            return canvas;
         } else {
             if (panel == null) {
                 panel = ((AwtPanelsContext) getContext()).createPanel(PaintMode.Accelerated, true);
                 ((AwtPanelsContext) getContext()).setInputSource(panel);
+                panel.addComponentListener(resizeListener);
                 attachPanel();
             }
             return panel;
         }
     }
 
+    private boolean hasResizeListener(Component component) {
+        for (java.awt.event.ComponentListener componentListener : component.getComponentListeners()) {
+            if (componentListener == resizeListener) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void attachPanel() {
         enqueue(() -> {
             panel.attachTo(true, viewPort, overlayView, guiViewPort);
@@ -256,6 +342,7 @@ public class SceneApplication extends LegacyApplication implements LookupProvide
                 inputManager.addMapping("MouseButtonLeft", new MouseButtonTrigger(0));
                 inputManager.addMapping("MouseButtonMiddle", new MouseButtonTrigger(2));
                 inputManager.addMapping("MouseButtonRight", new MouseButtonTrigger(1));
+                inputManager.addRawInputListener(renderRequestListener);
                 started = true;
             } catch (Throwable e) {
                 showStartupErrorMessage(e);
@@ -287,11 +374,17 @@ public class SceneApplication extends LegacyApplication implements LookupProvide
         } else {
             try {
                 super.update();
+                float tpf = timer.getTimePerFrame();
+                if (!needsRender()) {
+                    // app states (scene index, node sync, tools) keep running,
+                    // they request a render when they change what is displayed
+                    getStateManager().update(tpf);
+                    return;
+                }
                 FakeApplication fakap = fakeApp;
                 if (fakap != null) {
                     fakap.runQueuedFake();
                 }
-                float tpf = timer.getTimePerFrame();
                 camLight.setPosition(cam.getLocation());
                 secondCounter += tpf;
                 int fps = (int) timer.getFrameRate();
@@ -328,6 +421,187 @@ public class SceneApplication extends LegacyApplication implements LookupProvide
         }
     }
 
+    @Override
+    public <V> Future<V> enqueue(Callable<V> callable) {
+        sceneChanged = true;
+        requestRender();
+        return super.enqueue(callable);
+    }
+
+    /**
+     * Marks the scene as dirty so that the next frames get rendered when the
+     * application runs in on-demand mode. Has no effect in continuous mode.
+     * App states are updated in every frame, states that change the scene
+     * in their update have to call this for as long as they do so.
+     * (threadsafe)
+     */
+    public void requestRender() {
+        renderRequested = true;
+    }
+
+    /**
+     * Tells the running application that the scene was changed, without
+     * creating it.
+     */
+    static void sceneChangedIfStarted() {
+        SceneApplication app = application;
+        if (app != null) {
+            app.sceneChanged = true;
+            app.requestRender();
+        }
+    }
+
+    /**
+     * @return true if frames are only rendered when something changed
+     */
+    public boolean isRenderOnDemand() {
+        return renderOnDemand;
+    }
+
+    /**
+     * Decides if the current frame has to be updated and rendered. In
+     * continuous mode this is always the case, in on-demand mode only when a
+     * render has been requested recently or something in the scene keeps
+     * changing by itself (animations, particles, physics, user app states).
+     */
+    private boolean needsRender() {
+        if (!renderOnDemand) {
+            return true;
+        }
+        scanAnimation();
+        if (renderRequested) {
+            renderRequested = false;
+            pendingFrames = sceneSettling ? SETTLE_FRAMES : ON_DEMAND_FRAMES;
+        }
+        if (sceneAnimated || physicsState != null
+                || previewProcessor.hasPendingRequests()
+                || !fakeApp.getStateManager().getAddedStates().isEmpty()) {
+            return true;
+        }
+        if (pendingFrames > 0) {
+            pendingFrames--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Looks for animated controls in the scene after it was changed. The
+     * graph is walked in slices of a few thousand spatials per frame, until
+     * the walk is complete the previous result stays in use, unless an
+     * animated control is found earlier.
+     */
+    private void scanAnimation() {
+        if (animationScan.isEmpty()) {
+            if (!sceneChanged) {
+                return;
+            }
+            sceneChanged = false;
+            scanAnimated = false;
+            scanSettling = false;
+            animationScan.add(rootNode);
+            animationScan.add(toolsNode);
+        }
+        for (int i = 0; i < ANIMATION_SCAN_PER_FRAME && !animationScan.isEmpty(); i++) {
+            Spatial spatial = animationScan.poll();
+            for (int c = 0; c < spatial.getNumControls(); c++) {
+                Control control = spatial.getControl(c);
+                if (isAnimated(spatial, control)) {
+                    scanAnimated = true;
+                } else if (control instanceof TerrainLodControl) {
+                    scanSettling = true;
+                }
+            }
+            if (scanAnimated) {
+                animationScan.clear();
+            } else if (spatial instanceof Node) {
+                animationScan.addAll(((Node) spatial).getChildren());
+            }
+        }
+        if (animationScan.isEmpty()) {
+            sceneAnimated = scanAnimated;
+            sceneSettling = scanSettling;
+        } else if (scanAnimated) {
+            sceneAnimated = true;
+        }
+    }
+
+    /**
+     * Checks if the control changes the scene on its own. Engine controls that
+     * only follow changes of the scene or the camera (LOD, billboards, light
+     * and camera controls, chunk streaming) don't count, controls of the
+     * project are unknown code and count whenever they are enabled.
+     */
+    private static boolean isAnimated(Spatial spatial, Control control) {
+        if (control instanceof AnimComposer || control instanceof AnimControl
+                || control instanceof MotionEvent) {
+            return !(control instanceof AbstractControl) || ((AbstractControl) control).isEnabled();
+        }
+        if (control instanceof ParticleEmitter.ParticleEmitterControl) {
+            return ((ParticleEmitter) spatial).isEnabled();
+        }
+        if (control == null || control.getClass().getName().startsWith("com.jme3.")) {
+            return false;
+        }
+        return !(control instanceof AbstractControl) || ((AbstractControl) control).isEnabled();
+    }
+
+    private final ComponentAdapter resizeListener = new ComponentAdapter() {
+        @Override
+        public void componentResized(ComponentEvent e) {
+            requestRender();
+        }
+
+        @Override
+        public void componentShown(ComponentEvent e) {
+            requestRender();
+        }
+    };
+
+    /**
+     * Any input on the OpenGL window (camera controllers, tool gizmos,
+     * selection) might change what is displayed.
+     */
+    private final RawInputListener renderRequestListener = new RawInputListener() {
+        @Override
+        public void beginInput() {
+        }
+
+        @Override
+        public void endInput() {
+        }
+
+        @Override
+        public void onJoyAxisEvent(JoyAxisEvent evt) {
+            requestRender();
+        }
+
+        @Override
+        public void onJoyButtonEvent(JoyButtonEvent evt) {
+            requestRender();
+        }
+
+        @Override
+        public void onMouseMotionEvent(MouseMotionEvent evt) {
+            requestRender();
+        }
+
+        @Override
+        public void onMouseButtonEvent(MouseButtonEvent evt) {
+            requestRender();
+        }
+
+        @Override
+        public void onKeyEvent(KeyInputEvent evt) {
+            requestRender();
+        }
+
+        @Override
+        public void onTouchEvent(TouchEvent evt) {
+            requestRender();
+        }
+    };
+
     //TODO: Lookup for Application
     @Override
     public Lookup createAdditionalLookup(Lookup baseContext) {
@@ -365,6 +639,7 @@ public class SceneApplication extends LegacyApplication implements LookupProvide
 
     public void createPreview(final PreviewRequest request) {
         previewProcessor.addRequest(request);
+        requestRender();
     }
 
     /**
@@ -405,6 +680,9 @@ public class SceneApplication extends LegacyApplication implements LookupProvide
                 camController.disable();
             }
             final AssetManager manager = request.getManager();
+            if (request.getManager() != null) {
+                request.getManager().getDependencyGraph().addDependencyChangeListener(sceneAssetListener);
+            }
             request.setFakeApp(fakeApp);
             fakeApp.newAssetManager(manager);
             enqueue(() -> {
@@ -441,6 +719,9 @@ public class SceneApplication extends LegacyApplication implements LookupProvide
                 return;
             }
             notifyClose(oldRequest);
+            if (oldRequest.getManager() != null) {
+                oldRequest.getManager().getDependencyGraph().removeDependencyChangeListener(sceneAssetListener);
+            }
             if (newRequest == null || newRequest.getDataObject() != oldRequest.getDataObject()) {
                 checkSave(oldRequest);
                 SceneUndoRedoManager manager = Lookup.getDefault().lookup(SceneUndoRedoManager.class);
@@ -480,6 +761,52 @@ public class SceneApplication extends LegacyApplication implements LookupProvide
         });
     }
 
+    /**
+     * Reloads the materials and textures of the open scene that changed on
+     * disk, the rest of the scene is left untouched. Has to be called on the
+     * render thread.
+     *
+     * @param affected the names of the changed assets and their dependents
+     */
+    private void reloadChangedAssets(final Set<String> affected) {
+        final SceneRequest request = currentSceneRequest;
+        if (request == null || request.getManager() == null || request.getRootNode() == null) {
+            return;
+        }
+        final ProjectAssetManager manager = request.getManager();
+        request.getRootNode().depthFirstTraversal(spatial -> {
+            if (!(spatial instanceof Geometry)) {
+                return;
+            }
+            Geometry geometry = (Geometry) spatial;
+            Material material = geometry.getMaterial();
+            if (material == null) {
+                return;
+            }
+            try {
+                if (material.getKey() != null && affected.contains(material.getKey().getName())) {
+                    geometry.setMaterial(manager.loadMaterial(material.getKey().getName()));
+                    return;
+                }
+                List<MatParamTexture> textures = new ArrayList<>();
+                for (MatParam param : material.getParams()) {
+                    if (param instanceof MatParamTexture) {
+                        textures.add((MatParamTexture) param);
+                    }
+                }
+                for (MatParamTexture param : textures) {
+                    Texture texture = param.getTextureValue();
+                    if (texture != null && texture.getKey() != null && affected.contains(texture.getKey().getName())) {
+                        material.setTexture(param.getName(), (Texture) manager.loadAsset(texture.getKey()));
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Could not reload changed asset of {0}: {1}", new Object[]{geometry.getName(), e.getMessage()});
+            }
+        });
+        requestRender();
+    }
+
     private void checkSave(SceneRequest request) {
         if ((request != null) && request.getDataObject() != null
                 && request.getDataObject().isModified()) {
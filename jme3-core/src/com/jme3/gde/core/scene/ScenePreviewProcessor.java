@@ -34,6 +34,7 @@ package com.jme3.gde.core.scene;
 import com.jme3.gde.core.sceneexplorer.nodes.JmeSpatial;
 import com.jme3.light.PointLight;
 import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
 import com.jme3.math.Vector3f;
 import com.jme3.post.SceneProcessor;
 import com.jme3.profile.AppProfiler;
@@ -44,85 +45,169 @@ import com.jme3.renderer.queue.RenderQueue;
 import com.jme3.scene.Node;
 import com.jme3.texture.FrameBuffer;
 import com.jme3.texture.Image.Format;
-import com.jme3.util.BufferUtils;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
-import java.awt.image.WritableRaster;
-import java.nio.ByteBuffer;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Renders the PreviewRequests of the SDK. Requests of the same size are
+ * rendered in batches, each request into its own tile of one large atlas
+ * FrameBuffer, which is then read back once per frame. Requests with a higher
+ * priority are rendered first, cancelled requests are skipped.
  *
  * @author normenhansen
  */
 public class ScenePreviewProcessor implements SceneProcessor {
 
-    private static int width = 120, height = 120;
-    private ByteBuffer cpuBuf = BufferUtils.createByteBuffer(width * height * 4);
-    private byte[] cpuArray = new byte[width * height * 4];
+    private static final int MIN_ATLAS_SIZE = 1024;
+    private static final int MAX_TILES = 64;
+    private static final Comparator<PreviewRequest> PREVIEW_ORDER = (PreviewRequest a, PreviewRequest b) -> {
+        if (a.getPriority() != b.getPriority()) {
+            return Integer.compare(b.getPriority(), a.getPriority());
+        }
+        return Long.compare(a.getSequence(), b.getSequence());
+    };
     protected Node previewNode = new Node("Preview Node");
     protected JmeSpatial previewSpat = null;
     private FrameBuffer offBuffer;
+    private int atlasSize = 0;
     private ViewPort offView;
     private Camera offCamera;
-    private final ConcurrentLinkedQueue<PreviewRequest> previewQueue = new ConcurrentLinkedQueue<PreviewRequest>();
-    private PreviewRequest currentPreviewRequest;    
-    private PointLight light;
+    private RenderManager renderManager;
+    private final PriorityBlockingQueue<PreviewRequest> previewQueue = new PriorityBlockingQueue<>(64, PREVIEW_ORDER);
+    private final AtomicLong requestCounter = new AtomicLong();
+    private final List<PreviewTile> tiles = new ArrayList<>();
+    private final List<TileRegion> batch = new ArrayList<>();
+    private final List<PreviewRequest> deferred = new ArrayList<>();
+    private final ArrayDeque<BufferedImage> atlasImages = new ArrayDeque<>();
+    private AsyncFrameBufferReader reader;
+    private float tpf;
 
     public void addRequest(PreviewRequest request) {
+        request.setSequence(requestCounter.getAndIncrement());
         previewQueue.add(request);
     }
 
+    /**
+     * @return true if there are preview requests waiting to be rendered
+     */
+    public boolean hasPendingRequests() {
+        return !batch.isEmpty() || !previewQueue.isEmpty()
+                || (reader != null && reader.hasPendingReads());
+    }
+
     private void update(float tpf) {
         previewNode.updateLogicalState(tpf);
         previewNode.updateGeometricState();
     }
 
     public void setupPreviewView() {
+        renderManager = SceneApplication.getApplication().getRenderManager();
         if (offCamera == null) {
-            offCamera = new Camera(width, height);
-        } else {
-            offCamera.resize(width, height, true);
+            offCamera = new Camera(MIN_ATLAS_SIZE, MIN_ATLAS_SIZE);
         }
 
-        // create a pre-view. a view that is rendered before the main view
+        // create a pre-view. a view that is rendered before the main view,
+        // it only drives the batches, the tiles are rendered by their own views
         if (offView == null) {
-            offView = SceneApplication.getApplication().getRenderManager().createPreView("Offscreen View", offCamera);
-            ColorRGBA color = new ColorRGBA();
-            color.setAsSrgb(0.25f, 0.25f, 0.25f, 1.0f);
-            offView.setBackgroundColor(color);
-            offView.setClearFlags(true, true, true);
+            offView = renderManager.createPreView("Offscreen View", offCamera);
+            offView.setClearFlags(false, false, false);
             offView.addProcessor(this);
-            // setup framebuffer's scene
-            light = new PointLight();
-            light.setPosition(offCamera.getLocation());
-            light.setColor(ColorRGBA.White);
-            previewNode.addLight(light);
-
-            // attach the scene to the viewport to be rendered
-            offView.attachScene(previewNode);
+            reader = new AsyncFrameBufferReader(SceneApplication.getApplication().getRenderer());
         }
+        setupAtlas(MIN_ATLAS_SIZE);
+    }
 
-        cpuBuf = BufferUtils.createByteBuffer(width * height * 4);
-        cpuArray = new byte[width * height * 4];
-
-        // create offscreen framebuffer        
-        offBuffer = new FrameBuffer(width, height, 0);
+    /**
+     * (Re)creates the atlas FrameBuffer all tiles are rendered to.
+     */
+    private void setupAtlas(int size) {
+        atlasSize = size;
+        offCamera.resize(size, size, true);
 
-        //setup framebuffer's cam
-        offCamera.setFrustumPerspective(45f, 1f, 1f, 1000f);
-        offCamera.setLocation(new Vector3f(5f, 5f, 5f));
-        offCamera.lookAt(new Vector3f(0f, 0f, 0f), Vector3f.UNIT_Y);
+        // create offscreen framebuffer
+        offBuffer = new FrameBuffer(size, size, 0);
 
         //setup framebuffer to use texture
-        offBuffer.setDepthBuffer(Format.Depth);        
+        offBuffer.setDepthBuffer(Format.Depth);
         offBuffer.setColorBuffer(Format.RGBA8);
         offBuffer.setSrgb(true);
 
-        //set viewport to render to offscreen framebuffer
+        //set viewports to render to offscreen framebuffer
         offView.setOutputFrameBuffer(offBuffer);
+        for (PreviewTile tile : tiles) {
+            tile.view.setOutputFrameBuffer(offBuffer);
+            tile.camera.resize(size, size, false);
+        }
+        atlasImages.clear();
+    }
 
+    private PreviewTile getTile(int index) {
+        while (tiles.size() <= index) {
+            tiles.add(new PreviewTile(tiles.size()));
+        }
+        return tiles.get(index);
+    }
 
+    private PreviewRequest pollRequest() {
+        PreviewRequest request = previewQueue.poll();
+        while (request != null && request.isCancelled()) {
+            request = previewQueue.poll();
+        }
+        return request;
+    }
+
+    /**
+     * Collects the requests for this frame, all requests of a batch have the
+     * size of the request with the highest priority.
+     */
+    private void createBatch() {
+        PreviewRequest first = pollRequest();
+        if (first == null) {
+            return;
+        }
+        int width = first.getCameraRequest().getWidth();
+        int height = first.getCameraRequest().getHeight();
+        int needed = Math.max(MIN_ATLAS_SIZE, FastMath.nearestPowerOfTwo(Math.max(width, height)));
+        if (needed < Math.max(width, height)) {
+            needed *= 2;
+        }
+        if (needed > atlasSize) {
+            setupAtlas(needed);
+        }
+        int columns = atlasSize / width;
+        int capacity = Math.min(MAX_TILES, columns * (atlasSize / height));
+        addToBatch(first, columns);
+        int polled = 0;
+        while (batch.size() < capacity && polled < capacity * 4) {
+            PreviewRequest request = pollRequest();
+            if (request == null) {
+                break;
+            }
+            polled++;
+            if (request.getCameraRequest().getWidth() == width
+                    && request.getCameraRequest().getHeight() == height) {
+                addToBatch(request, columns);
+            } else {
+                deferred.add(request);
+            }
+        }
+        previewQueue.addAll(deferred);
+        deferred.clear();
+    }
+
+    private void addToBatch(PreviewRequest request, int columns) {
+        int index = batch.size();
+        int width = request.getCameraRequest().getWidth();
+        int height = request.getCameraRequest().getHeight();
+        TileRegion region = new TileRegion(request, (index % columns) * width, (index / columns) * height, width, height);
+        batch.add(region);
+        getTile(index).setup(region);
     }
 
     @Override
@@ -141,32 +226,8 @@ public class ScenePreviewProcessor implements SceneProcessor {
 
     @Override
     public void preFrame(float f) {
-        currentPreviewRequest = previewQueue.poll();
-        if (currentPreviewRequest != null) {
-            boolean reInit = false;
-            if (currentPreviewRequest.getCameraRequest().getWidth() != width) {
-                reInit = true;
-                width = currentPreviewRequest.getCameraRequest().getWidth();
-            }
-            if (currentPreviewRequest.getCameraRequest().getHeight() != height) {
-                reInit = true;
-                height = currentPreviewRequest.getCameraRequest().getHeight();
-            }
-            if (reInit) {
-                setupPreviewView();
-            }
-            previewNode.attachChild(currentPreviewRequest.getSpatial());
-            if (currentPreviewRequest.getCameraRequest().location != null) {
-                offCamera.setLocation(currentPreviewRequest.getCameraRequest().location);
-                light.setPosition(currentPreviewRequest.getCameraRequest().location);
-            }
-            if (currentPreviewRequest.getCameraRequest().rotation != null) {
-                offCamera.setRotation(currentPreviewRequest.getCameraRequest().rotation);
-            }
-            if (currentPreviewRequest.getCameraRequest().lookAt != null) {
-                offCamera.lookAt(currentPreviewRequest.getCameraRequest().lookAt, currentPreviewRequest.getCameraRequest().up);
-            }
-        }
+        tpf = f;
+        createBatch();
         update(f);
     }
 
@@ -176,41 +237,50 @@ public class ScenePreviewProcessor implements SceneProcessor {
 
     @Override
     public void postFrame(FrameBuffer fb) {
-        if (currentPreviewRequest != null) {
-            cpuBuf.clear();
-            SceneApplication.getApplication().getRenderer().readFrameBufferWithFormat(offBuffer, cpuBuf, Format.BGRA8);
-
-            // copy native memory to java memory
-            cpuBuf.clear();
-            cpuBuf.get(cpuArray);
-            cpuBuf.clear();
-
-            // flip the components the way AWT likes them
-            for (int i = 0; i < width * height * 4; i += 4) {
-                byte b = cpuArray[i + 0];
-                byte g = cpuArray[i + 1];
-                byte r = cpuArray[i + 2];
-                byte a = cpuArray[i + 3];
-                
-                cpuArray[i + 0] = a;
-                cpuArray[i + 1] = b;
-                cpuArray[i + 2] = g;
-                cpuArray[i + 3] = r;
+        // deliver the previews rendered in the last frame
+        reader.update();
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            renderManager.renderViewPort(tiles.get(i).view, tpf);
+        }
+        final List<TileRegion> regions = new ArrayList<>(batch);
+        BufferedImage atlas = atlasImages.poll();
+        if (atlas == null) {
+            atlas = AsyncFrameBufferReader.createImage(atlasSize, atlasSize);
+        }
+        reader.readFrameBuffer(offBuffer, atlas, false, (BufferedImage img) -> {
+            for (TileRegion region : regions) {
+                if (!region.request.isCancelled()) {
+                    region.request.setImage(cropTile(img, region));
+                    SceneApplication.getApplication().notifyPreview(region.request);
+                }
             }
+            if (img.getWidth() == atlasSize) {
+                atlasImages.add(img);
+            }
+        });
+        for (int i = 0; i < batch.size(); i++) {
+            tiles.get(i).clear();
+        }
+        batch.clear();
+    }
 
-            BufferedImage image = new BufferedImage(width, height,
-                    BufferedImage.TYPE_4BYTE_ABGR);
-            WritableRaster wr = image.getRaster();
-            DataBufferByte db = (DataBufferByte) wr.getDataBuffer();
-            System.arraycopy(cpuArray, 0, db.getData(), 0, cpuArray.length);
-
-            currentPreviewRequest.setImage(image);
-            previewNode.detachAllChildren();
-            SceneApplication.getApplication().notifyPreview(currentPreviewRequest);
-            currentPreviewRequest = null;
+    /**
+     * Copies the pixels of one tile out of the atlas image.
+     */
+    private static BufferedImage cropTile(BufferedImage atlas, TileRegion region) {
+        BufferedImage image = AsyncFrameBufferReader.createImage(region.width, region.height);
+        int[] src = ((DataBufferInt) atlas.getRaster().getDataBuffer()).getData();
+        int[] dst = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int atlasWidth = atlas.getWidth();
+        for (int row = 0; row < region.height; row++) {
+            System.arraycopy(src, (region.y + row) * atlasWidth + region.x, dst, row * region.width, region.width);
         }
+        return image;
     }
-    
+
     @Override
     public void setProfiler(AppProfiler profiler) {
         /* We don't support profiling yet */
@@ -218,5 +288,79 @@ public class ScenePreviewProcessor implements SceneProcessor {
 
     @Override
     public void cleanup() {
+        if (reader != null) {
+            reader.cleanup();
+        }
+    }
+
+    /**
+     * The area of the atlas a request is rendered to.
+     */
+    private static class TileRegion {
+
+        final PreviewRequest request;
+        final int x, y, width, height;
+
+        TileRegion(PreviewRequest request, int x, int y, int width, int height) {
+            this.request = request;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * A ViewPort rendering one request into its region of the atlas. The
+     * ViewPorts are not registered with the RenderManager, they are rendered
+     * by the processor after the batch has been set up.
+     */
+    private class PreviewTile {
+
+        final Camera camera;
+        final ViewPort view;
+        final Node node;
+        final PointLight light;
+
+        PreviewTile(int index) {
+            camera = new Camera(atlasSize, atlasSize);
+            view = new ViewPort("Preview Tile " + index, camera);
+            ColorRGBA color = new ColorRGBA();
+            color.setAsSrgb(0.25f, 0.25f, 0.25f, 1.0f);
+            view.setBackgroundColor(color);
+            view.setClearFlags(true, true, true);
+            view.setOutputFrameBuffer(offBuffer);
+            node = new Node("Preview Tile " + index);
+            light = new PointLight();
+            light.setColor(ColorRGBA.White);
+            node.addLight(light);
+            view.attachScene(node);
+        }
+
+        void setup(TileRegion region) {
+            PreviewRequest.CameraRequest request = region.request.getCameraRequest();
+            camera.setViewPort((float) region.x / atlasSize, (float) (region.x + region.width) / atlasSize,
+                    (float) region.y / atlasSize, (float) (region.y + region.height) / atlasSize);
+            camera.setFrustumPerspective(45f, (float) region.width / region.height, 1f, 1000f);
+            camera.setLocation(new Vector3f(5f, 5f, 5f));
+            camera.lookAt(new Vector3f(0f, 0f, 0f), Vector3f.UNIT_Y);
+            if (request.location != null) {
+                camera.setLocation(request.location);
+            }
+            if (request.rotation != null) {
+                camera.setRotation(request.rotation);
+            }
+            if (request.lookAt != null) {
+                camera.lookAt(request.lookAt, request.up);
+            }
+            light.setPosition(camera.getLocation());
+            node.attachChild(region.request.getSpatial());
+            previewNode.attachChild(node);
+        }
+
+        void clear() {
+            node.detachAllChildren();
+            previewNode.detachChild(node);
+        }
     }
 }
@@ -36,6 +36,12 @@ package com.jme3.gde.core.scene;
  * @author normenhansen
  */
 public interface SceneSyncListener {
+
+    /**
+     * Called on the render thread to update the UI state from the scene.
+     *
+     * @param tpf the time since the last call, 0 requests a full refresh
+     */
     public void syncSceneData(float tpf);
     
 }
@@ -38,8 +38,11 @@ import com.jme3.gde.core.scene.SceneListener;
 import com.jme3.gde.core.scene.SceneRequest;
 import com.jme3.gde.core.sceneexplorer.nodes.AbstractSceneExplorerNode;
 import com.jme3.gde.core.sceneexplorer.nodes.JmeNode;
+import com.jme3.gde.core.sceneexplorer.nodes.JmeSpatial;
 import com.jme3.gde.core.util.TerrainUtils;
 import com.jme3.renderer.Camera;
+import com.jme3.scene.Spatial;
+import java.awt.EventQueue;
 import java.beans.PropertyVetoException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -48,6 +51,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.JLabel;
+import javax.swing.JTextField;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import org.netbeans.api.settings.ConvertAsProperties;
 import org.openide.actions.CopyAction;
 import org.openide.actions.CutAction;
@@ -62,6 +69,7 @@ import org.openide.util.Exceptions;
 import org.openide.util.HelpCtx;
 import org.openide.util.Lookup;
 import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
 import org.openide.util.actions.SystemAction;
 import org.openide.windows.TopComponent;
 import org.openide.windows.WindowManager;
@@ -77,15 +85,24 @@ public final class SceneExplorerTopComponent extends TopComponent implements Exp
     private static final Logger logger = Logger.getLogger(SceneExplorerTopComponent.class.getName());
     private static SceneExplorerTopComponent instance;
     private static final String PREFERRED_ID = "SceneExplorerTopComponent";
+    private static final RequestProcessor SEARCH_RP = new RequestProcessor("Scene explorer search", 1);
+    private static final int SEARCH_DELAY = 200;
+    private static final int MAX_SEARCH_RESULTS = 100;
 //    private final Result<AbstractSceneExplorerNode> nodeSelectionResult;
     private AbstractSceneExplorerNode selectedSpatial;
     private AbstractSceneExplorerNode lastSelected;
     private Map<String, MaterialChangeProvider> materialChangeProviders = new HashMap<String, MaterialChangeProvider>();
     private Map<String, List<MaterialChangeListener>> materialChangeListeners = new HashMap<String, List<MaterialChangeListener>>();
+    private final RequestProcessor.Task searchTask = SEARCH_RP.create(this::runSearch);
+    private volatile SceneIndex sceneIndex;
+    private volatile String searchQuery = "";
+    private JTextField searchField;
+    private JLabel searchStatus;
 
     public SceneExplorerTopComponent() {
         initComponents();
         initActions();
+        initSearch();
         setName(NbBundle.getMessage(SceneExplorerTopComponent.class, "CTL_SceneExplorerTopComponent"));
         setToolTipText(NbBundle.getMessage(SceneExplorerTopComponent.class, "HINT_SceneExplorerTopComponent"));
         setIcon(IconList.jmeLogo.getImage());
@@ -105,6 +122,108 @@ public final class SceneExplorerTopComponent extends TopComponent implements Exp
         getActionMap().put(delete.getActionMapKey(), ExplorerUtils.actionDelete(explorerManager, true));
     }
 
+    private void initSearch() {
+        searchField = new JTextField(12);
+        searchField.setToolTipText(NbBundle.getMessage(SceneExplorerTopComponent.class, "SceneExplorerTopComponent.searchField.toolTipText"));
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchChanged();
+            }
+        });
+        searchField.addActionListener(e -> searchTask.schedule(0));
+        searchStatus = new JLabel();
+        jToolBar1.addSeparator();
+        jToolBar1.add(searchField);
+        jToolBar1.add(searchStatus);
+    }
+
+    private void searchChanged() {
+        searchQuery = searchField.getText();
+        searchTask.schedule(SEARCH_DELAY);
+    }
+
+    /**
+     * Queries the scene index off the EDT, the matches are then selected in
+     * the explorer which only expands the nodes on the way to them.
+     */
+    private void runSearch() {
+        final SceneIndex index = sceneIndex;
+        final String query = searchQuery;
+        if (index == null || query.trim().isEmpty()) {
+            EventQueue.invokeLater(() -> searchStatus.setText(""));
+            return;
+        }
+        final List<Spatial> found = index.search(query, MAX_SEARCH_RESULTS);
+        final boolean complete = index.isComplete();
+        Node root = explorerManager.getRootContext();
+        if (!(root instanceof JmeNode)) {
+            return;
+        }
+        // looking up the nodes waits for the render thread to collect the
+        // keys of subtrees that were not expanded, so it is done here
+        final List<Node> nodes = new ArrayList<Node>(found.size());
+        for (Spatial spatial : found) {
+            JmeSpatial node = ((JmeNode) root).getChild(spatial);
+            if (node != null) {
+                nodes.add(node);
+            }
+        }
+        EventQueue.invokeLater(() -> revealMatches(index, found, nodes, complete));
+    }
+
+    private void revealMatches(SceneIndex index, List<Spatial> found, List<Node> nodes, boolean complete) {
+        if (index != sceneIndex) {
+            return;
+        }
+        String count = found.size() < MAX_SEARCH_RESULTS ? String.valueOf(nodes.size()) : nodes.size() + "+";
+        searchStatus.setText(NbBundle.getMessage(SceneExplorerTopComponent.class,
+                complete ? "SceneExplorerTopComponent.searchStatus" : "SceneExplorerTopComponent.searchStatusIndexing", count));
+        if (!nodes.isEmpty()) {
+            try {
+                explorerManager.setSelectedNodes(nodes.toArray(new Node[nodes.size()]));
+            } catch (PropertyVetoException ex) {
+                Exceptions.printStackTrace(ex);
+            }
+        }
+    }
+
+    private void setSceneIndex(final SceneIndex index) {
+        final SceneIndex old = sceneIndex;
+        sceneIndex = index;
+        if (index != null) {
+            // a search made while indexing shows the final result when done
+            index.setCompletionListener(() -> {
+                if (!searchQuery.trim().isEmpty()) {
+                    searchTask.schedule(0);
+                }
+            });
+        }
+        // attached through the render queue, which also wakes up the
+        // application when it renders on demand
+        SceneApplication.getApplication().enqueue(() -> {
+            if (old != null) {
+                SceneApplication.getApplication().getStateManager().detach(old);
+            }
+            if (index != null) {
+                SceneApplication.getApplication().getStateManager().attach(index);
+            }
+            return null;
+        });
+        searchStatus.setText("");
+    }
+
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
@@ -300,11 +419,13 @@ public final class SceneExplorerTopComponent extends TopComponent implements Exp
             }
             setTerrainLodCamera(node);
         }
+        setSceneIndex(node != null && request.getRootNode() != null ? new SceneIndex(request.getRootNode()) : null);
     }
 
     @Override
     public void sceneClosed(SceneRequest request) {
         explorerManager.setRootContext(Node.EMPTY);
+        setSceneIndex(null);
     }
 
     @Override
@@ -0,0 +1,457 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.sceneexplorer;
+
+import com.jme3.app.Application;
+import com.jme3.app.state.AbstractAppState;
+import com.jme3.app.state.AppStateManager;
+import com.jme3.material.Material;
+import com.jme3.material.MaterialDef;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.control.Control;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Searchable index over the spatials of the open scene. For every spatial the
+ * name, the class, the material and material definition names, the user data
+ * keys and the control types are stored.<br>
+ * The index is built and kept up to date on the render thread, each frame
+ * only spends a small time budget on it. Spatials reported through
+ * {@link #spatialChanged(com.jme3.scene.Spatial)} are indexed again first,
+ * other edits are picked up by a sweep that checks the indexed spatials
+ * against the scene in the background.<br>
+ * The index is updated in every frame of the SceneApplication, also in the
+ * frames that are not rendered in on-demand mode.<br>
+ * {@link #search(java.lang.String, int)} can be called from any thread.
+ */
+public class SceneIndex extends AbstractAppState {
+
+    private static final long FRAME_BUDGET_NANOS = 2000000L;
+    private static final int TIME_CHECK_INTERVAL = 256;
+    private static final int SWEEP_PER_FRAME = 1000;
+    private static final Spatial[] NO_CHILDREN = new Spatial[0];
+    private static final String[] NO_STRINGS = new String[0];
+    private static final ClassValue<String> TYPE_NAMES = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return type.getSimpleName().toLowerCase(Locale.ROOT);
+        }
+    };
+    private static volatile SceneIndex current;
+    private final Spatial root;
+    private final Map<Spatial, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Spatial> changed = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Spatial> pending = new ArrayDeque<>();
+    private Iterator<Entry> sweep;
+    private volatile boolean complete = false;
+    private volatile Runnable completionListener;
+
+    public SceneIndex(Spatial root) {
+        this.root = root;
+        pending.add(root);
+    }
+
+    /**
+     * Sets a listener that is called on the render thread once the whole
+     * scene has been indexed.
+     */
+    public void setCompletionListener(Runnable listener) {
+        this.completionListener = listener;
+    }
+
+    /**
+     * Tells the index of the open scene that the given spatial or its children
+     * were changed. Can be called from any thread.
+     */
+    public static void spatialChanged(Spatial spatial) {
+        SceneIndex index = current;
+        if (index != null && spatial != null) {
+            index.changed.add(spatial);
+        }
+    }
+
+    @Override
+    public void initialize(AppStateManager stateManager, Application app) {
+        super.initialize(stateManager, app);
+        current = this;
+    }
+
+    @Override
+    public void cleanup() {
+        if (current == this) {
+            current = null;
+        }
+        entries.clear();
+        pending.clear();
+        changed.clear();
+        sweep = null;
+        super.cleanup();
+    }
+
+    @Override
+    public void update(float tpf) {
+        long deadline = System.nanoTime() + FRAME_BUDGET_NANOS;
+        int count = 0;
+        Spatial spatial;
+        while ((spatial = changed.poll()) != null) {
+            pending.addFirst(spatial);
+        }
+        while (!pending.isEmpty()) {
+            index(pending.poll());
+            if (++count % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                return;
+            }
+        }
+        if (!complete) {
+            complete = true;
+            Runnable listener = completionListener;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+        if (sweep == null || !sweep.hasNext()) {
+            sweep = entries.values().iterator();
+        }
+        for (int i = 0; i < SWEEP_PER_FRAME && sweep.hasNext(); i++) {
+            Entry entry = sweep.next();
+            if (!entry.isCurrent()) {
+                pending.add(entry.spatial);
+            }
+        }
+    }
+
+    /**
+     * @return true when the whole scene has been indexed once
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public Spatial getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the number of indexed spatials
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Finds the spatials matching a query. The query consists of terms
+     * separated by whitespace, all terms have to match. A term matches if the
+     * name, type, material, user data key or control type of a spatial
+     * contains it, ignoring case. Prefixing a term with <code>name:</code>,
+     * <code>type:</code>, <code>mat:</code>, <code>data:</code> or
+     * <code>control:</code> only checks that field.
+     *
+     * @param query the query text
+     * @param maxResults the maximum number of spatials returned
+     * @return the matching spatials
+     */
+    public List<Spatial> search(String query, int maxResults) {
+        List<Spatial> result = new ArrayList<>();
+        Term[] terms = Term.parse(query);
+        if (terms.length == 0) {
+            return result;
+        }
+        for (Entry entry : entries.values()) {
+            if (entry.matches(terms)) {
+                result.add(entry.spatial);
+                if (result.size() >= maxResults) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean isInScene(Spatial spatial) {
+        return spatial == root || (root instanceof Node && spatial.hasAncestor((Node) root));
+    }
+
+    private void index(Spatial spatial) {
+        if (!isInScene(spatial)) {
+            remove(spatial);
+            return;
+        }
+        Entry entry = new Entry(spatial);
+        Entry old = entries.put(spatial, entry);
+        if (old != null) {
+            for (Spatial child : old.children) {
+                if (child.getParent() != spatial) {
+                    // moved children are indexed again from their new place
+                    pending.add(child);
+                }
+            }
+        }
+        for (Spatial child : entry.children) {
+            if (old == null || !entries.containsKey(child)) {
+                pending.add(child);
+            }
+        }
+    }
+
+    private void remove(Spatial spatial) {
+        ArrayDeque<Spatial> stack = new ArrayDeque<>();
+        stack.push(spatial);
+        while (!stack.isEmpty()) {
+            Spatial next = stack.pop();
+            Entry entry = entries.remove(next);
+            if (entry == null) {
+                continue;
+            }
+            for (Spatial child : entry.children) {
+                if (!isInScene(child)) {
+                    stack.push(child);
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        final Spatial spatial;
+        final Node parent;
+        final String name;
+        final String lowerName;
+        final String type;
+        final Material material;
+        final String[] materials;
+        final String[] userData;
+        final String[] lowerUserData;
+        final Control[] controls;
+        final Spatial[] children;
+
+        Entry(Spatial spatial) {
+            this.spatial = spatial;
+            this.parent = spatial.getParent();
+            this.name = spatial.getName();
+            this.lowerName = name != null ? name.toLowerCase(Locale.ROOT) : "";
+            this.type = TYPE_NAMES.get(spatial.getClass());
+            this.material = spatial instanceof Geometry ? ((Geometry) spatial).getMaterial() : null;
+            this.materials = materialNames(material);
+            Collection<String> keys = spatial.getUserDataKeys();
+            this.userData = keys.toArray(NO_STRINGS);
+            this.lowerUserData = new String[userData.length];
+            for (int i = 0; i < userData.length; i++) {
+                lowerUserData[i] = userData[i].toLowerCase(Locale.ROOT);
+            }
+            this.controls = new Control[spatial.getNumControls()];
+            for (int i = 0; i < controls.length; i++) {
+                controls[i] = spatial.getControl(i);
+            }
+            this.children = spatial instanceof Node
+                    ? ((Node) spatial).getChildren().toArray(NO_CHILDREN) : NO_CHILDREN;
+        }
+
+        private static String[] materialNames(Material material) {
+            if (material == null) {
+                return NO_STRINGS;
+            }
+            List<String> names = new ArrayList<>(4);
+            addLower(names, material.getName());
+            addLower(names, material.getAssetName());
+            MaterialDef def = material.getMaterialDef();
+            if (def != null) {
+                addLower(names, def.getName());
+                addLower(names, def.getAssetName());
+            }
+            return names.toArray(NO_STRINGS);
+        }
+
+        private static void addLower(List<String> names, String name) {
+            if (name != null) {
+                names.add(name.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        /**
+         * @return false if the spatial was changed since it was indexed
+         */
+        boolean isCurrent() {
+            if (spatial.getParent() != parent || !Objects.equals(name, spatial.getName())) {
+                return false;
+            }
+            if (spatial instanceof Geometry && ((Geometry) spatial).getMaterial() != material) {
+                return false;
+            }
+            if (spatial.getNumControls() != controls.length) {
+                return false;
+            }
+            for (int i = 0; i < controls.length; i++) {
+                if (spatial.getControl(i) != controls[i]) {
+                    return false;
+                }
+            }
+            Collection<String> keys = spatial.getUserDataKeys();
+            if (keys.size() != userData.length) {
+                return false;
+            }
+            for (String key : userData) {
+                if (!keys.contains(key)) {
+                    return false;
+                }
+            }
+            if (spatial instanceof Node) {
+                List<Spatial> nodeChildren = ((Node) spatial).getChildren();
+                if (nodeChildren.size() != children.length) {
+                    return false;
+                }
+                for (int i = 0; i < children.length; i++) {
+                    if (nodeChildren.get(i) != children[i]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        boolean matches(Term[] terms) {
+            for (Term term : terms) {
+                if (!matches(term)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean matches(Term term) {
+            String text = term.text;
+            switch (term.field) {
+                case NAME:
+                    return lowerName.contains(text);
+                case TYPE:
+                    return type.contains(text);
+                case MATERIAL:
+                    return containsAny(materials, text);
+                case USER_DATA:
+                    return containsAny(lowerUserData, text);
+                case CONTROL:
+                    return matchesControl(text);
+                default:
+                    return lowerName.contains(text) || type.contains(text)
+                            || containsAny(materials, text) || containsAny(lowerUserData, text)
+                            || matchesControl(text);
+            }
+        }
+
+        private boolean matchesControl(String text) {
+            for (Control control : controls) {
+                if (control != null && TYPE_NAMES.get(control.getClass()).contains(text)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean containsAny(String[] values, String text) {
+            for (String value : values) {
+                if (value.contains(text)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private enum Field {
+
+        ANY, NAME, TYPE, MATERIAL, USER_DATA, CONTROL
+    }
+
+    private static final class Term {
+
+        final Field field;
+        final String text;
+
+        Term(Field field, String text) {
+            this.field = field;
+            this.text = text;
+        }
+
+        static Term[] parse(String query) {
+            if (query == null) {
+                return new Term[0];
+            }
+            List<Term> terms = new ArrayList<>();
+            for (String part : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+                if (part.isEmpty()) {
+                    continue;
+                }
+                Field field = Field.ANY;
+                int colon = part.indexOf(':');
+                if (colon > 0) {
+                    switch (part.substring(0, colon)) {
+                        case "name":
+                            field = Field.NAME;
+                            break;
+                        case "type":
+                            field = Field.TYPE;
+                            break;
+                        case "mat":
+                            field = Field.MATERIAL;
+                            break;
+                        case "data":
+                            field = Field.USER_DATA;
+                            break;
+                        case "control":
+                            field = Field.CONTROL;
+                            break;
+                        default:
+                            break;
+                    }
+                    if (field != Field.ANY) {
+                        part = part.substring(colon + 1);
+                    }
+                }
+                if (!part.isEmpty()) {
+                    terms.add(new Term(field, part));
+                }
+            }
+            return terms.toArray(new Term[terms.size()]);
+        }
+    }
+}
@@ -276,12 +276,11 @@ public abstract class AbstractSceneExplorerNode extends AbstractNode implements
     
     @Override
     public void syncSceneData(float tpf) {
-        //TODO: precache structure to avoid locks? Do it backwards, sending the actual bean value?
         for (PropertySet propertySet : getPropertySets()) {
             for (Property<?> property : propertySet.getProperties()) {
                 if(property instanceof SceneExplorerProperty){
                     SceneExplorerProperty<?> prop = (SceneExplorerProperty<?>)property;
-                    prop.syncValue();
+                    prop.syncValue(tpf);
                 }
             }
         }
@@ -157,6 +157,12 @@ public class JmeAssetLinkNode extends JmeNode {
             refresh();
         }
 
+        @Override
+        protected void updateKeys() {
+            // createKeys() waits for the render thread itself
+            setKeys(createKeys());
+        }
+
         @Override
         protected List<Object> createKeys() {
             try {
@@ -34,6 +34,7 @@ package com.jme3.gde.core.sceneexplorer.nodes;
 import com.jme3.bounding.BoundingVolume;
 import com.jme3.gde.core.properties.UserDataProperty;
 import com.jme3.gde.core.scene.SceneApplication;
+import com.jme3.gde.core.sceneexplorer.SceneIndex;
 import com.jme3.gde.core.sceneexplorer.nodes.actions.AddUserDataAction;
 import com.jme3.gde.core.sceneexplorer.nodes.actions.ControlsPopup;
 import com.jme3.gde.core.sceneexplorer.nodes.actions.NewControlPopup;
@@ -107,19 +108,48 @@ public class JmeSpatial extends AbstractSceneExplorerNode {
             return this;
         }
 
-        Node[] children = getChildren().getNodes();
-        for (Node node: children) {
+        if (!(spatial instanceof com.jme3.scene.Node) || !spat.hasAncestor((com.jme3.scene.Node) spatial)) {
+            return null;
+        }
+        return findChild(getChildren(), spat, -1);
+    }
+
+    /**
+     * @param pageIndex the index of the child of a paged node on the way to
+     * the spatial, -1 if not known yet
+     */
+    private static JmeSpatial findChild(org.openide.nodes.Children children, Spatial spat, int pageIndex) {
+        Node[] nodes = children instanceof JmeSpatialChildren
+                ? ((JmeSpatialChildren) children).getNodesNow()
+                : children.getNodes();
+        for (Node node : nodes) {
             if (node instanceof JmeSpatial) {
-                JmeSpatial jmeSpatial = (JmeSpatial) node;
-                JmeSpatial found = jmeSpatial.getChild(spat);
+                JmeSpatial found = ((JmeSpatial) node).getChild(spat);
                 if (found != null) {
                     return found;
                 }
+            } else if (node instanceof JmeSpatialPage) {
+                JmeSpatialPage page = (JmeSpatialPage) node;
+                if (pageIndex < 0) {
+                    pageIndex = page.indexOf(spat);
+                    if (pageIndex < 0) {
+                        return null;
+                    }
+                }
+                if (page.contains(pageIndex)) {
+                    return findChild(node.getChildren(), spat, pageIndex);
+                }
             }
         }
         return null;
     }
 
+    @Override
+    public void refresh(boolean immediate) {
+        SceneIndex.spatialChanged(spatial);
+        super.refresh(immediate);
+    }
+
 //    protected SystemAction[] createActions() {
 //        return new SystemAction[]{
 //                    SystemAction.get(RenameAction.class),
@@ -189,6 +219,7 @@ public class JmeSpatial extends AbstractSceneExplorerNode {
                 @Override
                 public Void call() throws Exception {
                     spatial.setName(s);
+                    SceneIndex.spatialChanged(spatial);
                     return null;
                 }
             }).get();
@@ -33,6 +33,8 @@ package com.jme3.gde.core.sceneexplorer.nodes;
 
 import com.jme3.effect.ParticleEmitter;
 import com.jme3.font.BitmapText;
+import com.jme3.gde.core.assets.ChunkStreamingControl;
+import com.jme3.gde.core.scene.SceneApplication;
 import com.jme3.light.AmbientLight;
 import com.jme3.light.DirectionalLight;
 import com.jme3.light.Light;
@@ -46,9 +48,11 @@ import com.jme3.scene.Spatial;
 import com.jme3.scene.control.Control;
 import com.jme3.ui.Picture;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
@@ -60,16 +64,26 @@ import org.openide.util.Exceptions;
 import org.openide.util.Lookup;
 
 /**
+ * The children of a spatial in the SceneExplorer. The keys are collected on
+ * the render thread. Nodes with more than PAGE_SIZE children get group nodes
+ * for ranges of their children, the nodes of a range are only created when its
+ * group gets expanded.
  *
  * @author normenhansen
  */
 public class JmeSpatialChildren extends Children.Keys<Object> {
 
+    /**
+     * The maximum number of children shown directly below a node.
+     */
+    public static final int PAGE_SIZE = 1000;
     protected Spatial spatial;
     protected boolean readOnly = true;
     protected HashMap<Object, Node> map = new HashMap<>();
     private DataObject dataObject;
+    private SpatialPage page;
     boolean hasKeys; // We use this to cache the keys, unless refresh is called
+    private volatile boolean keysPending; // keys were enqueued on the render thread but not set yet
 
     public JmeSpatialChildren() {
     }
@@ -78,19 +92,86 @@ public class JmeSpatialChildren extends Children.Keys<Object> {
         this.spatial = spatial;
     }
 
+    /**
+     * Creates the children for a range of the children of a node.
+     */
+    public JmeSpatialChildren(SpatialPage page) {
+        this.spatial = page.getNode();
+        this.page = page;
+    }
+
+    /**
+     * Updates the keys, nodes of keys that did not change are kept. Expanded
+     * child nodes are refreshed the same way.
+     */
     public void refreshChildren(boolean immediate) {
-        setKeys(createKeys());
-        refresh();
-        
-        if (nodes != null) { //Added a null check just to make sure the UI don't crash
-            
-            for (Node n : nodes) { // TODO: Why is nodes always empty? What about the Children's Children?
-                if (n instanceof AbstractSceneExplorerNode) {
-                    ((AbstractSceneExplorerNode)n).refresh(immediate);
-                }
+        if (!hasKeys) {
+            // not expanded yet, the keys are created when needed
+            return;
+        }
+        updateKeys();
+        List<Node> created;
+        synchronized (map) {
+            created = new ArrayList<>(map.values());
+        }
+        for (Node n : created) {
+            if (n instanceof AbstractSceneExplorerNode) {
+                ((AbstractSceneExplorerNode) n).refresh(immediate);
             }
         }
+    }
+
+    /**
+     * Sets the keys from createKeys(). When not called on the render thread
+     * the keys are collected on the render thread and set later.
+     */
+    protected void updateKeys() {
+        SceneApplication app = SceneApplication.getApplication();
+        if (app.isOgl()) {
+            applyKeys();
+        } else {
+            keysPending = true;
+            app.enqueue(() -> {
+                applyKeys();
+                return null;
+            });
+        }
+    }
 
+    private void applyKeys() {
+        keysPending = false;
+        List<Object> keys = createKeys();
+        if (keys != null) {
+            setKeys(keys);
+        }
+    }
+
+    /**
+     * Returns the child nodes, collecting the keys on the render thread and
+     * waiting for them if they were not created yet or an update is still
+     * pending. Used to look up nodes of subtrees that were not expanded, must
+     * not be called on the EDT because the render thread might wait for it.
+     */
+    Node[] getNodesNow() {
+        if (!hasKeys || keysPending) {
+            hasKeys = true;
+            SceneApplication app = SceneApplication.getApplication();
+            if (app.isOgl()) {
+                applyKeys();
+            } else {
+                try {
+                    List<Object> keys = app.enqueue(this::createKeys).get();
+                    if (keys != null) {
+                        setKeys(keys);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    Exceptions.printStackTrace(ex);
+                }
+            }
+        }
+        return getNodes();
     }
 
     public void setReadOnly(boolean cookie) {
@@ -105,15 +186,21 @@ public class JmeSpatialChildren extends Children.Keys<Object> {
          * only rebuild the keys again, when someone calls refresh()
          */
         if (!hasKeys) {
-            setKeys(createKeys());
             hasKeys = true;
+            updateKeys();
+        }
+        //expanding an unloaded chunk of a chunked scene streams it in
+        ChunkStreamingControl chunk = spatial != null ? spatial.getControl(ChunkStreamingControl.class) : null;
+        if (chunk != null) {
+            chunk.requestLoad(() -> java.awt.EventQueue.invokeLater(() -> refreshChildren(false)));
         }
     }
 
     /**
      * CreateKey finds all the Elements in our SceneGraph and returns them as "Keys".
      * Those Keys will then be processed by {@link #createNodes(java.lang.Object) } into SceneExplorer Nodes.
-     * That means the add-Actions just have to add elements to the SceneGraph for their AbstractSceneExplorerNode to be created
+     * That means the add-Actions just have to add elements to the SceneGraph for their AbstractSceneExplorerNode to be created.
+     * Called on the render thread, at most PAGE_SIZE children are returned, larger ranges are returned as {@link SpatialPage}s.
      * @return The List of Keys
      */
     protected List<Object> createKeys() {
@@ -130,9 +217,14 @@ public class JmeSpatialChildren extends Children.Keys<Object> {
                     
                     if (spatial instanceof com.jme3.scene.Node) {
                         com.jme3.scene.Node n = (com.jme3.scene.Node)spatial;
-                        keys = new ArrayList<Object>(spatial.getLocalLightList().size() + spatial.getNumControls() + n.getChildren().size());
-                        keys.addAll(n.getChildren());
-//                        return keys;
+                        int count = n.getQuantity();
+                        int end = page != null ? Math.min(page.getEnd(), count) : count;
+                        int start = page != null ? Math.min(page.getStart(), end) : 0;
+                        keys = new ArrayList<Object>(spatial.getLocalLightList().size() + spatial.getNumControls() + Math.min(end - start, PAGE_SIZE));
+                        addChildKeys(n, start, end, keys);
+                        if (page != null) {
+                            return keys;
+                        }
                     } else {
                         // we only build keys when we now how many elements there will be.
                         keys = new ArrayList<Object>(spatial.getLocalLightList().size() + spatial.getNumControls() + 1);
@@ -153,7 +245,9 @@ public class JmeSpatialChildren extends Children.Keys<Object> {
                     }
                     for (int i = 0; i < spatial.getNumControls(); i++) {
                         Control control = spatial.getControl(i);
-                        keys.add(control);
+                        if (!(control instanceof ChunkStreamingControl)) {
+                            keys.add(control);
+                        }
                     }
                     return keys;
                 }
@@ -168,8 +262,48 @@ public class JmeSpatialChildren extends Children.Keys<Object> {
         return null;
     }
 
+    private static void addChildKeys(com.jme3.scene.Node node, int start, int end, List<Object> keys) {
+        if (end - start <= PAGE_SIZE) {
+            for (int i = start; i < end; i++) {
+                keys.add(node.getChild(i));
+            }
+            return;
+        }
+        int span = PAGE_SIZE;
+        while ((long) span * PAGE_SIZE < end - start) {
+            span *= PAGE_SIZE;
+        }
+        for (int i = start; i < end; i += span) {
+            keys.add(new SpatialPage(node, i, Math.min(i + span, end)));
+        }
+    }
+
     @Override
     protected Node[] createNodes(Object key) {
+        Node[] created = createNodesForKey(key);
+        if (created.length == 1 && created[0] != Node.EMPTY) {
+            synchronized (map) {
+                map.put(key, created[0]);
+            }
+        }
+        return created;
+    }
+
+    @Override
+    protected void destroyNodes(Node[] destroyed) {
+        super.destroyNodes(destroyed);
+        synchronized (map) {
+            map.values().removeAll(Arrays.asList(destroyed));
+        }
+    }
+
+    private Node[] createNodesForKey(Object key) {
+        if (key instanceof SpatialPage) {
+            JmeSpatialChildren children = new JmeSpatialChildren((SpatialPage) key);
+            children.setReadOnly(readOnly);
+            children.setDataObject(dataObject);
+            return new Node[]{new JmeSpatialPage((SpatialPage) key, children)};
+        }
         for (SceneExplorerNode di : Lookup.getDefault().lookupAll(SceneExplorerNode.class)) {
             if (di.getExplorerObjectClass().getName().equals(key.getClass().getName())) {
                 Logger.getLogger(this.getClass().getName()).log(Level.FINE, "Found {0}", di.getExplorerNodeClass());
@@ -238,4 +372,52 @@ public class JmeSpatialChildren extends Children.Keys<Object> {
     public void setDataObject(DataObject dataObject) {
         this.dataObject = dataObject;
     }
+
+    /**
+     * Key for a range of the children of a node.
+     */
+    public static final class SpatialPage {
+
+        private final com.jme3.scene.Node node;
+        private final int start;
+        private final int end;
+
+        public SpatialPage(com.jme3.scene.Node node, int start, int end) {
+            this.node = node;
+            this.start = start;
+            this.end = end;
+        }
+
+        public com.jme3.scene.Node getNode() {
+            return node;
+        }
+
+        /**
+         * @return the index of the first child, inclusive
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return the index after the last child, exclusive
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SpatialPage)) {
+                return false;
+            }
+            SpatialPage other = (SpatialPage) obj;
+            return node == other.node && start == other.start && end == other.end;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(node), start, end);
+        }
+    }
 }
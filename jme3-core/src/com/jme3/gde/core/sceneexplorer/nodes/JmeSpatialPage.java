@@ -0,0 +1,120 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.sceneexplorer.nodes;
+
+import com.jme3.gde.core.icons.IconList;
+import com.jme3.gde.core.sceneexplorer.nodes.JmeSpatialChildren.SpatialPage;
+import com.jme3.scene.Spatial;
+import java.awt.Image;
+import javax.swing.Action;
+
+/**
+ * Groups a range of the children of a node that has too many children to
+ * show them directly. The nodes for the range are created when the group
+ * gets expanded.
+ */
+public class JmeSpatialPage extends AbstractSceneExplorerNode {
+
+    private static final Image smallImage = IconList.important.getImage();
+    private final SpatialPage page;
+
+    public JmeSpatialPage(SpatialPage page, JmeSpatialChildren children) {
+        super(children);
+        this.page = page;
+        setName("Children " + page.getStart() + " - " + (page.getEnd() - 1));
+        setReadOnly(true);
+    }
+
+    public SpatialPage getPage() {
+        return page;
+    }
+
+    /**
+     * @return true if the given spatial is one of the children in this range
+     * or below one of them
+     */
+    public boolean contains(Spatial spatial) {
+        return contains(indexOf(spatial));
+    }
+
+    /**
+     * @param index a child index as returned by {@link #indexOf(Spatial)}
+     * @return true if the child index lies in this range
+     */
+    public boolean contains(int index) {
+        return index >= page.getStart() && index < page.getEnd();
+    }
+
+    /**
+     * Finds the child of the paged node that is the given spatial or one of
+     * its ancestors. All pages of a node share the index, so it only has to
+     * be looked up once when searching through them.
+     * @return the index of that child, -1 if the spatial is not below the node
+     */
+    public int indexOf(Spatial spatial) {
+        Spatial child = spatial;
+        while (child != null && child.getParent() != page.getNode()) {
+            child = child.getParent();
+        }
+        return child == null ? -1 : page.getNode().getChildIndex(child);
+    }
+
+    @Override
+    public Image getIcon(int type) {
+        return smallImage;
+    }
+
+    @Override
+    public Image getOpenedIcon(int type) {
+        return smallImage;
+    }
+
+    @Override
+    public Action[] getActions(boolean context) {
+        return new Action[0];
+    }
+
+    @Override
+    public boolean canCopy() {
+        return false;
+    }
+
+    @Override
+    public boolean canCut() {
+        return false;
+    }
+
+    @Override
+    public Class getExplorerObjectClass() {
+        return SpatialPage.class;
+    }
+}
@@ -143,22 +143,35 @@ public class JmeTerrainLodControl extends JmeControl {
             refresh();
         }
 
+        @Override
+        protected void updateKeys() {
+            // createKeys() waits for the render thread itself
+            setKeys(createKeys());
+        }
+
         @Override
         protected List<Object> createKeys() {
+            Callable<List<Object>> collect = new Callable<List<Object>>() {
+
+                public List<Object> call() throws Exception {
+                    List<Object> keys = new ArrayList<Object>();
+                    if (control.getLodCalculator() != null)
+                        keys.add(control.getLodCalculator());
+                    return keys;
+                }
+            };
             try {
-                return SceneApplication.getApplication().enqueue(new Callable<List<Object>>() {
-
-                    public List<Object> call() throws Exception {
-                        List<Object> keys = new ArrayList<Object>();
-                        if (control.getLodCalculator() != null)
-                            keys.add(control.getLodCalculator());
-                        return keys;
-                    }
-                }).get();
+                SceneApplication app = SceneApplication.getApplication();
+                if (app.isOgl()) {
+                    return collect.call();
+                }
+                return app.enqueue(collect).get();
             } catch (InterruptedException ex) {
                 Exceptions.printStackTrace(ex);
             } catch (ExecutionException ex) {
                 Exceptions.printStackTrace(ex);
+            } catch (Exception ex) {
+                Exceptions.printStackTrace(ex);
             }
             return null;
         }
@@ -168,12 +181,6 @@ public class JmeTerrainLodControl extends JmeControl {
             this.readOnly = cookie;
         }
 
-        @Override
-        protected void addNotify() {
-            super.addNotify();
-            setKeys(createKeys());
-        }
-
         @Override
         protected Node[] createNodes(Object key) {
             if (key instanceof DistanceLodCalculator) {
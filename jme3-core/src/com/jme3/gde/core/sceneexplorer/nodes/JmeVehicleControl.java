@@ -160,6 +160,12 @@ public class JmeVehicleControl extends JmeControl {
             refresh();
         }
 
+        @Override
+        protected void updateKeys() {
+            // createKeys() waits for the render thread itself
+            setKeys(createKeys());
+        }
+
         @Override
         protected List<Object> createKeys() {
             try {
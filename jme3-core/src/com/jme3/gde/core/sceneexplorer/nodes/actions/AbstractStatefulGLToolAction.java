@@ -76,6 +76,8 @@ public abstract class AbstractStatefulGLToolAction {
 
             AbstractUndoableSceneEdit undoer = new AbstractUndoableSceneEdit() {
 
+                private final long size = estimateUndoSize();
+
                 @Override
                 public void sceneUndo() throws CannotUndoException {
                     doUndoTool(rootNode,object);
@@ -84,10 +86,15 @@ public abstract class AbstractStatefulGLToolAction {
 
                 @Override
                 public void sceneRedo() throws CannotRedoException {
-                    doApplyTool(rootNode);
+                    doRedoTool(rootNode, object);
                     setModified(rootNode, dataObject);
                 }
 
+                @Override
+                public long estimateSize() {
+                    return size;
+                }
+
             };
             if (manager != null) // this is a temporary check, it should never be null but occasionally is
                 manager.addEdit(this, undoer);
@@ -109,7 +116,23 @@ public abstract class AbstractStatefulGLToolAction {
         });
     }
 
+    /**
+     * @return the estimated size of the data this action keeps for undo in
+     * bytes, 0 by default
+     */
+    public long estimateUndoSize() {
+        return 0;
+    }
+
     protected abstract Object doApplyTool(AbstractSceneExplorerNode rootNode);
 
     protected abstract void doUndoTool(AbstractSceneExplorerNode rootNode, Object undoObject);
+
+    /**
+     * Redoes the action after it was undone, applies the tool again by
+     * default.
+     */
+    protected void doRedoTool(AbstractSceneExplorerNode rootNode, Object undoObject) {
+        doApplyTool(rootNode);
+    }
 }
@@ -35,6 +35,7 @@ import com.jme3.gde.core.scene.SceneApplication;
 import com.jme3.gde.core.sceneexplorer.nodes.AbstractSceneExplorerNode;
 import com.jme3.gde.core.undoredo.AbstractUndoableSceneEdit;
 import com.jme3.gde.core.undoredo.SceneUndoRedoManager;
+import com.jme3.gde.core.undoredo.SizeEstimating;
 import java.awt.event.ActionEvent;
 import java.util.concurrent.Callable;
 import javax.swing.AbstractAction;
@@ -64,18 +65,28 @@ public abstract class AbstractToolWizardAction implements ToolAction {
                         if (object != null) {
                             Lookup.getDefault().lookup(SceneUndoRedoManager.class).addEdit(this, new AbstractUndoableSceneEdit() {
 
+                                private volatile Object undoObject = object;
+
                                 @Override
                                 public void sceneUndo() throws CannotUndoException {
-                                    doUndoTool(rootNode, object);
+                                    doUndoTool(rootNode, undoObject);
                                     setModified();
                                 }
 
                                 @Override
                                 public void sceneRedo() throws CannotRedoException {
-                                    doApplyTool(rootNode, settings);
+                                    Object redone = doApplyTool(rootNode, settings);
+                                    if (redone != null) {
+                                        undoObject = redone;
+                                    }
                                     setModified();
                                 }
 
+                                @Override
+                                public long estimateSize() {
+                                    return undoObject instanceof SizeEstimating ? ((SizeEstimating) undoObject).estimateSize() : 0;
+                                }
+
                                 @Override
                                 public void awtRedo() {
                                     dataObject.setModified(true);
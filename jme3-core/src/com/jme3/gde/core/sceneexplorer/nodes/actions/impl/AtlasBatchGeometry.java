@@ -37,6 +37,8 @@ import com.jme3.gde.core.sceneexplorer.nodes.AbstractSceneExplorerNode;
 import com.jme3.gde.core.sceneexplorer.nodes.JmeNode;
 import com.jme3.gde.core.sceneexplorer.nodes.actions.AbstractToolWizardAction;
 import com.jme3.gde.core.sceneexplorer.nodes.actions.ToolAction;
+import com.jme3.gde.core.undoredo.SizeEstimating;
+import com.jme3.gde.core.undoredo.SpatialSnapshot;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
@@ -110,14 +112,19 @@ public class AtlasBatchGeometry extends AbstractToolWizardAction {
         }
     }
 
-    private class OldNew {
+    private class OldNew implements SizeEstimating {
 
         public OldNew(Spatial newSpat, List<Spatial> oldChildren) {
             this.newSpat = newSpat;
-            this.oldChildren = oldChildren;
+            this.oldChildren = new SpatialSnapshot(oldChildren);
         }
         Spatial newSpat;
-        List<Spatial> oldChildren;
+        SpatialSnapshot oldChildren;
+
+        @Override
+        public long estimateSize() {
+            return oldChildren.estimateSize();
+        }
     }
 
     @Override
@@ -187,7 +194,7 @@ public class AtlasBatchGeometry extends AbstractToolWizardAction {
             return;
         }
         parent.detachChild(undo.newSpat);
-        for (Iterator<Spatial> it = undo.oldChildren.iterator(); it.hasNext();) {
+        for (Iterator<Spatial> it = undo.oldChildren.getSpatials().iterator(); it.hasNext();) {
             Spatial spatial = it.next();
             parent.attachChild(spatial);
         }
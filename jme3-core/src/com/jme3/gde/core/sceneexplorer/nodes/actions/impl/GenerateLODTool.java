@@ -35,6 +35,9 @@ import com.jme3.gde.core.sceneexplorer.nodes.AbstractSceneExplorerNode;
 import com.jme3.gde.core.sceneexplorer.nodes.JmeGeometry;
 import com.jme3.gde.core.sceneexplorer.nodes.actions.AbstractToolWizardAction;
 import com.jme3.gde.core.sceneexplorer.nodes.actions.ToolAction;
+import com.jme3.gde.core.undoredo.CompressedBuffer;
+import com.jme3.gde.core.undoredo.SizeEstimating;
+import com.jme3.gde.core.undoredo.UndoSizes;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.VertexBuffer;
@@ -65,9 +68,9 @@ public class GenerateLODTool extends AbstractToolWizardAction {
         Geometry geom = rootNode.getLookup().lookup(Geometry.class);
         Mesh mesh = geom.getMesh();
         if (mesh != null) {
-            VertexBuffer[] vbs = (VertexBuffer[]) undoObject;
+            VertexBuffer[] vbs = ((OldLods) undoObject).getLodLevels();
             if (vbs.length>0){
-                mesh.setLodLevels((VertexBuffer[]) undoObject);
+                mesh.setLodLevels(vbs);
             }else{
                 mesh.setLodLevels(null);
             }
@@ -138,12 +141,80 @@ public class GenerateLODTool extends AbstractToolWizardAction {
                 }
             }
 
-            if(lods == null){
-                return new VertexBuffer[0];
-            }
-            return lods;
+            return new OldLods(lods != null ? lods : new VertexBuffer[0]);
         }
         return null;
 
-    }        
+    }
+
+    /**
+     * The replaced lod levels, their index data is compressed when it is
+     * large.
+     */
+    private static class OldLods implements SizeEstimating {
+
+        private final VertexBuffer[] lods;
+        private final CompressedLod[] compressed;
+        private final long size;
+
+        public OldLods(VertexBuffer[] lods) {
+            long estimate = UndoSizes.estimate(lods);
+            if (estimate > UndoSizes.COMPRESS_THRESHOLD) {
+                this.lods = null;
+                compressed = new CompressedLod[lods.length];
+                long compressedSize = 0;
+                for (int i = 0; i < lods.length; i++) {
+                    compressed[i] = new CompressedLod(lods[i]);
+                    compressedSize += compressed[i].data.estimateSize();
+                }
+                size = compressedSize;
+            } else {
+                this.lods = lods;
+                compressed = null;
+                size = estimate;
+            }
+        }
+
+        public VertexBuffer[] getLodLevels() {
+            if (compressed == null) {
+                return lods;
+            }
+            VertexBuffer[] restored = new VertexBuffer[compressed.length];
+            for (int i = 0; i < compressed.length; i++) {
+                restored[i] = compressed[i].restore();
+            }
+            return restored;
+        }
+
+        @Override
+        public long estimateSize() {
+            return size;
+        }
+    }
+
+    private static class CompressedLod {
+
+        final VertexBuffer.Type type;
+        final VertexBuffer.Usage usage;
+        final VertexBuffer.Format format;
+        final int components;
+        final boolean normalized;
+        final CompressedBuffer data;
+
+        CompressedLod(VertexBuffer lod) {
+            type = lod.getBufferType();
+            usage = lod.getUsage();
+            format = lod.getFormat();
+            components = lod.getNumComponents();
+            normalized = lod.isNormalized();
+            data = CompressedBuffer.compress(lod.getData());
+        }
+
+        VertexBuffer restore() {
+            VertexBuffer lod = new VertexBuffer(type);
+            lod.setNormalized(normalized);
+            lod.setupData(usage, components, format, data.toBuffer());
+            return lod;
+        }
+    }
 }
@@ -35,6 +35,8 @@ import com.jme3.gde.core.sceneexplorer.nodes.AbstractSceneExplorerNode;
 import com.jme3.gde.core.sceneexplorer.nodes.JmeNode;
 import com.jme3.gde.core.sceneexplorer.nodes.actions.AbstractToolAction;
 import com.jme3.gde.core.sceneexplorer.nodes.actions.ToolAction;
+import com.jme3.gde.core.undoredo.SizeEstimating;
+import com.jme3.gde.core.undoredo.SpatialSnapshot;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import java.util.ArrayList;
@@ -49,14 +51,19 @@ import jme3tools.optimize.GeometryBatchFactory;
 @org.openide.util.lookup.ServiceProvider(service = ToolAction.class)
 public class OptimizeGeometry extends AbstractToolAction {
 
-    private class OldNew {
+    private class OldNew implements SizeEstimating {
 
         public OldNew(List<Spatial> newChildren, List<Spatial> oldChildren) {
             this.newChildren = newChildren;
-            this.oldChildren = oldChildren;
+            this.oldChildren = new SpatialSnapshot(oldChildren);
         }
         List<Spatial> newChildren;
-        List<Spatial> oldChildren;
+        SpatialSnapshot oldChildren;
+
+        @Override
+        public long estimateSize() {
+            return oldChildren.estimateSize();
+        }
     }
 
     public OptimizeGeometry() {
@@ -85,7 +92,7 @@ public class OptimizeGeometry extends AbstractToolAction {
             Spatial spatial = it.next();
             spatial.removeFromParent();
         }
-        for (Iterator<Spatial> it = undo.oldChildren.iterator(); it.hasNext();) {
+        for (Iterator<Spatial> it = undo.oldChildren.getSpatials().iterator(); it.hasNext();) {
             Spatial spatial = it.next();
             parent.attachChild(spatial);
         }
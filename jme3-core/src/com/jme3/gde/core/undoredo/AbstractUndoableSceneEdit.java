@@ -43,7 +43,7 @@ import org.openide.util.Exceptions;
  * Unodablededit for scene operations, executes sceneUndo and sceneRedo on scene thread
  * @author normenhansen
  */
-public abstract class AbstractUndoableSceneEdit extends AbstractUndoableEdit {
+public abstract class AbstractUndoableSceneEdit extends AbstractUndoableEdit implements SizeEstimating {
 
     public abstract void sceneUndo();
 
@@ -57,6 +57,18 @@ public abstract class AbstractUndoableSceneEdit extends AbstractUndoableEdit {
 
     }
 
+    /**
+     * Edits that keep large data like meshes or height values should return
+     * its size, so the undo history can stay within its memory budget.
+     *
+     * @return the estimated size of the data kept for undo and redo in bytes,
+     * 0 by default
+     */
+    @Override
+    public long estimateSize() {
+        return 0;
+    }
+
     @Override
     public void undo() throws CannotUndoException {
         super.undo();
@@ -0,0 +1,235 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.undoredo;
+
+import com.jme3.util.BufferUtils;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed copy of the content of a buffer or primitive array, for undo
+ * data that is rarely read again. Deflate is used at its fastest level, the
+ * vertex and height data of undo edits usually shrinks to a third or less.
+ */
+public final class CompressedBuffer implements SizeEstimating {
+
+    private enum Kind {
+
+        BYTE, SHORT, INT, FLOAT, DOUBLE
+    }
+
+    private final Kind kind;
+    private final int elements;
+    private final byte[] data;
+
+    private CompressedBuffer(Kind kind, int elements, byte[] data) {
+        this.kind = kind;
+        this.elements = elements;
+        this.data = data;
+    }
+
+    /**
+     * Compresses the content between position 0 and the limit of the buffer.
+     * The position of the buffer is not changed.
+     *
+     * @param buffer a byte, short, int, float or double buffer
+     */
+    public static CompressedBuffer compress(Buffer buffer) {
+        Kind kind = kindOf(buffer);
+        int elements = buffer.limit();
+        ByteBuffer bytes = ByteBuffer.allocate(elements * UndoSizes.elementSize(buffer)).order(ByteOrder.nativeOrder());
+        switch (kind) {
+            case BYTE:
+                bytes.put(((ByteBuffer) buffer).duplicate().clear().limit(elements));
+                break;
+            case SHORT:
+                bytes.asShortBuffer().put(((ShortBuffer) buffer).duplicate().clear().limit(elements));
+                break;
+            case INT:
+                bytes.asIntBuffer().put(((IntBuffer) buffer).duplicate().clear().limit(elements));
+                break;
+            case FLOAT:
+                bytes.asFloatBuffer().put(((FloatBuffer) buffer).duplicate().clear().limit(elements));
+                break;
+            default:
+                bytes.asDoubleBuffer().put(((DoubleBuffer) buffer).duplicate().clear().limit(elements));
+                break;
+        }
+        return new CompressedBuffer(kind, elements, deflate(bytes.array()));
+    }
+
+    public static CompressedBuffer compress(float[] values) {
+        return compress(FloatBuffer.wrap(values));
+    }
+
+    public static CompressedBuffer compress(int[] values) {
+        return compress(IntBuffer.wrap(values));
+    }
+
+    /**
+     * @return a new direct buffer with the original content, of the same
+     * type as the compressed buffer
+     */
+    public Buffer toBuffer() {
+        ByteBuffer bytes = ByteBuffer.wrap(inflate()).order(ByteOrder.nativeOrder());
+        switch (kind) {
+            case BYTE:
+                ByteBuffer byteBuffer = BufferUtils.createByteBuffer(elements);
+                byteBuffer.put(bytes).flip();
+                return byteBuffer;
+            case SHORT:
+                ShortBuffer shortBuffer = BufferUtils.createShortBuffer(elements);
+                shortBuffer.put(bytes.asShortBuffer()).flip();
+                return shortBuffer;
+            case INT:
+                IntBuffer intBuffer = BufferUtils.createIntBuffer(elements);
+                intBuffer.put(bytes.asIntBuffer()).flip();
+                return intBuffer;
+            case FLOAT:
+                FloatBuffer floatBuffer = BufferUtils.createFloatBuffer(elements);
+                floatBuffer.put(bytes.asFloatBuffer()).flip();
+                return floatBuffer;
+            default:
+                DoubleBuffer doubleBuffer = BufferUtils.createDoubleBuffer(elements);
+                doubleBuffer.put(bytes.asDoubleBuffer()).flip();
+                return doubleBuffer;
+        }
+    }
+
+    /**
+     * @return the content of a compressed float buffer or array
+     */
+    public float[] toFloatArray() {
+        float[] values = new float[elements];
+        ByteBuffer.wrap(inflate()).order(ByteOrder.nativeOrder()).asFloatBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * @return the content of a compressed int buffer or array
+     */
+    public int[] toIntArray() {
+        int[] values = new int[elements];
+        ByteBuffer.wrap(inflate()).order(ByteOrder.nativeOrder()).asIntBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * @return the number of elements of the original buffer
+     */
+    public int getElementCount() {
+        return elements;
+    }
+
+    @Override
+    public long estimateSize() {
+        return 32 + data.length;
+    }
+
+    private static Kind kindOf(Buffer buffer) {
+        if (buffer instanceof ByteBuffer) {
+            return Kind.BYTE;
+        } else if (buffer instanceof ShortBuffer) {
+            return Kind.SHORT;
+        } else if (buffer instanceof IntBuffer) {
+            return Kind.INT;
+        } else if (buffer instanceof FloatBuffer) {
+            return Kind.FLOAT;
+        } else if (buffer instanceof DoubleBuffer) {
+            return Kind.DOUBLE;
+        }
+        throw new IllegalArgumentException("Unsupported buffer type " + buffer.getClass().getName());
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] output = new byte[Math.max(64, input.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return Arrays.copyOf(output, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] inflate() {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] output = new byte[elements * elementSize()];
+            int length = 0;
+            while (length < output.length && !inflater.finished()) {
+                int read = inflater.inflate(output, length, output.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated undo data");
+                }
+                length += read;
+            }
+            return output;
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Corrupt undo data", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private int elementSize() {
+        switch (kind) {
+            case BYTE:
+                return 1;
+            case SHORT:
+                return 2;
+            case INT:
+            case FLOAT:
+                return 4;
+            default:
+                return 8;
+        }
+    }
+}
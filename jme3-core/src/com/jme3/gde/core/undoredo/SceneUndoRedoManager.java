@@ -31,16 +31,92 @@
  */
 package com.jme3.gde.core.undoredo;
 
+import com.jme3.gde.core.Installer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.event.UndoableEditEvent;
 import javax.swing.undo.UndoableEdit;
 import org.openide.awt.UndoRedo;
+import org.openide.util.NbPreferences;
 
 /**
+ * Undo manager of the scene editors. Besides the edit count limit the
+ * history is kept within a memory budget: edits implementing
+ * {@link SizeEstimating} are accounted with their estimated size and the
+ * oldest edits are dropped when the total exceeds the budget. The newest
+ * edit is always kept.
  *
  * @author normenhansen
  */
 public class SceneUndoRedoManager extends UndoRedo.Manager {
 
+    /**
+     * Preference for the memory budget of the undo history in megabytes.
+     */
+    public static final String PREF_UNDO_MEMORY_MB = "undo_memory_budget_mb";
+    public static final int DEFAULT_UNDO_MEMORY_MB = 256;
+    private static final Logger logger = Logger.getLogger(SceneUndoRedoManager.class.getName());
+    private long memoryBudget;
+
+    public SceneUndoRedoManager() {
+        memoryBudget = NbPreferences.forModule(Installer.class).getInt(PREF_UNDO_MEMORY_MB, DEFAULT_UNDO_MEMORY_MB) * 1024L * 1024L;
+    }
+
+    /**
+     * @param bytes the maximum memory the undo history may keep alive
+     */
+    public synchronized void setMemoryBudget(long bytes) {
+        memoryBudget = bytes;
+        trimToBudget();
+    }
+
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @return the estimated size of all edits in the history in bytes
+     */
+    public synchronized long getMemoryUsage() {
+        long total = 0;
+        for (UndoableEdit edit : edits) {
+            total += sizeOf(edit);
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized void undoableEditHappened(UndoableEditEvent ue) {
+        super.undoableEditHappened(ue);
+        trimToBudget();
+    }
+
+    /**
+     * Drops the oldest undoable edits until the history fits the budget.
+     * Edits that were undone are not touched, they are removed by the
+     * manager when a new edit is added.
+     */
+    private void trimToBudget() {
+        long total = getMemoryUsage();
+        int dropped = 0;
+        while (total > memoryBudget && edits.size() > 1) {
+            UndoableEdit oldest = edits.firstElement();
+            if (!oldest.canUndo() || oldest == editToBeUndone()) {
+                break;
+            }
+            total -= sizeOf(oldest);
+            trimEdits(0, 0);
+            dropped++;
+        }
+        if (dropped > 0) {
+            logger.log(Level.FINE, "Dropped {0} undo edits, history now uses {1} bytes", new Object[]{dropped, total});
+        }
+    }
+
+    private static long sizeOf(UndoableEdit edit) {
+        return edit instanceof SizeEstimating ? ((SizeEstimating) edit).estimateSize() : 0;
+    }
+
     public void addEdit(final Object source, final UndoableEdit edit) {
         if (!java.awt.EventQueue.isDispatchThread()) {
             java.awt.EventQueue.invokeLater(new Runnable() {
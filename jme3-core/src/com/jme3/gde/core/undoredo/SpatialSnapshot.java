@@ -0,0 +1,147 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.undoredo;
+
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.export.binary.BinaryImporter;
+import com.jme3.gde.core.scene.SceneApplication;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.openide.util.Exceptions;
+
+/**
+ * Keeps spatials that were removed from the scene by an edit, so they can be
+ * attached again on undo. If the meshes of the spatials are larger than
+ * {@link UndoSizes#COMPRESS_THRESHOLD} they are stored as compressed j3o data and loaded again
+ * with the scenes AssetManager when needed, the restored spatials are copies
+ * of the original ones then.<br>
+ * Has to be created and read on the render thread.
+ */
+public final class SpatialSnapshot implements SizeEstimating {
+
+    private final List<Spatial> spatials;
+    private final byte[] data;
+    private final long size;
+
+    /**
+     * @param spatials the spatials, they are only compressed if none of them
+     * is attached to a parent
+     */
+    public SpatialSnapshot(List<Spatial> spatials) {
+        long estimate = UndoSizes.estimate(spatials);
+        byte[] compressed = null;
+        if (estimate > UndoSizes.COMPRESS_THRESHOLD && isDetached(spatials)) {
+            try {
+                compressed = write(spatials);
+            } catch (IOException | RuntimeException ex) {
+                Exceptions.printStackTrace(ex);
+            }
+        }
+        this.data = compressed;
+        this.spatials = compressed == null ? new ArrayList<Spatial>(spatials) : null;
+        this.size = compressed == null ? estimate : compressed.length;
+    }
+
+    /**
+     * @return the spatials, restored from the compressed data if needed
+     */
+    public List<Spatial> getSpatials() {
+        if (data == null) {
+            return spatials;
+        }
+        try {
+            return read(data);
+        } catch (IOException | RuntimeException ex) {
+            Exceptions.printStackTrace(ex);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * @return true if the spatials are stored compressed
+     */
+    public boolean isCompressed() {
+        return data != null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return size;
+    }
+
+    private static boolean isDetached(List<Spatial> spatials) {
+        for (Spatial spatial : spatials) {
+            if (spatial.getParent() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] write(List<Spatial> spatials) throws IOException {
+        Node holder = new Node("UndoSnapshot");
+        for (Spatial spatial : spatials) {
+            holder.attachChild(spatial);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater)) {
+            BinaryExporter.getInstance().save(holder, deflaterOut);
+        } finally {
+            deflater.end();
+            holder.detachAllChildren();
+        }
+        return out.toByteArray();
+    }
+
+    private static List<Spatial> read(byte[] data) throws IOException {
+        BinaryImporter importer = new BinaryImporter();
+        importer.setAssetManager(SceneApplication.getApplication().getAssetManager());
+        Node holder;
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            holder = (Node) importer.load(in);
+        }
+        List<Spatial> restored = new ArrayList<Spatial>(holder.getChildren());
+        holder.detachAllChildren();
+        return restored;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.core.undoredo;
+
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import java.lang.reflect.Array;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Estimates the memory used by typical undo payloads: buffers, meshes,
+ * spatials, arrays and collections of them. Meshes that are referenced more
+ * than once are only counted once.
+ */
+public final class UndoSizes {
+
+    /**
+     * Undo payloads larger than this many bytes should be kept compressed.
+     */
+    public static final long COMPRESS_THRESHOLD = 1024 * 1024;
+
+    private static final long OBJECT_SIZE = 16;
+    private static final long REFERENCE_SIZE = 8;
+
+    private UndoSizes() {
+    }
+
+    /**
+     * @param payload the undo payload
+     * @return the estimated size in bytes
+     */
+    public static long estimate(Object payload) {
+        return estimate(payload, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+    }
+
+    private static long estimate(Object payload, Set<Object> counted) {
+        if (payload == null) {
+            return 0;
+        }
+        if (payload instanceof SizeEstimating) {
+            return ((SizeEstimating) payload).estimateSize();
+        }
+        if (payload instanceof Number || payload instanceof Boolean) {
+            return OBJECT_SIZE;
+        }
+        if (payload instanceof Buffer) {
+            return sizeOf((Buffer) payload);
+        }
+        if (!counted.add(payload)) {
+            return 0;
+        }
+        if (payload instanceof VertexBuffer) {
+            return OBJECT_SIZE + sizeOf(((VertexBuffer) payload).getData());
+        }
+        if (payload instanceof Mesh) {
+            Mesh mesh = (Mesh) payload;
+            long size = OBJECT_SIZE;
+            for (VertexBuffer buffer : mesh.getBufferList()) {
+                size += estimate(buffer, counted);
+            }
+            for (int i = 0; i < mesh.getNumLodLevels(); i++) {
+                size += estimate(mesh.getLodLevel(i), counted);
+            }
+            return size;
+        }
+        if (payload instanceof Geometry) {
+            return OBJECT_SIZE + estimate(((Geometry) payload).getMesh(), counted);
+        }
+        if (payload instanceof Node) {
+            long size = OBJECT_SIZE;
+            for (Spatial child : ((Node) payload).getChildren()) {
+                size += estimate(child, counted);
+            }
+            return size;
+        }
+        if (payload instanceof Collection) {
+            long size = OBJECT_SIZE;
+            for (Object element : (Collection<?>) payload) {
+                size += REFERENCE_SIZE + estimate(element, counted);
+            }
+            return size;
+        }
+        if (payload instanceof Object[]) {
+            long size = OBJECT_SIZE;
+            for (Object element : (Object[]) payload) {
+                size += REFERENCE_SIZE + estimate(element, counted);
+            }
+            return size;
+        }
+        return OBJECT_SIZE + primitiveArraySize(payload);
+    }
+
+    /**
+     * @return the size of the buffers content, including the unused
+     * capacity
+     */
+    public static long sizeOf(Buffer buffer) {
+        if (buffer == null) {
+            return 0;
+        }
+        return (long) buffer.capacity() * elementSize(buffer);
+    }
+
+    static int elementSize(Buffer buffer) {
+        if (buffer instanceof ByteBuffer) {
+            return 1;
+        } else if (buffer instanceof ShortBuffer || buffer instanceof CharBuffer) {
+            return 2;
+        } else if (buffer instanceof IntBuffer || buffer instanceof FloatBuffer) {
+            return 4;
+        } else if (buffer instanceof LongBuffer || buffer instanceof DoubleBuffer) {
+            return 8;
+        }
+        return 1;
+    }
+
+    private static long primitiveArraySize(Object array) {
+        if (array instanceof byte[] || array instanceof boolean[]) {
+            return Array.getLength(array);
+        } else if (array instanceof short[] || array instanceof char[]) {
+            return 2L * Array.getLength(array);
+        } else if (array instanceof int[] || array instanceof float[]) {
+            return 4L * Array.getLength(array);
+        } else if (array instanceof long[] || array instanceof double[]) {
+            return 8L * Array.getLength(array);
+        }
+        return 0;
+    }
+}
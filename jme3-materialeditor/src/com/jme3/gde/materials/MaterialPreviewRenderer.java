@@ -34,6 +34,7 @@ package com.jme3.gde.materials;
 import com.jme3.asset.AssetNotFoundException;
 import com.jme3.asset.MaterialKey;
 import com.jme3.gde.core.assets.ProjectAssetManager;
+import com.jme3.gde.core.assets.ThumbnailCache;
 import com.jme3.gde.core.scene.PreviewRequest;
 import com.jme3.gde.core.scene.SceneApplication;
 import com.jme3.gde.core.scene.SceneListener;
@@ -50,7 +51,10 @@ import com.jme3.scene.shape.Box;
 import com.jme3.scene.shape.Quad;
 import com.jme3.scene.shape.Sphere;
 import com.jme3.util.mikktspace.MikktspaceTangentGenerator;
+import java.awt.image.BufferedImage;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -75,6 +79,7 @@ public class MaterialPreviewRenderer implements SceneListener {
     private final JLabel label;
     private final ScheduledThreadPoolExecutor exec = new ScheduledThreadPoolExecutor(5);
     private boolean previewRequested;
+    private final Map<PreviewRequest, String> cacheKeys = new ConcurrentHashMap<>();
 
     public enum DisplayType {
 
@@ -126,11 +131,24 @@ public class MaterialPreviewRenderer implements SceneListener {
             init();
         }
         exec.execute(() -> {
-            MaterialKey key = new MaterialKey(assetManager.getRelativeAssetPath(materialFileName));
+            String assetName = assetManager.getRelativeAssetPath(materialFileName);
+            MaterialKey key = new MaterialKey(assetName);
             assetManager.deleteFromCache(key);
             Material mat = assetManager.loadAsset(key);
             if (mat != null) {
-                showMaterial(mat);
+                final Geometry geom = currentGeom;
+                String cacheKey = ThumbnailCache.getDefault().computeKey(assetManager, assetName, "material-preview-" + geom.getName());
+                final BufferedImage cached = ThumbnailCache.getDefault().get(cacheKey, label.getWidth(), label.getHeight());
+                if (cached != null) {
+                    // unchanged material, no need to compile and render it
+                    java.awt.EventQueue.invokeLater(() -> {
+                        currentMaterial = mat;
+                        geom.setMaterial(mat);
+                        label.setIcon(new ImageIcon(cached));
+                    });
+                    return;
+                }
+                showMaterial(mat, null, cacheKey);
             }
         });
 
@@ -141,6 +159,10 @@ public class MaterialPreviewRenderer implements SceneListener {
     }
 
     public void showMaterial(final Material m, final String techniqueName) {
+        showMaterial(m, techniqueName, null);
+    }
+
+    private void showMaterial(final Material m, final String techniqueName, final String cacheKey) {
         if (!init) {
             init();
         }
@@ -162,6 +184,9 @@ public class MaterialPreviewRenderer implements SceneListener {
                             PreviewRequest request = new PreviewRequest(MaterialPreviewRenderer.this, currentGeom, label.getWidth(), label.getHeight());
                             request.getCameraRequest().setLocation(new Vector3f(0, 0, 7));
                             request.getCameraRequest().setLookAt(new Vector3f(0, 0, 0), Vector3f.UNIT_Y);
+                            if (cacheKey != null) {
+                                cacheKeys.put(request, cacheKey);
+                            }
                             SceneApplication.getApplication().createPreview(request);
                         }
                     } catch (Exception e) {
@@ -261,6 +286,10 @@ public class MaterialPreviewRenderer implements SceneListener {
     @Override
     public void previewCreated(PreviewRequest request) {
         if (request.getRequester() == this) {
+            String cacheKey = cacheKeys.remove(request);
+            if (cacheKey != null) {
+                ThumbnailCache.getDefault().put(cacheKey, request.getImage());
+            }
             final ImageIcon icon = new ImageIcon(request.getImage());
             java.awt.EventQueue.invokeLater(() -> {
                 label.setIcon(icon);
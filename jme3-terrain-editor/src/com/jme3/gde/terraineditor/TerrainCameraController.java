@@ -61,7 +61,8 @@ public class TerrainCameraController extends AbstractCameraController {
     private boolean terrainEditToolActivated = false;
     protected Application app;
     private float toolModifyRate = 0.05f; // how frequently (in seconds) it should update to throttle down the tool effect
-    private float lastModifyTime; // last time the tool executed
+    private final TerrainStrokeEngine stroke = new TerrainStrokeEngine(toolModifyRate);
+    private static final int MAX_DABS_PER_FRAME = 64; // the rest of a fast stroke is applied in the next frames
 
     public TerrainCameraController(Camera cam) {
         super(cam, SceneApplication.getApplication().getInputManager());
@@ -90,6 +91,9 @@ public class TerrainCameraController extends AbstractCameraController {
         Vector3f pos = getTerrainCollisionPoint();
         if (pos != null) {
             toolController.doMoveEditTool(pos);
+            if (terrainEditToolActivated) {
+                stroke.moveTo(toolController.getMarkerLocation(), toolController.getToolRadius());
+            }
         }
     }
 
@@ -116,9 +120,17 @@ public class TerrainCameraController extends AbstractCameraController {
     
     private void checkMouseButtonState(int button, boolean pressed) {
         if (isTerrainEditButtonEnabled() && !forceCameraControls) {
-            if (terrainEditToolActivated != pressed)
+            if (terrainEditToolActivated != pressed) {
+                if (!pressed) {
+                    applyDabs(Integer.MAX_VALUE); // finish the stroke before its undo is recorded
+                    stroke.end();
+                }
                 toolController.doTerrainEditToolActionEnded(); // button state change, trigger undo action
+            }
             terrainEditToolActivated = pressed;
+            if (pressed && !stroke.isActive()) {
+                stroke.begin(toolController.getMarkerLocation());
+            }
         }
         
         
@@ -155,20 +167,29 @@ public class TerrainCameraController extends AbstractCameraController {
 
     /**
      * Update the terrain if it has had any editing done on it.
-     * We do it with a Timer to control the intensity and frequency
-     * of the editing.
+     * The stroke engine places the brush dabs along the mouse path and at
+     * toolModifyRate while the mouse rests, so the intensity does not depend
+     * on the frame rate.
      */
     private void doTerrainUpdates(float dt) {
         if (terrainEditToolActivated) {
-            lastModifyTime += dt;
-
-            if (lastModifyTime >= toolModifyRate) {
-                lastModifyTime = 0;
-                toolController.doTerrainEditToolActivated();
-                toolController.doTerrainEditToolAlternateActivated();
-                //terrainEditToolActivated = false;
-                lastModifyTime = app.getContext().getTimer().getTime();
+            stroke.update(dt);
+            applyDabs(MAX_DABS_PER_FRAME);
+            if (stroke.isActive()) {
+                // a resting cursor keeps painting, also when rendering on demand
+                SceneApplication.getApplication().requestRender();
+            }
+        }
+    }
+
+    private void applyDabs(int max) {
+        for (int i = 0; i < max; i++) {
+            Vector3f dab = stroke.poll();
+            if (dab == null) {
+                return;
             }
+            toolController.doTerrainEditToolActivated(dab);
+            toolController.doTerrainEditToolAlternateActivated(dab);
         }
     }
 
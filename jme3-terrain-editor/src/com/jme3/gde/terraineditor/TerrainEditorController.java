@@ -42,17 +42,16 @@ import com.jme3.gde.core.sceneexplorer.nodes.JmeSpatial;
 import com.jme3.gde.core.undoredo.AbstractUndoableSceneEdit;
 import com.jme3.gde.core.undoredo.SceneUndoRedoManager;
 import com.jme3.gde.core.util.TerrainUtils;
-import com.jme3.gde.terraineditor.tools.PaintTerrainToolAction;
+import com.jme3.gde.terraineditor.tools.AlphaPainter;
+import com.jme3.gde.terraineditor.tools.TerrainBrush;
+import com.jme3.gde.terraineditor.tools.TerrainTool.Meshes;
 import com.jme3.material.MatParam;
-import com.jme3.math.ColorRGBA;
-import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.Camera;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.terrain.ProgressMonitor;
 import com.jme3.terrain.Terrain;
-import com.jme3.texture.Image;
 import com.jme3.texture.Texture;
 import com.jme3.texture.Texture.WrapMode;
 import com.jme3.util.SkyFactory;
@@ -61,8 +60,6 @@ import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import javax.imageio.ImageIO;
@@ -252,75 +249,12 @@ public class TerrainEditorController implements NodeListener {
 
         setNeedsSave(true);
 
-        int radiusStepsX = (int) (radius / ((Node)terrain).getLocalScale().x);
-        int radiusStepsZ = (int) (radius / ((Node)terrain).getLocalScale().z);
-
-        float xStepAmount = ((Node)terrain).getLocalScale().x;
-        float zStepAmount = ((Node)terrain).getLocalScale().z;
-
-        List<Vector2f> locs = new ArrayList<>();
-        List<Float> heights = new ArrayList<>();
-
-        for (int z=-radiusStepsZ; z<radiusStepsZ; z++) {
-            for (int x=-radiusStepsZ; x<radiusStepsX; x++) {
-
-                float locX = worldLoc.x + (x*xStepAmount);
-                float locZ = worldLoc.z + (z*zStepAmount);
-
-                // see if it is in the radius of the tool
-                if (isInRadius(locX-worldLoc.x,locZ-worldLoc.z,radius)) {
-                    // adjust height based on radius of the tool
-                    float h = calculateHeight(radius, heightFactor, locX-worldLoc.x, locZ-worldLoc.z);
-                    // increase the height
-                    locs.add(new Vector2f(locX, locZ));
-                    heights.add(h);
-                }
-            }
-        }
+        TerrainBrush brush = new TerrainBrush(terrain, worldLoc, radius, Meshes.Sphere);
+        // adjust height based on radius of the tool
+        brush.evaluate(cell -> heightFactor * brush.getFalloff(cell));
 
         // do the actual height adjustment
-        terrain.adjustHeight(locs, heights);
-
-        ((Node)terrain).updateModelBound(); // or else we won't collide with it where we just edited
-
-    }
-
-    /**
-     * See if the X,Y coordinate is in the radius of the circle. It is assumed
-     * that the "grid" being tested is located at 0,0 and its dimensions are 2*radius.
-     * @param x
-     * @param z
-     * @param radius
-     * @return
-     */
-    private boolean isInRadius(float x, float y, float radius) {
-        Vector2f point = new Vector2f(x,y);
-        // return true if the distance is less than equal to the radius
-        return Math.abs(point.length()) <= radius;
-    }
-
-    /**
-     * Interpolate the height value based on its distance from the center (how far along
-     * the radius it is).
-     * The farther from the center, the less the height will be.
-     * This produces a linear height falloff.
-     * @param radius of the tool
-     * @param heightFactor potential height value to be adjusted
-     * @param x location
-     * @param z location
-     * @return the adjusted height value
-     */
-    private float calculateHeight(float radius, float heightFactor, float x, float z) {
-        float val = calculateRadiusPercent(radius, x, z);
-        return heightFactor * val;
-    }
-
-    private float calculateRadiusPercent(float radius, float x, float z) {
-         // find percentage for each 'unit' in radius
-        Vector2f point = new Vector2f(x,z);
-        float val = Math.abs(point.length()) / radius;
-        val = 1f - val;
-        return val;
+        brush.adjustHeights();
     }
 
     public void cleanup() {
@@ -587,33 +521,7 @@ public class TerrainEditorController implements NodeListener {
         int texIndex = selectedTextureIndex - ((selectedTextureIndex/4)*4); // selectedTextureIndex/4 is an int floor
         //selectedTextureIndex - (alphaIdx * 4)
         Texture tex = doGetAlphaTexture(terrain, alphaIdx);
-        Image image = tex.getImage();
-
-        PaintTerrainToolAction paint = new PaintTerrainToolAction();
-
-        ColorRGBA color = ColorRGBA.Black;
-        for (int y=0; y<image.getHeight(); y++) {
-            for (int x=0; x<image.getWidth(); x++) {
-
-                paint.manipulatePixel(image, x, y, color, false); // gets the color at that location (false means don't write to the buffer)
-                switch (texIndex) {
-                    case 0:
-                        color.r = 0; break;
-                    case 1:
-                        color.g = 0; break;
-                    case 2:
-                        color.b = 0; break;
-                    case 3:
-                        color.a = 0; break;
-                    default:
-                        throw new IllegalArgumentException("Invalid texIndex " + texIndex);
-                }
-                color.clamp();
-                paint.manipulatePixel(image, x, y, color, true); // set the new color
-            }
-        }
-        image.getData(0).rewind();
-        tex.getImage().setUpdateNeeded();
+        AlphaPainter.clearChannel(tex, texIndex);
         setNeedsSave(true);
         alphaLayersChanged();
     }
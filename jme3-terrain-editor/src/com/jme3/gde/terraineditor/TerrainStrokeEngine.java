@@ -0,0 +1,135 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.terraineditor;
+
+import com.jme3.math.Vector3f;
+import java.util.ArrayDeque;
+
+/**
+ * Turns the cursor path of a terrain tool stroke into brush dabs placed at a
+ * fixed spacing along the path, so the brush density depends neither on the
+ * frame rate nor on how fast the mouse moves. While the cursor rests, dabs
+ * are placed at a fixed rate instead. The path is made of the points that
+ * were already picked to move the tool marker, dabs in between are
+ * interpolated and not picked again.
+ * Runs in the JME thread.
+ */
+class TerrainStrokeEngine {
+
+    /** Distance between two dabs, in brush radii. */
+    private static final float SPACING = 0.25f;
+    private static final float MIN_SPACING = 0.01f;
+    /** Most dabs a resting cursor catches up with after a long frame. */
+    private static final int MAX_RESTING_DABS = 10;
+
+    private final float dabRate;
+    private final ArrayDeque<Vector3f> dabs = new ArrayDeque<Vector3f>();
+    private final Vector3f cursor = new Vector3f();
+    private boolean active = false;
+    private float untilNextDab; // path length until the next dab
+    private float restingTime; // time since the last dab
+
+    /**
+     * @param dabRate seconds between two dabs while the cursor rests
+     */
+    TerrainStrokeEngine(float dabRate) {
+        this.dabRate = dabRate;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Starts a stroke with a dab at the given point.
+     */
+    void begin(Vector3f point) {
+        dabs.clear();
+        active = point != null;
+        if (!active)
+            return;
+        cursor.set(point);
+        dabs.add(point.clone());
+        untilNextDab = 0;
+        restingTime = 0;
+    }
+
+    /**
+     * Extends the stroke path to the point and places the dabs along it.
+     * @param radius current brush radius, sets the dab spacing
+     */
+    void moveTo(Vector3f point, float radius) {
+        if (!active || point == null)
+            return;
+        float spacing = Math.max(radius * SPACING, MIN_SPACING);
+        if (untilNextDab <= 0)
+            untilNextDab = spacing;
+        float length = cursor.distance(point);
+        if (length == 0)
+            return;
+        Vector3f dir = point.subtract(cursor).divideLocal(length);
+        float walked = 0;
+        while (walked + untilNextDab <= length) {
+            walked += untilNextDab;
+            dabs.add(cursor.add(dir.x * walked, dir.y * walked, dir.z * walked));
+            untilNextDab = spacing;
+            restingTime = 0;
+        }
+        untilNextDab -= length - walked;
+        cursor.set(point);
+    }
+
+    /**
+     * Places the dabs of a resting cursor, with a frame rate independent
+     * time step.
+     */
+    void update(float tpf) {
+        if (!active)
+            return;
+        restingTime = Math.min(restingTime + tpf, dabRate * MAX_RESTING_DABS);
+        while (restingTime >= dabRate) {
+            restingTime -= dabRate;
+            dabs.add(cursor.clone());
+        }
+    }
+
+    /**
+     * @return the next dab to apply, or null
+     */
+    Vector3f poll() {
+        return dabs.poll();
+    }
+
+    void end() {
+        active = false;
+    }
+}
@@ -197,14 +197,24 @@ public class TerrainToolController extends SceneToolController {
         return terrainTool != null;
     }
 
+    /**
+     * The radius of the current tool in world units, 0 if there is no tool.
+     */
+    public float getToolRadius() {
+        if (terrainTool != null) {
+            return terrainTool.getRadius();
+        }
+        return 0;
+    }
+
     /**
      * Primary mouse button hit.
      * raise/lower/paint... the terrain
+     * @param point the location of the brush dab on the terrain
      */
-    public void doTerrainEditToolActivated() {
+    public void doTerrainEditToolActivated(Vector3f point) {
 
         if (terrainTool != null && primary && !alternate) {
-            Vector3f point = getMarkerLocation();
             if (point != null) {
                 topComponent.getExtraToolParams();
                 terrainTool.actionPrimary(point, selectedTextureIndex, jmeRootNode, editorController.getCurrentDataObject());
@@ -215,12 +225,11 @@ public class TerrainToolController extends SceneToolController {
 
     /**
      * Alternate mouse button hit.
+     * @param point the location of the brush dab on the terrain
      */
-    public void doTerrainEditToolAlternateActivated() {
+    public void doTerrainEditToolAlternateActivated(Vector3f point) {
         
         if (terrainTool != null && alternate && !primary) {
-            //Vector3f point = cameraController.getTerrainCollisionPoint();
-            Vector3f point = getMarkerLocation();
             if (point != null) {
                 topComponent.getExtraToolParams();
                 terrainTool.actionSecondary(point, selectedTextureIndex, jmeRootNode, editorController.getCurrentDataObject());
@@ -255,7 +264,7 @@ public class TerrainToolController extends SceneToolController {
     }
 
     /**
-     * The action on the tool has ended (mouse button up), record the Undo (for painting only now)
+     * The action on the tool has ended (mouse button up), record the Undo of the stroke
      */
     void doTerrainEditToolActionEnded() {
         if (terrainTool != null) {            
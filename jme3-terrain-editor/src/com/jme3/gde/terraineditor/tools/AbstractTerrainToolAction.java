@@ -47,6 +47,45 @@ public abstract class AbstractTerrainToolAction extends AbstractStatefulGLToolAc
 
     private Terrain terrain;
     private Node terrainNode;
+    private TerrainStroke stroke;
+
+    /**
+     * Sets the stroke that saves the terrain for undo before this action
+     * changes it, when the action is undone as part of a stroke.
+     */
+    public void setStroke(TerrainStroke stroke) {
+        this.stroke = stroke;
+    }
+
+    /**
+     * @return the stroke set by the tool, or the own stroke of an action
+     * that is performed on its own
+     */
+    protected TerrainStroke getStroke() {
+        if (stroke == null)
+            stroke = new TerrainStroke();
+        return stroke;
+    }
+
+    /**
+     * Swaps back the terrain tiles saved by the stroke. Actions of a tool
+     * stroke are not recorded one by one, the tool records the whole stroke.
+     */
+    @Override
+    protected void doUndoTool(AbstractSceneExplorerNode rootNode, Object undoObject) {
+        if (undoObject != null && stroke != null)
+            stroke.swap();
+    }
+
+    @Override
+    protected void doRedoTool(AbstractSceneExplorerNode rootNode, Object undoObject) {
+        doUndoTool(rootNode, undoObject);
+    }
+
+    @Override
+    public long estimateUndoSize() {
+        return stroke == null ? 0 : stroke.estimateSize();
+    }
 
     protected Terrain getTerrain(Spatial root) {
 
@@ -0,0 +1,244 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.terraineditor.tools;
+
+import com.jme3.gde.core.scene.SceneApplication;
+import com.jme3.renderer.Renderer;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.util.BufferUtils;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Raster engine of the paint and erase tools. A brush is a precomputed stamp
+ * of 8 bit intensities that is blended with integer math straight into one
+ * channel of the RGBA8 or ABGR8 alpha map, then only the rectangle that
+ * changed is uploaded to the GPU. Must be used from the OpenGL thread.
+ */
+public final class AlphaPainter {
+
+    private static final int CACHE_SIZE = 16;
+    private static final Map<Key, Stamp> stamps = new LinkedHashMap<Key, Stamp>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Stamp> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private static ByteBuffer region;
+
+    private AlphaPainter() {
+    }
+
+    /**
+     * Paints or erases one channel of the alpha map with a round brush and a
+     * quadratic falloff.
+     * @param channel 0-3, the r, g, b or a channel
+     * @param u brush center on the image, 0-1
+     * @param v brush center on the image, 0-1
+     * @param radius brush radius in percent of the image size
+     * @param weight intensity at the brush center, 0-1
+     * @param erase true to subtract the intensity instead of adding it
+     * @param stroke saves the pixels for undo before they change, may be
+     * null
+     */
+    public static void paint(Texture tex, int channel, float u, float v, float radius, float weight, boolean erase, TerrainStroke stroke) {
+        Image image = tex.getImage();
+        int offset = channelOffset(image, channel);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Stamp stamp = getStamp(radius * width, radius * height, weight);
+
+        int centerX = Math.round(u * width);
+        int centerY = Math.round(v * height);
+        int minX = Math.max(0, centerX - stamp.halfX);
+        int maxX = Math.min(width, centerX + stamp.halfX + 1);
+        int minY = Math.max(0, centerY - stamp.halfY);
+        int maxY = Math.min(height, centerY + stamp.halfY + 1);
+        if (minX >= maxX || minY >= maxY) {
+            return;
+        }
+        if (stroke != null) {
+            stroke.captureAlpha(tex, minX, minY, maxX, maxY);
+        }
+
+        ByteBuffer data = image.getData(0);
+        for (int y = minY; y < maxY; y++) {
+            int stampRow = (y - centerY + stamp.halfY) * stamp.width - centerX + stamp.halfX;
+            int pixel = (y * width) * 4 + offset;
+            for (int x = minX; x < maxX; x++) {
+                int delta = stamp.deltas[stampRow + x];
+                if (delta == 0) {
+                    continue;
+                }
+                int index = pixel + x * 4;
+                int value = (data.get(index) & 0xFF) + (erase ? -delta : delta);
+                data.put(index, (byte) (value < 0 ? 0 : value > 255 ? 255 : value));
+            }
+        }
+        upload(tex, minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /**
+     * Sets one channel of the whole alpha map to 0.
+     * @param channel 0-3, the r, g, b or a channel
+     */
+    public static void clearChannel(Texture tex, int channel) {
+        Image image = tex.getImage();
+        int offset = channelOffset(image, channel);
+        ByteBuffer data = image.getData(0);
+        int end = image.getWidth() * image.getHeight() * 4;
+        for (int index = offset; index < end; index += 4) {
+            data.put(index, (byte) 0);
+        }
+        image.setUpdateNeeded();
+    }
+
+    private static int channelOffset(Image image, int channel) {
+        if (channel < 0 || channel > 3) {
+            throw new IllegalArgumentException("Invalid channel " + channel);
+        }
+        switch (image.getFormat()) {
+            case RGBA8:
+                return channel;
+            case ABGR8:
+                return 3 - channel;
+            default:
+                throw new UnsupportedOperationException("Image format: " + image.getFormat());
+        }
+    }
+
+    /**
+     * Uploads the changed rectangle with the renderer's partial texture
+     * update. Falls back to a full upload when the texture was not uploaded
+     * yet, a full upload is pending anyway or the texture has mip maps that
+     * a partial update would leave stale.
+     */
+    static void upload(Texture tex, int x, int y, int width, int height) {
+        Image image = tex.getImage();
+        if (image.getId() == -1 || image.isUpdateNeeded() || image.hasMipmaps()
+                || tex.getMinFilter().usesMipMapLevels()) {
+            image.setUpdateNeeded();
+            return;
+        }
+        Renderer renderer = SceneApplication.getApplication().getRenderer();
+        if (renderer == null) {
+            image.setUpdateNeeded();
+            return;
+        }
+        int rowSize = width * 4;
+        int size = rowSize * height;
+        if (region == null || region.capacity() < size) {
+            region = BufferUtils.createByteBuffer(Math.max(size, region == null ? 0 : region.capacity() * 2));
+        }
+        ByteBuffer data = image.getData(0);
+        for (int row = 0; row < height; row++) {
+            region.put(row * rowSize, data, ((y + row) * image.getWidth() + x) * 4, rowSize);
+        }
+        region.clear().limit(size);
+        renderer.modifyTexture(tex, new Image(image.getFormat(), width, height, region, image.getColorSpace()), x, y);
+    }
+
+    private static Stamp getStamp(float radiusX, float radiusY, float weight) {
+        Key key = new Key(radiusX, radiusY, weight);
+        synchronized (stamps) {
+            Stamp stamp = stamps.get(key);
+            if (stamp == null) {
+                stamp = new Stamp(radiusX, radiusY, weight);
+                stamps.put(key, stamp);
+            }
+            return stamp;
+        }
+    }
+
+    /**
+     * The 8 bit intensity of every pixel around the brush center, 0 outside
+     * of the brush.
+     */
+    private static final class Stamp {
+
+        private final int halfX;
+        private final int halfY;
+        private final int width;
+        private final int[] deltas;
+
+        Stamp(float radiusX, float radiusY, float weight) {
+            halfX = (int) Math.ceil(radiusX);
+            halfY = (int) Math.ceil(radiusY);
+            width = 2 * halfX + 1;
+            deltas = new int[width * (2 * halfY + 1)];
+            for (int y = -halfY; y <= halfY; y++) {
+                float dy = y / radiusY;
+                for (int x = -halfX; x <= halfX; x++) {
+                    float dx = x / radiusX;
+                    float dist = dx * dx + dy * dy;
+                    if (dist < 1) {
+                        // same falloff as the distance squared test against the radius squared
+                        deltas[(y + halfY) * width + x + halfX] = Math.round((1f - dist) * weight * 255f);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Key {
+
+        private final float radiusX;
+        private final float radiusY;
+        private final float weight;
+
+        Key(float radiusX, float radiusY, float weight) {
+            this.radiusX = radiusX;
+            this.radiusY = radiusY;
+            this.weight = weight;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Float.compare(radiusX, other.radiusX) == 0
+                    && Float.compare(radiusY, other.radiusY) == 0
+                    && Float.compare(weight, other.weight) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Float.floatToIntBits(radiusX);
+            hash = 31 * hash + Float.floatToIntBits(radiusY);
+            return 31 * hash + Float.floatToIntBits(weight);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.terraineditor.tools;
+
+import com.jme3.gde.terraineditor.tools.TerrainTool.Meshes;
+import com.jme3.math.FastMath;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Precomputed footprint of a terrain brush: which samples of the
+ * 2*radius window lie inside the brush mesh and their linear falloff.
+ * Stamps are immutable and cached per radius, step size and mesh, so a stroke
+ * only computes them once.
+ */
+final class BrushStamp {
+
+    private static final int CACHE_SIZE = 32;
+    private static final Map<Key, BrushStamp> cache = new LinkedHashMap<Key, BrushStamp>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, BrushStamp> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    final float radius;
+    final float stepX;
+    final float stepZ;
+    final int stepsX;
+    final int stepsZ;
+    /** width of the window in samples, the window spans -stepsX..stepsX-1 */
+    final int width;
+    final int depth;
+    /** row major indices of the window samples inside the mesh */
+    final int[] cells;
+    /** 1 - distance/radius for every window sample, not clamped */
+    final float[] falloff;
+
+    private BrushStamp(float radius, float stepX, float stepZ, Meshes mesh) {
+        this.radius = radius;
+        this.stepX = stepX;
+        this.stepZ = stepZ;
+        stepsX = (int) (radius / stepX);
+        stepsZ = (int) (radius / stepZ);
+        width = Math.max(0, 2 * stepsX);
+        depth = Math.max(0, 2 * stepsZ);
+        falloff = new float[width * depth];
+        int[] inside = new int[width * depth];
+        int count = 0;
+        for (int z = 0; z < depth; z++) {
+            float offsetZ = (z - stepsZ) * stepZ;
+            for (int x = 0; x < width; x++) {
+                float offsetX = (x - stepsX) * stepX;
+                int cell = z * width + x;
+                falloff[cell] = 1f - FastMath.sqrt(offsetX * offsetX + offsetZ * offsetZ) / radius;
+                if (ToolUtils.isInMesh(offsetX, offsetZ, radius, mesh)) {
+                    inside[count++] = cell;
+                }
+            }
+        }
+        cells = Arrays.copyOf(inside, count);
+    }
+
+    static BrushStamp get(float radius, float stepX, float stepZ, Meshes mesh) {
+        Key key = new Key(radius, stepX, stepZ, mesh);
+        synchronized (cache) {
+            BrushStamp stamp = cache.get(key);
+            if (stamp == null) {
+                stamp = new BrushStamp(radius, stepX, stepZ, mesh);
+                cache.put(key, stamp);
+            }
+            return stamp;
+        }
+    }
+
+    float offsetX(int cell) {
+        return (cell % width - stepsX) * stepX;
+    }
+
+    float offsetZ(int cell) {
+        return (cell / width - stepsZ) * stepZ;
+    }
+
+    private static final class Key {
+
+        private final float radius;
+        private final float stepX;
+        private final float stepZ;
+        private final Meshes mesh;
+
+        Key(float radius, float stepX, float stepZ, Meshes mesh) {
+            this.radius = radius;
+            this.stepX = stepX;
+            this.stepZ = stepZ;
+            this.mesh = mesh;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Float.compare(radius, other.radius) == 0
+                    && Float.compare(stepX, other.stepX) == 0
+                    && Float.compare(stepZ, other.stepZ) == 0
+                    && mesh == other.mesh;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Float.floatToIntBits(radius);
+            hash = 31 * hash + Float.floatToIntBits(stepX);
+            hash = 31 * hash + Float.floatToIntBits(stepZ);
+            return 31 * hash + mesh.hashCode();
+        }
+    }
+}
@@ -49,7 +49,8 @@ public class EraseTerrainTool extends TerrainTool {
         if (radius == 0 || weight == 0)
             return;
         PaintTerrainToolAction action = new PaintTerrainToolAction(point, radius, -weight, textureIndex); // negate the weight
-        action.doActionPerformed(rootNode, dataObject);
+        action.setStroke(getStroke());
+        action.doActionPerformed(rootNode, dataObject, false);
     }
 
     @Override
@@ -33,12 +33,9 @@ package com.jme3.gde.terraineditor.tools;
 
 import com.jme3.gde.core.sceneexplorer.nodes.AbstractSceneExplorerNode;
 import com.jme3.gde.terraineditor.tools.TerrainTool.Meshes;
-import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
 import com.jme3.terrain.Terrain;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Level the terrain to a desired height, executed from the OpenGL thread.
@@ -57,9 +54,6 @@ public class LevelTerrainToolAction extends AbstractTerrainToolAction {
     private final boolean precision;
     private final Meshes mesh;
     
-    private List<Vector2f> undoLocs;
-    private List<Float> undoHeights;
-
     public LevelTerrainToolAction(Vector3f markerLocation, float radius, float height, Vector3f levelTerrainLocation, boolean precision, Meshes mesh) {
         this.worldLoc = markerLocation.clone();
         this.radius = radius;
@@ -76,108 +70,59 @@ public class LevelTerrainToolAction extends AbstractTerrainToolAction {
         if (terrain == null)
             return null;
         Node terrainNode = getTerrainNode(rootNode.getLookup().lookup(Node.class));
-        worldLoc.subtractLocal(terrainNode.getWorldTranslation());
-        levelTerrainLocation.subtractLocal(terrainNode.getWorldTranslation());
-        modifyHeight(terrain, levelTerrainLocation, worldLoc, radius, height, precision, mesh);
+        Vector3f loc = worldLoc.subtract(terrainNode.getWorldTranslation());
+        Vector3f level = levelTerrainLocation.subtract(terrainNode.getWorldTranslation());
+        modifyHeight(terrain, level, loc, radius, height, precision, mesh);
         return terrain;
     }
     
-    @Override
-    protected void doUndoTool(AbstractSceneExplorerNode rootNode, Object undoObject) {
-        if (undoObject == null)
-            return;
-        if (undoLocs == null || undoHeights == null)
-            return;
-        resetHeight((Terrain)undoObject, undoLocs, undoHeights, precision);
-    }
-
     private void modifyHeight(Terrain terrain, Vector3f level, Vector3f worldLoc, float radius, float height, boolean precision, Meshes mesh) {
         if (level == null)
             return;
 
         float desiredHeight = level.y;
+        float heightScale = ((Node)terrain).getWorldScale().y;
+        float epsilon = 0.1f*height; // rounding error for snapping
 
-        int radiusStepsX = (int)(radius / ((Node)terrain).getLocalScale().x);
-        int radiusStepsZ = (int)(radius / ((Node)terrain).getLocalScale().z);
+        TerrainBrush brush = new TerrainBrush(terrain, worldLoc, radius, mesh);
+        brush.readHeights(0);
 
-        float xStepAmount = ((Node)terrain).getLocalScale().x;
-        float zStepAmount = ((Node)terrain).getLocalScale().z;
+        float precisionHeight = desiredHeight / ((Node) terrain).getLocalScale().y;
 
-        List<Vector2f> locs = new ArrayList<Vector2f>();
-        List<Float> heights = new ArrayList<Float>();
-        undoHeights = new ArrayList<Float>();
+        brush.evaluate(cell -> {
+            // adjust height based on radius of the tool
+            float terrainHeightAtLoc = brush.getHeight(cell)*heightScale;
+            if (precision) {
+                return precisionHeight;
+            } else {
+                float adj = 0;
+                if (terrainHeightAtLoc < desiredHeight)
+                    adj = 1;
+                else if (terrainHeightAtLoc > desiredHeight)
+                    adj = -1;
 
-        for (int z=-radiusStepsZ; z<radiusStepsZ; z++) {
-            for (int x=-radiusStepsX; x<radiusStepsX; x++) {
+                adj *= height;
 
-                float locX = worldLoc.x + (x*xStepAmount);
-                float locZ = worldLoc.z + (z*zStepAmount);
-                
-                // see if it is in the radius of the tool
-                if (ToolUtils.isInMesh(locX-worldLoc.x,locZ-worldLoc.z,radius, mesh)) {
+                if (mesh.equals(Meshes.Sphere))
+                    adj *= brush.getFalloff(cell);
 
-                    Vector2f terrainLoc = new Vector2f(locX, locZ);
-                    // adjust height based on radius of the tool
-                    float terrainHeightAtLoc = terrain.getHeightmapHeight(terrainLoc)*((Node)terrain).getWorldScale().y;
-                    if (precision) {
-                        locs.add(terrainLoc);
-                        heights.add(desiredHeight / ((Node) terrain).getLocalScale().y);
-                        undoHeights.add(terrainHeightAtLoc / ((Node) terrain).getLocalScale().y);
-                    } else {
-                        float epsilon = 0.1f*height; // rounding error for snapping
-                    
-                        float adj = 0;
-                        if (terrainHeightAtLoc < desiredHeight)
-                            adj = 1;
-                        else if (terrainHeightAtLoc > desiredHeight)
-                            adj = -1;
-                        
-                        adj *= height;
-                        
-                        if (mesh.equals(Meshes.Sphere))
-                            adj *= ToolUtils.calculateRadiusPercent(radius, locX-worldLoc.x, locZ-worldLoc.z);
+                // test if adjusting too far and then cap it
+                if (adj > 0 && ToolUtils.floatGreaterThan((terrainHeightAtLoc + adj), desiredHeight, epsilon))
+                    adj = desiredHeight - terrainHeightAtLoc;
+                else if (adj < 0 && ToolUtils.floatLessThan((terrainHeightAtLoc + adj), desiredHeight, epsilon))
+                    adj = terrainHeightAtLoc - desiredHeight;
 
-                        // test if adjusting too far and then cap it
-                        if (adj > 0 && ToolUtils.floatGreaterThan((terrainHeightAtLoc + adj), desiredHeight, epsilon))
-                            adj = desiredHeight - terrainHeightAtLoc;
-                        else if (adj < 0 && ToolUtils.floatLessThan((terrainHeightAtLoc + adj), desiredHeight, epsilon))
-                            adj = terrainHeightAtLoc - desiredHeight;
-  
-                        if (!ToolUtils.floatEquals(adj, 0, 0.001f)) {
-                                locs.add(terrainLoc);
-                                heights.add(adj);
-                        }
-                    
-                    }
-                }
+                if (!ToolUtils.floatEquals(adj, 0, 0.001f))
+                    return adj;
+                return Float.NaN;
             }
-        }
-        undoLocs = locs;
-        if (!precision)
-            undoHeights = heights;
-        
+        });
+
         // do the actual height adjustment
         if (precision)
-            terrain.setHeight(locs, heights);
+            brush.setHeights(getStroke());
         else 
-            terrain.adjustHeight(locs, heights);
-        
-        ((Node)terrain).updateModelBound(); // or else we won't collide with it where we just edited
-
-    }
-
-    
-    private void resetHeight(Terrain terrain, List<Vector2f> undoLocs, List<Float> undoHeights, boolean precision) {
-        if (precision)
-            terrain.setHeight(undoLocs, undoHeights);
-        else {
-            List<Float> neg = new ArrayList<Float>();
-            for (Float f : undoHeights) {
-                neg.add(f * -1f);
-            }
-            terrain.adjustHeight(undoLocs, neg);
-        }
-        ((Node)terrain).updateModelBound();
+            brush.adjustHeights(getStroke());
     }
     
 }
@@ -49,7 +49,8 @@ public class LowerTerrainTool extends TerrainTool {
         if (radius == 0 || weight == 0)
             return;
         RaiseTerrainToolAction action = new RaiseTerrainToolAction(point, radius, -weight, getMesh()); // negative weight
-        action.doActionPerformed(rootNode, dataObject);
+        action.setStroke(getStroke());
+        action.doActionPerformed(rootNode, dataObject, false);
     }
 
     @Override
@@ -51,7 +51,8 @@ public class RoughTerrainTool extends TerrainTool {
         if (radius == 0 || weight == 0)
             return;
         RoughTerrainToolAction action = new RoughTerrainToolAction(point, radius, weight, params);
-        action.doActionPerformed(rootNode, dataObject);
+        action.setStroke(getStroke());
+        action.doActionPerformed(rootNode, dataObject, false);
     }
 
     @Override
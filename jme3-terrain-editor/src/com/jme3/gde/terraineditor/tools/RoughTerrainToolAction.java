@@ -33,7 +33,7 @@ package com.jme3.gde.terraineditor.tools;
 
 import com.jme3.gde.core.sceneexplorer.nodes.AbstractSceneExplorerNode;
 import com.jme3.gde.terraineditor.ExtraToolParams;
-import com.jme3.math.Vector2f;
+import com.jme3.gde.terraineditor.tools.TerrainTool.Meshes;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
 import com.jme3.terrain.Terrain;
@@ -47,8 +47,6 @@ import com.jme3.terrain.noise.filter.SmoothFilter;
 import com.jme3.terrain.noise.fractal.FractalSum;
 import com.jme3.terrain.noise.modulator.NoiseModulator;
 import java.nio.FloatBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  *
@@ -56,14 +54,14 @@ import java.util.List;
  */
 public class RoughTerrainToolAction extends AbstractTerrainToolAction {
     
+    /** Size of the noise tiles that are generated in parallel. */
+    private static final int NOISE_TILE = 64;
+    
     private Vector3f worldLoc;
     private float radius;
     private float weight;
     private RoughExtraToolParams params;
     
-    List<Vector2f> undoLocs;
-    List<Float> undoHeights;
-
     public RoughTerrainToolAction(Vector3f markerLocation, float radius, float weight, ExtraToolParams params) {
         this.worldLoc = markerLocation.clone();
         this.radius = radius;
@@ -78,94 +76,61 @@ public class RoughTerrainToolAction extends AbstractTerrainToolAction {
         if (terrain == null)
             return null;
         Node terrainNode = getTerrainNode(rootNode.getLookup().lookup(Node.class));
-        worldLoc.subtractLocal(terrainNode.getWorldTranslation());
-        roughen(terrain, radius, weight, params);
+        Vector3f loc = worldLoc.subtract(terrainNode.getWorldTranslation());
+        roughen(terrain, loc, radius, weight, params);
         return terrain;
     }
     
-    @Override
-    protected void doUndoTool(AbstractSceneExplorerNode rootNode, Object undoObject) {
-        if (undoObject == null)
-            return;
-        if (undoLocs == null || undoHeights == null)
-            return;
-        resetHeight((Terrain)undoObject, undoLocs, undoHeights);
-    }
-    
-    private void roughen(Terrain terrain, float radius, float weight, RoughExtraToolParams params) {
-        Basis fractalFilter = createFractalGenerator(params, weight);
-        
-        List<Vector2f> locs = new ArrayList<Vector2f>();
-        List<Float> heights = new ArrayList<Float>();
-        
-        // offset it by radius because in the loop we iterate through 2 radii
-        int radiusStepsX = (int) (radius / ((Node)terrain).getLocalScale().x);
-        int radiusStepsZ = (int) (radius / ((Node)terrain).getLocalScale().z);
-        float xStepAmount = ((Node)terrain).getLocalScale().x;
-        float zStepAmount = ((Node)terrain).getLocalScale().z;
-        
+    private void roughen(Terrain terrain, Vector3f worldLoc, float radius, float weight, RoughExtraToolParams params) {
+        // the noise covers 2 radii, one value per sample of the brush window
+        TerrainBrush brush = new TerrainBrush(terrain, worldLoc, radius, Meshes.Sphere);
         int r2 = (int) (radius*2);
-        FloatBuffer fb = fractalFilter.getBuffer(worldLoc.x, worldLoc.z, 0, r2);
-        
-        //for (int y=0; y<r2; y++) {
-        //    for (int x=0; x<r2; x++) {
-        int xfb=0,yfb=0;
-        for (int z = -radiusStepsZ; z < radiusStepsZ; z++) {
-            for (int x = -radiusStepsX; x < radiusStepsX; x++) {
-                
-                float locX = worldLoc.x + (x * xStepAmount);
-                float locZ = worldLoc.z + (z * zStepAmount);
-                
-                float height = fb.get(yfb*r2 + xfb);
-                
-                if (isInRadius(locX - worldLoc.x, locZ - worldLoc.z, radius)) {
-                    // see if it is in the radius of the tool
-                    float h = calculateHeight(radius, height, locX - worldLoc.x, locZ - worldLoc.z);
-                    locs.add(new Vector2f(locX, locZ));
-                    heights.add(h);
-                }
-                xfb++;
-            }
-            yfb++;
-            xfb = 0;
-        }
+        float[] noise = createNoise(params, weight, worldLoc.x, worldLoc.z, r2);
         
-        undoLocs = locs;
-        undoHeights = heights;
+        brush.evaluate(cell -> {
+            float height = noise[brush.getRow(cell)*r2 + brush.getColumn(cell)];
+            float falloff = Math.max(brush.getFalloff(cell), 0);
+            return height * falloff * 0.1f; // 0.1 scales it down a bit to lower the impact of the tool
+        });
         
         // do the actual height adjustment
-        terrain.adjustHeight(locs, heights);
-
-        ((Node)terrain).updateModelBound(); // or else we won't collide with it where we just edited
+        brush.adjustHeights(getStroke());
     }
     
-    private boolean isInRadius(float x, float y, float radius) {
-        Vector2f point = new Vector2f(x, y);
-        // return true if the distance is less than equal to the radius
-        return point.length() <= radius;
-    }
-
-    private float calculateHeight(float radius, float heightFactor, float x, float z) {
-        // find percentage for each 'unit' in radius
-        Vector2f point = new Vector2f(x, z);
-        float val = point.length() / radius;
-        val = 1 - val;
-        if (val <= 0) {
-            val = 0;
+    /**
+     * Generates size*size noise values starting at x,z. Large areas are split
+     * into tiles that are generated in parallel, each by its own generator
+     * because the filters are not thread safe. The basis samples a buffer at
+     * (start + i) / size, so a tile generator is scaled down by tile / size to
+     * keep the features of a single buffer; the filter margins of each tile
+     * blend the seams.
+     */
+    private float[] createNoise(RoughExtraToolParams params, float weight, float x, float z, int size) {
+        float[] noise = new float[size * size];
+        if (size <= NOISE_TILE) {
+            FloatBuffer fb = createFractalGenerator(params, weight, 1).getBuffer(x, z, 0, size);
+            for (int i = 0; i < noise.length; i++)
+                noise[i] = fb.get(i);
+            return noise;
         }
-        return heightFactor * val * 0.1f; // 0.1 scales it down a bit to lower the impact of the tool
-    }
-    
-    private void resetHeight(Terrain terrain, List<Vector2f> undoLocs, List<Float> undoHeights) {
-        List<Float> neg = new ArrayList<Float>();
-        for (Float f : undoHeights)
-            neg.add( f * -1f );
-        
-        terrain.adjustHeight(undoLocs, neg);
-        ((Node)terrain).updateModelBound();
+        int tiles = (size + NOISE_TILE - 1) / NOISE_TILE;
+        TerrainBrush.forEachBand(tiles * tiles, NOISE_TILE * NOISE_TILE, (from, to) -> {
+            Basis fractalFilter = createFractalGenerator(params, weight, NOISE_TILE / (float) size);
+            for (int t = from; t < to; t++) {
+                int tx = (t % tiles) * NOISE_TILE;
+                int tz = (t / tiles) * NOISE_TILE;
+                FloatBuffer fb = fractalFilter.getBuffer(x + tx, z + tz, 0, NOISE_TILE);
+                int columns = Math.min(NOISE_TILE, size - tx);
+                int rows = Math.min(NOISE_TILE, size - tz);
+                for (int row = 0; row < rows; row++)
+                    for (int column = 0; column < columns; column++)
+                        noise[(tz + row) * size + tx + column] = fb.get(row * NOISE_TILE + column);
+            }
+        });
+        return noise;
     }
     
-    private Basis createFractalGenerator(RoughExtraToolParams params, float weight) {
+    private Basis createFractalGenerator(RoughExtraToolParams params, float weight, float scaleFactor) {
         FractalSum base = new FractalSum();
         base.setRoughness(params.roughness);
         base.setFrequency(params.frequency);
@@ -177,7 +142,7 @@ public class RoughTerrainToolAction extends AbstractTerrainToolAction {
             scale = 1.0f;
         if (scale < 0)
             scale = 0;
-        base.setScale(scale);//0.02125f
+        base.setScale(scale * scaleFactor);//0.02125f
         base.addModulator(new NoiseModulator() {
             @Override
             public float value(float... in) {
@@ -33,13 +33,10 @@ package com.jme3.gde.terraineditor.tools;
 
 import com.jme3.gde.core.sceneexplorer.nodes.AbstractSceneExplorerNode;
 import com.jme3.gde.terraineditor.tools.TerrainTool.Meshes;
-import com.jme3.math.Plane;
-import com.jme3.math.Vector2f;
+import com.jme3.math.FastMath;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
 import com.jme3.terrain.Terrain;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  *
@@ -52,8 +49,6 @@ public class SlopeTerrainToolAction extends AbstractTerrainToolAction {
     private final Vector3f point2;
     private final float radius;
     private final float weight;
-    private List<Vector2f> undoLocs;
-    private List<Float> undoHeights;
     private final boolean precise;
     private final boolean lock;
     private final Meshes mesh;
@@ -76,25 +71,12 @@ public class SlopeTerrainToolAction extends AbstractTerrainToolAction {
         if (terrain == null)
             return null;
         Node terrainNode = getTerrainNode(rootNode.getLookup().lookup(Node.class));
-        point1.subtractLocal(terrainNode.getWorldTranslation());
-        point2.subtractLocal(terrainNode.getWorldTranslation());
-        current.subtractLocal(terrainNode.getWorldTranslation());
-        modifyHeight(terrain, point1, point2, current, radius, weight, precise, lock, mesh);
+        Vector3f translation = terrainNode.getWorldTranslation();
+        modifyHeight(terrain, point1.subtract(translation), point2.subtract(translation), current.subtract(translation), radius, weight, precise, lock, mesh);
 
         return terrain;
     }
 
-    @Override
-    protected void doUndoTool(AbstractSceneExplorerNode rootNode, Object undoObject) {
-        if (undoObject == null)
-            return;
-
-        if (undoLocs == null || undoHeights == null)
-            return;
-
-        resetHeight((Terrain) undoObject, undoLocs, undoHeights, precise);
-    }
-
     private void modifyHeight(Terrain terrain, Vector3f point1, Vector3f point2, Vector3f current, float radius, float weight, boolean precise, boolean lock, Meshes mesh) {
         // Make sure we go for the right direction, or we could be creating a slope to the oposite side
         if (point1.y > point2.y) {
@@ -104,93 +86,78 @@ public class SlopeTerrainToolAction extends AbstractTerrainToolAction {
         }
 
         Vector3f subtract = point2.subtract(point1);
+        float subtractLengthSquared = subtract.lengthSquared();
+
+        // the planes through point1 and point2, normal to the slope
+        Vector3f normal = point1.subtract(point2).normalizeLocal();
+        float constant1 = normal.dot(point1);
+        float constant2 = normal.dot(point2);
+
+        float heightScale = ((Node) terrain).getWorldScale().y;
+        float epsilon = 0.1f * weight; // rounding error for snapping
+
+        TerrainBrush brush = new TerrainBrush(terrain, current, radius, mesh);
+        brush.readHeights(0);
+
+        float precisionScale = ((Node) terrain).getLocalScale().y;
+        float startX = point1.x;
+        float startY = point1.y;
+        float startZ = point1.z;
+        float rise = point2.y - point1.y;
+
+        brush.evaluate(cell -> {
+            float locX = brush.getX(cell);
+            float locZ = brush.getZ(cell);
+
+            if (lock) {
+                float side1 = Math.signum(normal.x * locX + normal.z * locZ - constant1);
+                float side2 = Math.signum(normal.x * locX + normal.z * locZ - constant2);
+                if (side1 == side2)
+                    return Float.NaN;
+            }
 
-        int radiusStepsX = (int) (radius / ((Node) terrain).getLocalScale().x);
-        int radiusStepsZ = (int) (radius / ((Node) terrain).getLocalScale().z);
-
-        float xStepAmount = ((Node) terrain).getLocalScale().x;
-        float zStepAmount = ((Node) terrain).getLocalScale().z;
-
-        List<Vector2f> locs = new ArrayList<Vector2f>();
-        List<Float> heights = new ArrayList<Float>();
-        undoHeights = new ArrayList<Float>();
-
-        Plane p1 = new Plane();
-        Plane p2 = new Plane();
-        p1.setOriginNormal(point1, point1.subtract(point2).normalize());
-        p2.setOriginNormal(point2, point1.subtract(point2).normalize());
-
-        for (int z = -radiusStepsZ; z < radiusStepsZ; z++)
-            for (int x = -radiusStepsX; x < radiusStepsX; x++) {
-
-                float locX = current.x + (x * xStepAmount);
-                float locZ = current.z + (z * zStepAmount);
-
-                if (ToolUtils.isInMesh(locX - current.x, locZ - current.z, radius, mesh)) { // see if it is in the radius of the tool
-                    Vector2f terrainLoc = new Vector2f(locX, locZ);
-
-                    // adjust height based on radius of the tool
-                    float terrainHeightAtLoc = terrain.getHeightmapHeight(terrainLoc) * ((Node) terrain).getWorldScale().y;
-                    float distance = point1.distance(new Vector3f(locX, terrainHeightAtLoc, locZ).subtractLocal(point1).project(subtract).addLocal(point1));
-                    float desiredHeight = point1.y + (point2.y - point1.y) * distance;
-                    if (!lock || (lock && p1.whichSide(new Vector3f(locX, 0f, locZ)) != p2.whichSide(new Vector3f(locX, 0f, locZ))))
-                        if (!precise) {
-                            float epsilon = 0.1f * weight; // rounding error for snapping
-
-                            float adj = 0;
-                            if (terrainHeightAtLoc < desiredHeight)
-                                adj = 1;
-                            else if (terrainHeightAtLoc > desiredHeight)
-                                adj = -1;
-
-                            adj *= weight;
-                            
-                            if (mesh.equals(Meshes.Sphere))
-                                adj *= ToolUtils.calculateRadiusPercent(radius, locX - current.x, locZ - current.z);
-                            
-                            // test if adjusting too far and then cap it
-                            if (adj > 0 && ToolUtils.floatGreaterThan((terrainHeightAtLoc + adj), desiredHeight, epsilon))
-                                adj = desiredHeight - terrainHeightAtLoc;
-                            else
-                                if (adj < 0 && ToolUtils.floatLessThan((terrainHeightAtLoc + adj), desiredHeight, epsilon))
-                                    adj = terrainHeightAtLoc - desiredHeight;
-
-                            if (!ToolUtils.floatEquals(adj, 0, 0.001f)) {
-                                locs.add(terrainLoc);
-                                heights.add(adj);
-                            }
-                        } else {
-                            locs.add(terrainLoc);
-                            heights.add(desiredHeight / ((Node) terrain).getLocalScale().y);
-                            undoHeights.add(terrainHeightAtLoc / ((Node) terrain).getLocalScale().y);
-                        }
-
-
-                }
+            // adjust height based on radius of the tool
+            float terrainHeightAtLoc = brush.getHeight(cell) * heightScale;
+
+            // length of the sample projected on the slope
+            float dx = locX - startX;
+            float dy = terrainHeightAtLoc - startY;
+            float dz = locZ - startZ;
+            float projection = (dx * subtract.x + dy * subtract.y + dz * subtract.z) / subtractLengthSquared;
+            float distance = Math.abs(projection) * FastMath.sqrt(subtractLengthSquared);
+            float desiredHeight = startY + rise * distance;
+
+            if (!precise) {
+                float adj = 0;
+                if (terrainHeightAtLoc < desiredHeight)
+                    adj = 1;
+                else if (terrainHeightAtLoc > desiredHeight)
+                    adj = -1;
+
+                adj *= weight;
+
+                if (mesh.equals(Meshes.Sphere))
+                    adj *= brush.getFalloff(cell);
+
+                // test if adjusting too far and then cap it
+                if (adj > 0 && ToolUtils.floatGreaterThan((terrainHeightAtLoc + adj), desiredHeight, epsilon))
+                    adj = desiredHeight - terrainHeightAtLoc;
+                else
+                    if (adj < 0 && ToolUtils.floatLessThan((terrainHeightAtLoc + adj), desiredHeight, epsilon))
+                        adj = terrainHeightAtLoc - desiredHeight;
+
+                if (!ToolUtils.floatEquals(adj, 0, 0.001f))
+                    return adj;
+                return Float.NaN;
+            } else {
+                return desiredHeight / precisionScale;
             }
-        undoLocs = locs;
-        if (!precise)
-            undoHeights = heights;
+        });
 
         // do the actual height adjustment
         if (precise)
-            terrain.setHeight(locs, heights);
+            brush.setHeights(getStroke());
         else
-            terrain.adjustHeight(locs, heights);
-
-        ((Node) terrain).updateModelBound(); // or else we won't collide with it where we just edited
-    }
-
-    private void resetHeight(Terrain terrain, List<Vector2f> undoLocs, List<Float> undoHeights, boolean precise) {
-        if (precise)
-            terrain.setHeight(undoLocs, undoHeights);
-        else {
-            List<Float> neg = new ArrayList<Float>();
-            for (Float f : undoHeights) {
-                neg.add(f * -1f);
-            }
-            terrain.adjustHeight(undoLocs, neg);
-        }
-        ((Node) terrain).updateModelBound();
+            brush.adjustHeights(getStroke());
     }
 }
@@ -49,7 +49,8 @@ public class SmoothTerrainTool extends TerrainTool {
         if (radius == 0 || weight == 0)
             return;
         SmoothTerrainToolAction action = new SmoothTerrainToolAction(point, radius, weight, getMesh());
-        action.doActionPerformed(rootNode, dataObject);
+        action.setStroke(getStroke());
+        action.doActionPerformed(rootNode, dataObject, false);
     }
 
     @Override
@@ -33,12 +33,9 @@ package com.jme3.gde.terraineditor.tools;
 
 import com.jme3.gde.core.sceneexplorer.nodes.AbstractSceneExplorerNode;
 import com.jme3.gde.terraineditor.tools.TerrainTool.Meshes;
-import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
 import com.jme3.terrain.Terrain;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Smooth bumps in the terrain by averaging the height in the tool radius.
@@ -54,8 +51,6 @@ public class SmoothTerrainToolAction extends AbstractTerrainToolAction {
     private float radius;
     private float height;
     
-    List<Vector2f> undoLocs;
-    List<Float> undoHeights;
     private final Meshes mesh;
 
     public SmoothTerrainToolAction(Vector3f markerLocation, float radius, float height, Meshes mesh) {
@@ -72,97 +67,56 @@ public class SmoothTerrainToolAction extends AbstractTerrainToolAction {
         if (terrain == null)
             return null;
         Node terrainNode = getTerrainNode(rootNode.getLookup().lookup(Node.class));
-        worldLoc.subtractLocal(terrainNode.getWorldTranslation());
-        modifyHeight(terrain, worldLoc, radius, height, mesh);
+        Vector3f loc = worldLoc.subtract(terrainNode.getWorldTranslation());
+        modifyHeight(terrain, loc, radius, height, mesh);
         return terrain;
     }
     
-    @Override
-    protected void doUndoTool(AbstractSceneExplorerNode rootNode, Object undoObject) {
-        if (undoObject == null)
-            return;
-        if (undoLocs == null || undoHeights == null)
-            return;
-        resetHeight((Terrain)undoObject, undoLocs, undoHeights);
-    }
-    
     private void modifyHeight(Terrain terrain, Vector3f worldLoc, float radius, float height, Meshes mesh) {
         
-        int radiusStepsX = (int)(radius / ((Node)terrain).getLocalScale().x);
-        int radiusStepsZ = (int)(radius / ((Node)terrain).getLocalScale().z);
-
-        float xStepAmount = ((Node)terrain).getLocalScale().x;
-        float zStepAmount = ((Node)terrain).getLocalScale().z;
-
-        List<Vector2f> locs = new ArrayList<Vector2f>();
-        List<Float> heights = new ArrayList<Float>();
+        TerrainBrush brush = new TerrainBrush(terrain, worldLoc, radius, mesh);
+        brush.readHeights(1); // the neighbours of the edge samples are averaged too
 
-        for (int z=-radiusStepsZ; z<radiusStepsZ; z++) {
-            for (int x=-radiusStepsX; x<radiusStepsX; x++) {
-
-                float locX = worldLoc.x + (x*xStepAmount);
-                float locZ = worldLoc.z + (z*zStepAmount);
-
-                // see if it is in the radius of the tool
-                if (ToolUtils.isInMesh(locX-worldLoc.x,locZ-worldLoc.z,radius,mesh)) {
-
-                    Vector2f terrainLoc = new Vector2f(locX, locZ);
-                    // adjust height based on radius of the tool
-                    float center = terrain.getHeightmapHeight(terrainLoc);
-                    float left = terrain.getHeightmapHeight(new Vector2f(terrainLoc.x-1, terrainLoc.y));
-                    float right = terrain.getHeightmapHeight(new Vector2f(terrainLoc.x+1, terrainLoc.y));
-                    float up = terrain.getHeightmapHeight(new Vector2f(terrainLoc.x, terrainLoc.y+1));
-                    float down = terrain.getHeightmapHeight(new Vector2f(terrainLoc.x, terrainLoc.y-1));
-                    int count = 1;
-                    float amount = center;
-                    if ( !isNaN(left) ) {
-                        amount += left;
-                        count++;
-                    }
-                    if ( !isNaN(right) ) {
-                        amount += right;
-                        count++;
-                    }
-                    if ( !isNaN(up) ) {
-                        amount += up;
-                        count++;
-                    }
-                    if ( !isNaN(down) ) {
-                        amount += down;
-                        count++;
-                    }
+        // the neighbours are read from the height window, so every sample
+        // is averaged with the heights from before this application
+        brush.evaluate(cell -> {
+            // adjust height based on radius of the tool
+            float center = brush.getHeight(cell);
+            float left = brush.getHeight(cell, -1, 0);
+            float right = brush.getHeight(cell, 1, 0);
+            float up = brush.getHeight(cell, 0, 1);
+            float down = brush.getHeight(cell, 0, -1);
+            int count = 1;
+            float amount = center;
+            if ( !isNaN(left) ) {
+                amount += left;
+                count++;
+            }
+            if ( !isNaN(right) ) {
+                amount += right;
+                count++;
+            }
+            if ( !isNaN(up) ) {
+                amount += up;
+                count++;
+            }
+            if ( !isNaN(down) ) {
+                amount += down;
+                count++;
+            }
 
-                    amount /= count; // take average
+            amount /= count; // take average
 
-                    // weigh it
-                    float diff = amount-center;
-                    diff *= height;
-                        
-                    locs.add(terrainLoc);
-                    heights.add(diff);
-                }
-            }
-        }
-        
-        undoLocs = locs;
-        undoHeights = heights;
+            // weigh it
+            float diff = amount-center;
+            return diff * height;
+        });
         
         // do the actual height adjustment
-        terrain.adjustHeight(locs, heights);
-
-        ((Node)terrain).updateModelBound(); // or else we won't collide with it where we just edited
+        brush.adjustHeights(getStroke());
     }
     
     private boolean isNaN(float val) {
         return val != val;
     }
-    
-    private void resetHeight(Terrain terrain, List<Vector2f> undoLocs, List<Float> undoHeights) {
-        List<Float> neg = new ArrayList<Float>();
-        for (Float f : undoHeights)
-            neg.add( f * -1f );
-        
-        terrain.adjustHeight(undoLocs, neg);
-        ((Node)terrain).updateModelBound();
-    }
 }
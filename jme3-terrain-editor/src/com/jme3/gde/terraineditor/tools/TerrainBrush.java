@@ -0,0 +1,365 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.terraineditor.tools;
+
+import com.jme3.gde.terraineditor.tools.TerrainTool.Meshes;
+import com.jme3.math.Vector2f;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+import com.jme3.terrain.Terrain;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Brush engine shared by the terrain height tools. The samples covered by
+ * the brush come from a cached {@link BrushStamp}, their heights are read once
+ * into a float window and the tool computes its results into primitive arrays
+ * that are written back in a single call, see {@link #adjustHeights()} and
+ * {@link #setHeights(TerrainStroke)}.
+ * <p>
+ * A tool evaluates a {@link Kernel} for every sample:
+ * <pre>
+ * TerrainBrush brush = new TerrainBrush(terrain, loc, radius, mesh);
+ * brush.evaluate(cell -&gt; height * brush.getFalloff(cell));
+ * brush.adjustHeights();
+ * </pre>
+ * Large brushes read their heights and evaluate their kernel in row bands on
+ * a fork join pool, only the write back happens on the calling thread.
+ */
+public final class TerrainBrush {
+
+    /**
+     * Computes the value of a single sample. Kernels of large brushes are
+     * called from several threads at once, so they may only read the brush
+     * and their own final state.
+     */
+    public interface Kernel {
+
+        /**
+         * @return the adjustment or height of the sample, NaN to leave the
+         * sample unchanged
+         */
+        float apply(int cell);
+    }
+
+    /**
+     * Work on the index range from..to-1 of a band split.
+     */
+    interface Band {
+
+        void run(int from, int to);
+    }
+
+    /** Brushes with fewer samples are evaluated on the calling thread. */
+    private static final int PARALLEL_THRESHOLD = 4096;
+    /** Number of samples a fork join task works on at least. */
+    private static final int BAND_SIZE = 1024;
+    private static final ForkJoinPool pool = new ForkJoinPool();
+
+    private final Terrain terrain;
+    private final BrushStamp stamp;
+    private final float centerX;
+    private final float centerZ;
+    private float[] window;
+    private int border;
+    private int windowWidth;
+    private int[] outCells;
+    private float[] outValues;
+    private int outCount;
+
+    /**
+     * Creates a brush stepping over the terrain by its local scale.
+     * @param center the brush center, relative to the terrain translation
+     */
+    public TerrainBrush(Terrain terrain, Vector3f center, float radius, Meshes mesh) {
+        this(terrain, center, radius, mesh, ((Node) terrain).getLocalScale().x, ((Node) terrain).getLocalScale().z);
+    }
+
+    public TerrainBrush(Terrain terrain, Vector3f center, float radius, Meshes mesh, float stepX, float stepZ) {
+        this.terrain = terrain;
+        this.stamp = BrushStamp.get(radius, stepX, stepZ, mesh);
+        this.centerX = center.x;
+        this.centerZ = center.z;
+    }
+
+    public int getCellCount() {
+        return stamp.cells.length;
+    }
+
+    /**
+     * @param i 0..getCellCount()-1
+     * @return the window index of the i-th sample inside the brush mesh
+     */
+    public int getCell(int i) {
+        return stamp.cells[i];
+    }
+
+    /**
+     * @return 1 - distance/radius of the sample, negative in the corners of
+     * a box brush
+     */
+    public float getFalloff(int cell) {
+        return stamp.falloff[cell];
+    }
+
+    /**
+     * @return the column of the sample in the 2*radius window, 0 at the
+     * -radius edge
+     */
+    public int getColumn(int cell) {
+        return cell % stamp.width;
+    }
+
+    public int getRow(int cell) {
+        return cell / stamp.width;
+    }
+
+    /**
+     * @return the x location of the sample, relative to the terrain
+     * translation
+     */
+    public float getX(int cell) {
+        return centerX + stamp.offsetX(cell);
+    }
+
+    public float getZ(int cell) {
+        return centerZ + stamp.offsetZ(cell);
+    }
+
+    /**
+     * Reads the heightmap heights of the brush samples. With a border, the
+     * samples around the brush window are read as well so
+     * {@link #getHeight(int, int, int)} can look at the neighbours.
+     * @param border number of extra samples to read on each side
+     */
+    public void readHeights(int border) {
+        this.border = border;
+        windowWidth = stamp.width + 2 * border;
+        int rows = stamp.depth + 2 * border;
+        window = new float[windowWidth * rows];
+        // bring the world transform up to date here, the parallel reads must
+        // not trigger a transform update of the terrain
+        ((Node) terrain).getWorldScale();
+        if (border == 0) {
+            int[] cells = stamp.cells;
+            forEachBand(cells.length, 1, (from, to) -> {
+                Vector2f loc = new Vector2f();
+                for (int i = from; i < to; i++) {
+                    int cell = cells[i];
+                    window[cell] = terrain.getHeightmapHeight(loc.set(getX(cell), getZ(cell)));
+                }
+            });
+            return;
+        }
+        forEachBand(rows, windowWidth, (from, to) -> {
+            Vector2f loc = new Vector2f();
+            for (int row = from; row < to; row++) {
+                float locZ = centerZ + (row - border - stamp.stepsZ) * stamp.stepZ;
+                int i = row * windowWidth;
+                for (int x = -stamp.stepsX - border; x < stamp.stepsX + border; x++) {
+                    window[i++] = terrain.getHeightmapHeight(loc.set(centerX + x * stamp.stepX, locZ));
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the heightmap height of the sample, NaN outside the terrain
+     */
+    public float getHeight(int cell) {
+        return getHeight(cell, 0, 0);
+    }
+
+    /**
+     * @param dx column offset from the sample, at most the border passed to
+     * {@link #readHeights(int)}
+     * @param dz row offset from the sample
+     * @return the heightmap height of the neighbour, NaN outside the terrain
+     */
+    public float getHeight(int cell, int dx, int dz) {
+        int row = cell / stamp.width + border + dz;
+        int column = cell % stamp.width + border + dx;
+        return window[row * windowWidth + column];
+    }
+
+    /**
+     * Computes the values of all samples inside the brush mesh, to be written
+     * by {@link #adjustHeights()} or {@link #setHeights(TerrainStroke)}. The kernel reads
+     * the heights from the window, so neighbour reads see the heights from
+     * before the brush was applied.
+     */
+    public void evaluate(Kernel kernel) {
+        int[] cells = stamp.cells;
+        float[] results = new float[cells.length];
+        forEachBand(cells.length, 1, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                results[i] = kernel.apply(cells[i]);
+            }
+        });
+        outCells = new int[cells.length];
+        outValues = results;
+        outCount = 0;
+        for (int i = 0; i < cells.length; i++) {
+            float value = results[i];
+            if (value == value) {
+                outCells[outCount] = cells[i];
+                outValues[outCount] = value;
+                outCount++;
+            }
+        }
+    }
+
+    /**
+     * Adds the recorded values to the terrain heights.
+     */
+    public void adjustHeights() {
+        adjustHeights(null);
+    }
+
+    /**
+     * Adds the recorded values to the terrain heights.
+     * @param stroke saves the heights under the brush for undo before they
+     * change, may be null
+     */
+    public void adjustHeights(TerrainStroke stroke) {
+        capture(stroke);
+        write(false);
+    }
+
+    /**
+     * Replaces the terrain heights with the recorded values.
+     * @param stroke saves the heights under the brush for undo before they
+     * change, may be null
+     */
+    public void setHeights(TerrainStroke stroke) {
+        capture(stroke);
+        write(true);
+    }
+
+    private void capture(TerrainStroke stroke) {
+        if (stroke == null || outCount == 0) {
+            return;
+        }
+        stroke.captureHeights(terrain, centerX - stamp.stepsX * stamp.stepX, centerZ - stamp.stepsZ * stamp.stepZ,
+                centerX + (stamp.stepsX - 1) * stamp.stepX, centerZ + (stamp.stepsZ - 1) * stamp.stepZ);
+    }
+
+    /**
+     * Runs the band over 0..count-1. When the work reaches the parallel
+     * threshold it is split into bands of about BAND_SIZE samples that run
+     * on the fork join pool, the calling thread waits for them.
+     * @param samples number of samples each index stands for, the width of
+     * a row for example
+     */
+    static void forEachBand(int count, int samples, Band band) {
+        if ((long) count * samples < PARALLEL_THRESHOLD) {
+            band.run(0, count);
+        } else {
+            pool.invoke(new BandTask(band, 0, count, Math.max(1, BAND_SIZE / samples)));
+        }
+    }
+
+    /**
+     * Sends all samples to the terrain in one setHeight or adjustHeight call.
+     * The lists handed to the terrain are views over the arrays, the location
+     * list reuses a single Vector2f that the terrain reads on every get.
+     */
+    private void write(boolean absolute) {
+        if (outCount == 0) {
+            return;
+        }
+        List<Vector2f> locs = new Locations();
+        List<Float> heights = new Heights();
+        if (absolute) {
+            terrain.setHeight(locs, heights);
+        } else {
+            terrain.adjustHeight(locs, heights);
+        }
+        ((Node) terrain).updateModelBound(); // or else we won't collide with it where we just edited
+    }
+
+    private final class Locations extends AbstractList<Vector2f> {
+
+        private final Vector2f loc = new Vector2f();
+
+        @Override
+        public Vector2f get(int index) {
+            int cell = outCells[index];
+            return loc.set(centerX + stamp.offsetX(cell), centerZ + stamp.offsetZ(cell));
+        }
+
+        @Override
+        public int size() {
+            return outCount;
+        }
+    }
+
+    private final class Heights extends AbstractList<Float> {
+
+        @Override
+        public Float get(int index) {
+            return outValues[index];
+        }
+
+        @Override
+        public int size() {
+            return outCount;
+        }
+    }
+
+    private static final class BandTask extends RecursiveAction {
+
+        private final Band band;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        BandTask(Band band, int from, int to, int grain) {
+            this.band = band;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                band.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BandTask(band, from, middle, grain), new BandTask(band, middle, to, grain));
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ *  Copyright (c) 2009-2024 jMonkeyEngine
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are
+ *  met:
+ *
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ *  "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ *  TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ *  PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ *  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ *  EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ *  PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ *  PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ *  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ *  NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.gde.terraineditor.tools;
+
+import com.jme3.gde.core.undoredo.SizeEstimating;
+import com.jme3.math.Vector2f;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+import com.jme3.terrain.Terrain;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Undo data of one terrain editing stroke. Before a tool changes a part of a
+ * heightmap or an alpha map for the first time in the stroke, the
+ * TILE_SIZE x TILE_SIZE tiles it touches are copied into primitive arrays.
+ * Undo and redo swap these tiles with the terrain, so both restore the exact
+ * floats and bytes, and the memory held is proportional to the area touched.
+ * Must be used from the OpenGL thread.
+ */
+public final class TerrainStroke implements SizeEstimating {
+
+    public static final int TILE_SIZE = 64;
+
+    private final Map<Terrain, Map<Integer, HeightTile>> heightTiles = new IdentityHashMap<>();
+    private final Map<Texture, Map<Integer, AlphaTile>> alphaTiles = new IdentityHashMap<>();
+
+    public boolean isEmpty() {
+        return heightTiles.isEmpty() && alphaTiles.isEmpty();
+    }
+
+    /**
+     * Saves the heightmap tiles under the rectangle, unless this stroke saved
+     * them before.
+     * @param minX rectangle corner in terrain coordinates, as passed to
+     * {@link Terrain#setHeight(List, List)}
+     */
+    public void captureHeights(Terrain terrain, float minX, float minZ, float maxX, float maxZ) {
+        Vector3f scale = ((Node) terrain).getWorldScale();
+        int size = terrain.getTerrainSize();
+        int halfSize = size / 2;
+        int x0 = clamp(Math.round(minX / scale.x + halfSize), size);
+        int x1 = clamp(Math.round(maxX / scale.x + halfSize), size);
+        int z0 = clamp(Math.round(minZ / scale.z + halfSize), size);
+        int z1 = clamp(Math.round(maxZ / scale.z + halfSize), size);
+        Map<Integer, HeightTile> tiles = heightTiles.computeIfAbsent(terrain, t -> new LinkedHashMap<>());
+        for (int tz = z0 / TILE_SIZE; tz <= z1 / TILE_SIZE; tz++) {
+            for (int tx = x0 / TILE_SIZE; tx <= x1 / TILE_SIZE; tx++) {
+                Integer key = tz * 65536 + tx;
+                if (!tiles.containsKey(key)) {
+                    tiles.put(key, new HeightTile(terrain, tx * TILE_SIZE, tz * TILE_SIZE, size));
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves the alpha map tiles under the pixel rectangle, unless this stroke
+     * saved them before.
+     * @param maxX exclusive
+     * @param maxY exclusive
+     */
+    public void captureAlpha(Texture tex, int minX, int minY, int maxX, int maxY) {
+        Image image = tex.getImage();
+        Map<Integer, AlphaTile> tiles = alphaTiles.computeIfAbsent(tex, t -> new LinkedHashMap<>());
+        for (int ty = minY / TILE_SIZE; ty <= (maxY - 1) / TILE_SIZE; ty++) {
+            for (int tx = minX / TILE_SIZE; tx <= (maxX - 1) / TILE_SIZE; tx++) {
+                Integer key = ty * 65536 + tx;
+                if (!tiles.containsKey(key)) {
+                    tiles.put(key, new AlphaTile(tex, tx * TILE_SIZE, ty * TILE_SIZE, image));
+                }
+            }
+        }
+    }
+
+    /**
+     * Exchanges the saved tiles with the current content of the terrain: the
+     * first call undoes the stroke, the next one redoes it.
+     */
+    public void swap() {
+        for (Map<Integer, HeightTile> tiles : heightTiles.values()) {
+            for (HeightTile tile : tiles.values()) {
+                tile.swap();
+            }
+        }
+        for (Map<Integer, AlphaTile> tiles : alphaTiles.values()) {
+            for (AlphaTile tile : tiles.values()) {
+                tile.swap();
+            }
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = 0;
+        for (Map<Integer, HeightTile> tiles : heightTiles.values()) {
+            for (HeightTile tile : tiles.values()) {
+                size += 4L * tile.heights.length;
+            }
+        }
+        for (Map<Integer, AlphaTile> tiles : alphaTiles.values()) {
+            for (AlphaTile tile : tiles.values()) {
+                size += tile.pixels.length;
+            }
+        }
+        return size;
+    }
+
+    private static int clamp(int index, int size) {
+        return Math.max(0, Math.min(size - 1, index));
+    }
+
+    private static final class HeightTile {
+
+        private final Terrain terrain;
+        private final int x;
+        private final int z;
+        private final int width;
+        private final int depth;
+        private final int halfSize;
+        private float[] heights;
+
+        HeightTile(Terrain terrain, int x, int z, int size) {
+            this.terrain = terrain;
+            this.x = x;
+            this.z = z;
+            width = Math.min(TILE_SIZE, size - x);
+            depth = Math.min(TILE_SIZE, size - z);
+            halfSize = size / 2;
+            heights = read();
+        }
+
+        float[] read() {
+            Vector3f scale = ((Node) terrain).getWorldScale();
+            float[] values = new float[width * depth];
+            Vector2f loc = new Vector2f();
+            for (int i = 0; i < values.length; i++) {
+                values[i] = terrain.getHeightmapHeight(loc.set((x + i % width - halfSize) * scale.x,
+                        (z + i / width - halfSize) * scale.z));
+            }
+            return values;
+        }
+
+        void swap() {
+            float[] current = read();
+            Vector3f scale = ((Node) terrain).getWorldScale();
+            float[] saved = heights;
+            Vector2f loc = new Vector2f();
+            List<Vector2f> locs = new AbstractList<Vector2f>() {
+                @Override
+                public Vector2f get(int i) {
+                    return loc.set((x + i % width - halfSize) * scale.x, (z + i / width - halfSize) * scale.z);
+                }
+
+                @Override
+                public int size() {
+                    return saved.length;
+                }
+            };
+            List<Float> values = new AbstractList<Float>() {
+                @Override
+                public Float get(int i) {
+                    return saved[i];
+                }
+
+                @Override
+                public int size() {
+                    return saved.length;
+                }
+            };
+            terrain.setHeight(locs, values);
+            ((Node) terrain).updateModelBound();
+            heights = current;
+        }
+    }
+
+    private static final class AlphaTile {
+
+        private final Texture tex;
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+        private final byte[] pixels;
+
+        AlphaTile(Texture tex, int x, int y, Image image) {
+            this.tex = tex;
+            this.x = x;
+            this.y = y;
+            width = Math.min(TILE_SIZE, image.getWidth() - x);
+            height = Math.min(TILE_SIZE, image.getHeight() - y);
+            pixels = new byte[width * height * 4];
+            ByteBuffer data = image.getData(0);
+            int rowSize = width * 4;
+            for (int r = 0; r < height; r++) {
+                data.get(((y + r) * image.getWidth() + x) * 4, pixels, r * rowSize, rowSize);
+            }
+        }
+
+        void swap() {
+            Image image = tex.getImage();
+            ByteBuffer data = image.getData(0);
+            int rowSize = width * 4;
+            byte[] row = new byte[rowSize];
+            for (int r = 0; r < height; r++) {
+                int index = ((y + r) * image.getWidth() + x) * 4;
+                int offset = r * rowSize;
+                data.get(index, row);
+                data.put(index, pixels, offset, rowSize);
+                System.arraycopy(row, 0, pixels, offset, rowSize);
+            }
+            AlphaPainter.upload(tex, x, y, width, height);
+        }
+    }
+}
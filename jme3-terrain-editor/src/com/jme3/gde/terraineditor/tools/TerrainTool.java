@@ -33,6 +33,8 @@ package com.jme3.gde.terraineditor.tools;
 
 import com.jme3.asset.AssetManager;
 import com.jme3.gde.core.sceneexplorer.nodes.AbstractSceneExplorerNode;
+import com.jme3.gde.core.undoredo.AbstractUndoableSceneEdit;
+import com.jme3.gde.core.undoredo.SceneUndoRedoManager;
 import com.jme3.gde.terraineditor.ExtraToolParams;
 import com.jme3.input.KeyInput;
 import com.jme3.input.event.KeyInputEvent;
@@ -48,7 +50,10 @@ import com.jme3.scene.shape.Sphere;
 import com.jme3.util.IntMap.Entry;
 import java.util.HashMap;
 import java.util.Map;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
 import org.openide.loaders.DataObject;
+import org.openide.util.Lookup;
 
 /**
  * Modifies the terrain in some way.
@@ -83,6 +88,7 @@ public abstract class TerrainTool {
     private Meshes mesh;
     private final Map<Vector3f, Float> cachedMap = new HashMap<Vector3f, Float>(); // caching only
     private boolean primary = true;
+    private TerrainStroke stroke;
     
     public static enum Meshes {
         Box, Sphere
@@ -125,10 +131,62 @@ public abstract class TerrainTool {
     public abstract void actionSecondary(Vector3f point, int textureIndex, AbstractSceneExplorerNode rootNode, DataObject dataObject);
     
     /**
-     * The action has ended, record undo actions.
-     * Currently just implemented for Paint tool
+     * The stroke the tool actions save the terrain to for undo. A stroke
+     * starts with the first action after actionEnded().
      */
-    public void actionEnded(AbstractSceneExplorerNode rootNode, DataObject dataObject) {}
+    protected TerrainStroke getStroke() {
+        if (stroke == null)
+            stroke = new TerrainStroke();
+        return stroke;
+    }
+    
+    /**
+     * The action has ended, record the stroke as one undo action.
+     */
+    public void actionEnded(final AbstractSceneExplorerNode rootNode, final DataObject dataObject) {
+        final TerrainStroke ended = stroke;
+        stroke = null;
+        if (ended == null || ended.isEmpty())
+            return;
+        
+        Lookup lookup = Lookup.getDefault() ;
+        SceneUndoRedoManager manager = lookup.lookup(SceneUndoRedoManager.class);
+
+        AbstractUndoableSceneEdit undoer = new AbstractUndoableSceneEdit() {
+
+            @Override
+            public void sceneUndo() throws CannotUndoException {
+                ended.swap();
+                setModified(rootNode, dataObject);
+            }
+
+            @Override
+            public void sceneRedo() throws CannotRedoException {
+                ended.swap();
+                setModified(rootNode, dataObject);
+            }
+
+            @Override
+            public long estimateSize() {
+                return ended.estimateSize();
+            }
+
+        };
+        if (manager != null) // this is a temporary check, it should never be null but occasionally is
+            manager.addEdit(this, undoer);
+    }
+    
+    protected void setModified(final AbstractSceneExplorerNode rootNode, final DataObject dataObject) {
+        if (dataObject.isModified())
+            return;
+        java.awt.EventQueue.invokeLater(new Runnable() {
+
+            public void run() {
+                dataObject.setModified(true);
+                rootNode.refresh(true);
+            }
+        });
+    }
     
     /**
      * Signals that this tool will or will not snap to fixed axis angles
@@ -195,6 +253,13 @@ public abstract class TerrainTool {
         }
     }
     
+    /**
+     * @return the radius of the tool in world units
+     */
+    public float getRadius() {
+        return radius;
+    }
+    
     /**
      * The radius of the tool has changed, so update the marker
      * @param radius percentage of the max radius
@@ -32,7 +32,7 @@
 
 package com.jme3.gde.terraineditor.tools;
 
-import com.jme3.math.Vector2f;
+import com.jme3.math.FastMath;
 
 /**
  * Handy utilities for the editor tools
@@ -49,9 +49,8 @@ public class ToolUtils {
      * @return
      */
     public static boolean isInRadius(float x, float y, float radius) {
-        Vector2f point = new Vector2f(x,y);
         // return true if the distance is less than equal to the radius
-        return Math.abs(point.length()) <= radius;
+        return FastMath.sqrt(x * x + y * y) <= radius;
     }
 
     /**
@@ -105,8 +104,7 @@ public class ToolUtils {
 
     public static float calculateRadiusPercent(float radius, float x, float z) {
          // find percentage for each 'unit' in radius
-        Vector2f point = new Vector2f(x,z);
-        float val = Math.abs(point.length()) / radius;
+        float val = FastMath.sqrt(x * x + z * z) / radius;
         val = 1f - val;
         return val;
     }